@@ -1,6 +1,7 @@
 package com.reeco.bas.transport;
 
 import com.reeco.bas.transport.application.VesselStateMachine;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.WebApplicationType;
@@ -10,6 +11,7 @@ import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.env.Environment;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+@Slf4j
 @SpringBootApplication
 @EnableScheduling
 @EnableConfigurationProperties
@@ -26,7 +28,7 @@ public class TransportServiceApplication {
 		ConfigurableApplicationContext context = app.run(args);
 		Environment env = context.getEnvironment();
 		myVariable = env.getProperty("my.variable");
-		System.out.println("Env var: " + myVariable);
+		log.info("Env var: {}", myVariable);
 	}
 
 }
\ No newline at end of file
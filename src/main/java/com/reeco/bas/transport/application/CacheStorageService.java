@@ -1,71 +1,299 @@
 package com.reeco.bas.transport.application;
 
 // CacheStorageService.java
-import com.opencsv.CSVReaderBuilder;
-import com.opencsv.CSVWriter;
+import com.reeco.bas.transport.application.storage.ExportCsvReader;
+import com.reeco.bas.transport.application.storage.SegmentFormat;
+import com.reeco.bas.transport.application.storage.SegmentWriter;
+import com.reeco.bas.transport.application.storage.SessionArchive;
+import com.reeco.bas.transport.application.storage.SessionArchiveReader;
+import com.reeco.bas.transport.application.storage.SessionArchiveWriter;
+import com.reeco.bas.transport.application.storage.SessionBuffer;
+import com.reeco.bas.transport.application.storage.SessionCatalog;
+import com.reeco.bas.transport.application.storage.SessionSegmentWriter;
+import com.reeco.bas.transport.application.storage.SessionStatistics;
+import com.reeco.bas.transport.application.storage.SyncManifest;
+import com.reeco.bas.transport.infrastructure.codec.CombinedDataCodec;
+import com.reeco.bas.transport.infrastructure.metrics.PipelineMetrics;
+import com.reeco.bas.transport.infrastructure.upload.SessionUploader;
+import com.reeco.bas.transport.model.SensorsType;
 import com.reeco.bas.transport.model.SyncPayload;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import java.io.FileWriter;
-import com.opencsv.CSVReader;
-import com.opencsv.CSVReaderBuilder;
-import org.springframework.http.ResponseEntity;
 import java.io.File;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import org.springframework.scheduling.annotation.Scheduled;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 @Slf4j
 public class CacheStorageService {
-    private final ConcurrentLinkedQueue<SyncPayload> storage;
-    private static final String CSV_DIRECTORY = "export/";
-    private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    private final SessionBuffer storage;
+    private final SyncManifest syncManifest;
+    private final SessionCatalog sessionCatalog;
+    private final SessionStatistics sessionStatistics = new SessionStatistics();
+    /** Set from the first sample of a session until its summary is published. */
+    private boolean qualitySessionStarted = false;
+    /** Last segment sealed in the current session, which holds its summary. */
+    private volatile Path lastSealed;
+    private final ObjectMapper summaryMapper = new ObjectMapper();
+    private final ExecutorService syncExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sync-drain");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean syncRunning = new AtomicBoolean();
+    static final String CSV_DIRECTORY = "export/";
+    private static final String SYNC_MANIFEST_FILE = "sync-manifest.json";
+    private static final String CATALOG_FILE = "catalog.json";
+    static final String SUMMARY_SUFFIX = ".summary.json";
+    /** Rollups and compressed segments moved out of the sync scan by the retention policy. */
+    static final String COLD_DIRECTORY = CSV_DIRECTORY + "cold/";
 
-    private RestTemplate restTemplate = new RestTemplate();
+    @Value("${sync.upload.enabled:false}")
+    private boolean uploadEnabled;
 
-    private static final String API_URL = "https://smartbas-api.vnemisoft.com/api/sync";
+    @Value("${sync.batch-size:500}")
+    private int syncBatchSize;
 
-    public CacheStorageService() {
-        this.storage = new ConcurrentLinkedQueue<>();
-        createExportDirectory();
+    @Value("${storage.query.max-range:3600000}")
+    private long maxQueryRangeMs;
+
+    @Autowired
+    private SessionUploader sessionUploader;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private SensorQualityMonitor sensorQualityMonitor;
+
+    @Autowired
+    public CacheStorageService(@Value("${storage.buffer.chunk-size:512}") int chunkSize,
+                               @Value("${storage.segment.max-bytes:8388608}") long maxSegmentBytes,
+                               @Value("${storage.segment.max-age:600000}") long maxSegmentAgeMs,
+                               @Value("${storage.segment.format:ARCHIVE}") SegmentFormat segmentFormat) {
+        this(Paths.get(CSV_DIRECTORY), chunkSize, maxSegmentBytes, maxSegmentAgeMs, segmentFormat);
     }
 
-    @Scheduled(fixedRate = 60000) // Runs every 1 minute
+    /**
+     * @param directory where segments, the catalog and the sync manifest are kept
+     */
+    CacheStorageService(Path directory, int chunkSize, long maxSegmentBytes, long maxSegmentAgeMs, SegmentFormat segmentFormat) {
+        createExportDirectory(directory);
+        this.sessionCatalog = new SessionCatalog(directory, directory.resolve(CATALOG_FILE));
+        try {
+            SegmentWriter writer = segmentFormat == SegmentFormat.CSV
+                    ? new SessionSegmentWriter(directory, maxSegmentBytes, maxSegmentAgeMs)
+                    : new SessionArchiveWriter(directory, maxSegmentBytes, maxSegmentAgeMs);
+            writer.onSeal(entry -> {
+                sessionCatalog.register(entry);
+                // Size and age rollovers seal segments from the flush, before the session is stopped
+                lastSealed = directory.resolve(entry.getFileName());
+            });
+            this.storage = new SessionBuffer(chunkSize, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to initialise session segment writer", e);
+        }
+        this.syncManifest = new SyncManifest(directory.resolve(SYNC_MANIFEST_FILE));
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        pipelineMetrics.registerQueue("session_buffer", storage, SessionBuffer::size);
+        pipelineMetrics.registerDrops("session_spill", storage, SessionBuffer::getDroppedCount);
+    }
+
+    @Scheduled(fixedRateString = "${sync.scan-interval:60000}") // Runs every 1 minute
     public void processCsvFiles() {
+        if (!uploadEnabled) {
+            log.debug("Sync upload is disabled, skipping CSV processing");
+            return;
+        }
+        // A backlog drain blocks on retries and the rate limit, so it must not hold the shared scheduler thread
+        if (!syncRunning.compareAndSet(false, true)) {
+            log.debug("Previous CSV processing still running, skipping this scan");
+            return;
+        }
+        syncExecutor.execute(() -> {
+            try {
+                syncSegments();
+            } finally {
+                syncRunning.set(false);
+            }
+        });
+    }
+
+    private void syncSegments() {
         log.info("Starting CSV processing at {}", LocalDateTime.now());
 
         try {
             // Create directories if they don't exist
 
-            // Get all CSV files from export directory
-            File exportDir = new File(CSV_DIRECTORY);
-            File[] csvFiles = exportDir.listFiles((dir, name) -> name.toLowerCase().endsWith(".csv"));
+            File[] segmentFiles = listSegmentFiles();
 
-            if (csvFiles == null || csvFiles.length == 0) {
+            if (segmentFiles.length == 0) {
                 log.info("No CSV files found in export directory");
                 return;
             }
 
-            for (File csvFile : csvFiles) {
-                syncFromCsv(csvFile.getAbsolutePath());
+            List<String> segmentNames = new ArrayList<>(segmentFiles.length);
+            for (File segmentFile : segmentFiles) {
+                segmentNames.add(segmentFile.getName());
             }
+            syncManifest.retain(segmentNames);
+
+            // Fully synced segments are skipped from the manifest without being read
+            for (File segmentFile : segmentFiles) {
+                syncFromFile(segmentFile.getAbsolutePath());
+            }
+            syncManifest.save();
 
         } catch (Exception e) {
             log.error("Error in CSV processing scheduler: ", e);
         }
     }
-    private void createExportDirectory() {
+    /**
+     * Add catalog entries for sealed segments that were not written through the catalog,
+     * e.g. legacy exports and segments recovered after a crash, and drop deleted ones.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${sync.scan-interval:60000}")
+    public void refreshCatalog() {
+        // Catalog name of every segment and cold rollup on disk
+        Map<String, File> segments = new LinkedHashMap<>();
+        for (File segmentFile : listSegmentFiles()) {
+            segments.put(segmentFile.getName(), segmentFile);
+        }
+        File[] rollups = new File(COLD_DIRECTORY).listFiles((dir, name) -> name.endsWith(SessionArchive.SUFFIX));
+        if (rollups != null) {
+            for (File rollup : rollups) {
+                segments.put(coldName(rollup.getName()), rollup);
+            }
+        }
+        sessionCatalog.retain(segments.keySet());
+
+        // Retention may register a rollup and drop its raw segment in between; whatever retain()
+        // dropped that way is indexed again here or on the next run
+        segments.forEach((name, segmentFile) -> {
+            if (sessionCatalog.contains(name) || !segmentFile.exists()) {
+                return;
+            }
+            try {
+                SessionCatalog.Entry entry = SessionCatalog.index(segmentFile.toPath());
+                entry.setFileName(name);
+                sessionCatalog.register(entry);
+                log.info("Indexed session segment {}", name);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to index session segment {}: {}", name, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Find the sealed segments of a berth with samples between two event times
+     * ({@code yyyy-MM-dd'T'HH:mm:ss.SSSSS}), without opening any file.
+     * @throws IllegalArgumentException if a time cannot be parsed or the range is reversed
+     */
+    public List<SessionCatalog.Entry> findSessions(int berthId, String from, String to) {
+        long[] range = queryRange(from, to);
+        return sessionCatalog.find(berthId, range[0], range[1]);
+    }
+
+    /**
+     * Read the samples of a berth between two event times from the sealed segments. Only
+     * the blocks or rows around the range are read; the open segment is not included.
+     * @throws IllegalArgumentException if a time cannot be parsed, or the range is reversed or
+     * longer than {@code storage.query.max-range}
+     */
+    public List<SyncPayload> querySamples(int berthId, String from, String to) {
+        long[] range = queryRange(from, to);
+        if (range[1] - range[0] > TimeUnit.MILLISECONDS.toMicros(maxQueryRangeMs)) {
+            throw new IllegalArgumentException("Sample queries are limited to " + maxQueryRangeMs + " ms");
+        }
+        List<SyncPayload> samples = new ArrayList<>();
+        try {
+            sessionCatalog.query(berthId, range[0], range[1], samples::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to query session samples", e);
+        }
+        return samples;
+    }
+
+    /**
+     * @return {@code from} and {@code to} in epoch micros
+     */
+    static long[] queryRange(String from, String to) {
+        long fromMicros = queryTime("from", from);
+        long toMicros = queryTime("to", to);
+        if (fromMicros > toMicros) {
+            throw new IllegalArgumentException("from " + from + " is after to " + to);
+        }
+        return new long[]{fromMicros, toMicros};
+    }
+
+    private static long queryTime(String name, String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(name + " is required");
+        }
+        try {
+            return CombinedDataCodec.toEpochMicros(value);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException(name + " must be formatted as yyyy-MM-ddTHH:mm:ss.SSSSS, got " + value);
+        }
+    }
+
+    SessionCatalog getSessionCatalog() {
+        return sessionCatalog;
+    }
+
+    boolean isUploadEnabled() {
+        return uploadEnabled;
+    }
+
+    /**
+     * @return whether the segment has been fully accepted by the sync API
+     */
+    boolean isSynced(String segmentName) {
+        return syncManifest.isComplete(segmentName);
+    }
+
+    /**
+     * @return the catalog name of a file in the cold directory
+     */
+    static String coldName(String fileName) {
+        return COLD_DIRECTORY.substring(CSV_DIRECTORY.length()) + fileName;
+    }
+
+    /**
+     * @return all sealed CSV and archive segments in the export directory
+     */
+    private File[] listSegmentFiles() {
+        File exportDir = new File(CSV_DIRECTORY);
+        File[] segmentFiles = exportDir.listFiles((dir, name) -> name.toLowerCase().endsWith(SessionSegmentWriter.SUFFIX)
+                || name.toLowerCase().endsWith(SessionArchive.SUFFIX));
+        return segmentFiles != null ? segmentFiles : new File[0];
+    }
+
+    private void createExportDirectory(Path directory) {
         try {
-            java.nio.file.Files.createDirectories(java.nio.file.Paths.get(CSV_DIRECTORY));
+            java.nio.file.Files.createDirectories(directory);
         } catch (IOException e) {
             log.error("Failed to create export directory: {}", e.getMessage());
         }
@@ -75,210 +303,285 @@ public class CacheStorageService {
      * Add a new item to the cache storage
      */
     public void addItem(SyncPayload payload) {
-        storage.offer(payload);
+        if (!SessionStatistics.isSessionSample(payload)) {
+            // Would otherwise look like a new session and reset the summary
+            log.debug("Skipping sample without a session: {}", payload);
+            return;
+        }
+        long storeStart = System.nanoTime();
+        boolean otherSession = sessionStatistics.isOtherSession(payload);
+        if (otherSession) {
+            log.warn("Session {} started before session {} was stopped, its summary is discarded",
+                    payload.getRecordId(), sessionStatistics.getSessionId());
+            sessionStatistics.reset();
+            lastSealed = null;
+        }
+        if (otherSession || !qualitySessionStarted) {
+            // Sensor quality is counted from the first sample of the session
+            sensorQualityMonitor.resetSession();
+            qualitySessionStarted = true;
+        }
+        sessionStatistics.accept(payload);
+        storage.add(payload);
+        pipelineMetrics.record(PipelineMetrics.Stage.STORE, storeStart);
         log.debug("Added item to cache. Current size: {}", storage.size());
     }
 
-    public void syncFromCsv(String csvFilePath) {
-        List<SyncPayload> payloads = readCsvFile(csvFilePath);
-        sendToApi(payloads);
-    }
     /**
-     * Add multiple items to the cache storage
+     * Upload the part of a sealed segment that has not been synced yet, checkpointing
+     * the manifest after every accepted batch.
      */
-    public void addItems(List<SyncPayload> payloads) {
-        payloads.forEach(storage::offer);
-        log.debug("Added {} items to cache. Current size: {}", payloads.size(), storage.size());
+    public synchronized void syncFromFile(String filePath) {
+        if (!uploadEnabled) {
+            return;
+        }
+        Path segment = Paths.get(filePath);
+        try {
+            SyncManifest.Entry entry = syncManifest.entryFor(segment);
+            if (entry.isComplete()) {
+                return;
+            }
+            boolean complete = filePath.endsWith(SessionArchive.SUFFIX)
+                    ? syncArchiveTail(segment, entry)
+                    : syncCsvTail(segment, entry);
+            if (complete) {
+                syncManifest.markComplete(entry);
+                log.info("Segment {} fully synced ({} records)", segment.getFileName(), entry.getSyncedRecords());
+            }
+        } catch (IOException e) {
+            log.error("Failed to sync segment {}: {}", filePath, e.getMessage());
+        }
     }
 
     /**
-     * Get current size of the cache
+     * @return true if the whole file has been uploaded
      */
-    public int getSize() {
-        return storage.size();
+    private boolean syncCsvTail(Path segment, SyncManifest.Entry entry) throws IOException {
+        UploadWindow window = new UploadWindow(segment.getFileName().toString(), entry);
+        try (ExportCsvReader reader = new ExportCsvReader(segment)) {
+            reader.read(entry.getSyncedBytes(), reader.size(), SyncPayload::new, window::append);
+            if (reader.getMalformedRows() > 0) {
+                log.warn("Skipped {} malformed rows in {}", reader.getMalformedRows(), segment.getFileName());
+            }
+        }
+        return window.finish();
     }
 
     /**
-     * Export all items to CSV and clear the storage
-     * @return The path to the exported CSV file
+     * @return true if the whole file has been uploaded
      */
-    public String exportAndClear(int org_id, int berth_id, int session_id) {
-        if (storage.isEmpty()) {
-            return null;
+    private boolean syncArchiveTail(Path segment, SyncManifest.Entry entry) throws IOException {
+        UploadWindow window = new UploadWindow(segment.getFileName().toString(), entry);
+        try (SessionArchiveReader reader = new SessionArchiveReader(segment)) {
+            long skip = entry.getSyncedRecords();
+            for (SessionArchive.BlockIndex block : reader.getBlocks()) {
+                // The footer lets already synced blocks be skipped without decoding them
+                if (skip >= block.getCount()) {
+                    skip -= block.getCount();
+                    continue;
+                }
+                List<SyncPayload> records = reader.readBlock(block);
+                for (int i = (int) skip; i < records.size(); i++) {
+                    if (!window.append(records.get(i), 0)) {
+                        return false;
+                    }
+                }
+                skip = 0;
+            }
         }
+        return window.finish();
+    }
 
-        String encoded_id = org_id + "_" + berth_id + "_" + session_id;
-
-        String fileName = String.format("%s%s-%s.csv",
-                CSV_DIRECTORY,
-                encoded_id,
-                LocalDateTime.now().format(FILE_DATE_FORMAT));
-
-        try (CSVWriter writer = new CSVWriter(new FileWriter(fileName))) {
-            // Write header
-            writer.writeNext(new String[]{
-                    "record_id",
-                    "berth_id",
-                    "time",
-                    "org_id",
-                    "angle_zone",
-                    "lspeed_zone",
-                    "ldistance_zone",
-                    "rdistance_zone",
-                    "rspeed_zone",
-                    "left_speed",
-                    "left_distance",
-                    "right_speed",
-                    "right_distance",
-                    "angle",
-                    "left_status",
-                    "right_status",
-                    "rdistance_alarm",
-                    "rspeed_alarm",
-                    "ldistance_alarm",
-                    "lspeed_alarm",
-                    "angle_alarm",
-                    "created_at",
-                    "updated_at",
-                    "deleted_at",
+    /**
+     * Collects chunks until every upload worker has one, uploads them together and
+     * checkpoints the manifest up to the last chunk of the acknowledged prefix.
+     */
+    private final class UploadWindow {
+        private final String segmentName;
+        private final SyncManifest.Entry entry;
+        private final List<List<SyncPayload>> chunks = new ArrayList<>();
+        private final List<Long> endOffsets = new ArrayList<>();
+        private List<SyncPayload> pending = new ArrayList<>(syncBatchSize);
+        private long pendingEnd;
+        private boolean failed = false;
 
-            });
+        UploadWindow(String segmentName, SyncManifest.Entry entry) {
+            this.segmentName = segmentName;
+            this.entry = entry;
+        }
 
-            // Write data
-            List<SyncPayload> dataToExport = new ArrayList<>();
-            SyncPayload item;
-            int count = 0;
-            while ((item = storage.poll()) != null) {
-                dataToExport.add(item);
-                count += 1;
-                if (count == 50){
-                    storage.clear();
+        /**
+         * @param nextOffset CSV byte offset just after the record
+         * @return false once an upload was not fully acknowledged, to stop reading
+         */
+        boolean append(SyncPayload record, long nextOffset) {
+            pending.add(record);
+            pendingEnd = nextOffset;
+            if (pending.size() >= syncBatchSize) {
+                chunks.add(pending);
+                endOffsets.add(pendingEnd);
+                pending = new ArrayList<>(syncBatchSize);
+                if (chunks.size() >= sessionUploader.getParallelism()) {
+                    flush();
                 }
-                writer.writeNext(new String[]{
-                        String.valueOf(item.getRecordId()),
-                        String.valueOf(item.getBerthId()),
-                        item.getTime(),
-                        String.valueOf(item.getOrgId()),
-                        String.valueOf(item.getAngleZone()),
-                        String.valueOf(item.getLSpeedZone()),
-                        String.valueOf(item.getLDistanceZone()),
-                        String.valueOf(item.getRDistanceZone()),
-                        String.valueOf(item.getRSpeedZone()),
-                        String.valueOf(item.getLeftSpeed()),
-                        String.valueOf(item.getLeftDistance()),
-                        String.valueOf(item.getRightSpeed()),
-                        String.valueOf(item.getRightDistance()),
-                        String.valueOf(item.getAngle()),
-                        String.valueOf(item.getLeftStatus()),
-                        String.valueOf(item.getRightStatus()),
-                        String.valueOf(item.getRDistanceAlarm()),
-                        String.valueOf(item.getRSpeedAlarm()),
-                        String.valueOf(item.getLDistanceAlarm()),
-                        String.valueOf(item.getLSpeedAlarm()),
-                        String.valueOf(item.getAngleAlarm()),
-                        item.getCreatedAt(),
-                        item.getUpdatedAt(),
-                        item.getDeletedAt() != null ? item.getDeletedAt() : ""
-                });
             }
+            return !failed;
+        }
+
+        /**
+         * Upload whatever is left.
+         * @return true if everything appended was acknowledged
+         */
+        boolean finish() {
+            if (!failed && !pending.isEmpty()) {
+                chunks.add(pending);
+                endOffsets.add(pendingEnd);
+                pending = new ArrayList<>(syncBatchSize);
+            }
+            flush();
+            return !failed;
+        }
+
+        private void flush() {
+            if (failed || chunks.isEmpty()) {
+                chunks.clear();
+                endOffsets.clear();
+                return;
+            }
+            int acknowledged = sessionUploader.upload(segmentName, entry.getSyncedRecords(), chunks);
+            for (int i = 0; i < acknowledged; i++) {
+                syncManifest.checkpoint(entry, chunks.get(i).size(), endOffsets.get(i));
+            }
+            failed = acknowledged < chunks.size();
+            chunks.clear();
+            endOffsets.clear();
+        }
+    }
+
+    /**
+     * Add multiple items to the cache storage
+     */
+    public void addItems(List<SyncPayload> payloads) {
+        payloads.forEach(this::addItem);
+        log.debug("Added {} items to cache. Current size: {}", payloads.size(), storage.size());
+    }
 
+    /**
+     * Get current size of the cache
+     */
+    public int getSize() {
+        return (int) storage.size();
+    }
 
+    /**
+     * Push the records collected so far into the open segment, so a crash loses at most
+     * one flush interval of data.
+     */
+    @Scheduled(fixedDelayString = "${storage.segment.flush-interval:5000}")
+    public void flushSegment() {
+        storage.flush();
+    }
 
-            log.info("Exported {} records to {}", dataToExport.size(), fileName);
+    @PreDestroy
+    public void flushOnShutdown() {
+        syncExecutor.shutdownNow();
+        storage.flush();
+    }
 
-            syncFromCsv(fileName);
+    /**
+     * @return the KPIs of the session in progress
+     */
+    public SessionStatistics getSessionStatistics() {
+        return withQuality(sessionStatistics.copy());
+    }
 
-            return fileName;
+    private SessionStatistics withQuality(SessionStatistics statistics) {
+        statistics.setLeftQuality(sensorQualityMonitor.getSessionQuality(SensorsType.LEFT));
+        statistics.setRightQuality(sensorQualityMonitor.getSessionQuality(SensorsType.RIGHT));
+        return statistics;
+    }
 
+    /**
+     * Write the session KPIs next to the last sealed segment. They were accumulated while
+     * the session ran, so nothing has to be read back.
+     */
+    private void publishSummary(Path sealed) {
+        SessionStatistics summary = withQuality(sessionStatistics.copy());
+        resetSession();
+        String name = sealed.getFileName().toString();
+        Path summaryFile = sealed.resolveSibling(name.substring(0, name.lastIndexOf('.')) + SUMMARY_SUFFIX);
+        try {
+            summaryMapper.writerWithDefaultPrettyPrinter().writeValue(summaryFile.toFile(), summary);
+            log.info("Session {} summary: {} samples, min distance {}/{}, max speed {}/{}, max angle {}, "
+                            + "weak signal {}/{}, lost to pairing {}/{}",
+                    summary.getSessionId(), summary.getSampleCount(), summary.getMinLeftDistance(),
+                    summary.getMinRightDistance(), summary.getMaxLeftSpeed(), summary.getMaxRightSpeed(),
+                    summary.getMaxAngle(), summary.getLeftQuality().getWeakSignal(),
+                    summary.getRightQuality().getWeakSignal(), summary.getLeftQuality().getLostToPairing(),
+                    summary.getRightQuality().getLostToPairing());
         } catch (IOException e) {
-            log.error("Failed to export data to CSV: {}", e.getMessage());
-            // If export fails, put the items back in the queue
-            storage.addAll(new ArrayList<>(storage));
-            throw new RuntimeException("Failed to export data to CSV", e);
+            log.error("Failed to write session summary {}: {}", summaryFile, e.getMessage());
         }
     }
 
-    private List<SyncPayload> readCsvFile(String csvFilePath) {
-        List<SyncPayload> payloads = new ArrayList<>();
+    private void resetSession() {
+        sessionStatistics.reset();
+        sensorQualityMonitor.resetSession();
+        qualitySessionStarted = false;
+        lastSealed = null;
+    }
 
-        try (CSVReader reader = new CSVReaderBuilder(new FileReader(csvFilePath))
-                .withSkipLines(1) // Skip header row
-                .build()) {
+    /**
+     * Seal the session segment. Records have already been streamed to disk while the
+     * session was running, so this only flushes the last partial chunk and renames the file.
+     * @return The path to the last sealed segment file
+     */
+    public String exportAndClear(int org_id, int berth_id, int session_id) {
+        // A rollover may already have sealed everything; the summary is still due then
+        if (storage.isEmpty() && sessionStatistics.getSampleCount() == 0) {
+            return null;
+        }
 
-            String[] line;
-            int count = 0;
-            while ((line = reader.readNext()) != null) {
-                SyncPayload payload = new SyncPayload();
-                count += 1;
-                if (count == 30){
-                    break;
-                }
-                // Parse and set fields from CSV
-                payload.setRecordId(Integer.parseInt(line[0].replace("\"", "")));
-                payload.setBerthId(Integer.parseInt(line[1].replace("\"", "")));
-                payload.setTime(line[2].replace("\"", ""));
-                payload.setOrgId(Integer.parseInt(line[3].replace("\"", "")));
-                payload.setAngleZone(Integer.parseInt(line[4].replace("\"", "")));
-                payload.setLSpeedZone(Integer.parseInt(line[5].replace("\"", "")));
-                payload.setLDistanceZone(Integer.parseInt(line[6].replace("\"", "")));
-                payload.setRDistanceZone(Integer.parseInt(line[7].replace("\"", "")));
-                payload.setRSpeedZone(Integer.parseInt(line[8].replace("\"", "")));
-                payload.setLeftSpeed(Double.parseDouble(line[9].replace("\"", "")));
-                payload.setLeftDistance(Double.parseDouble(line[10].replace("\"", "")));
-                payload.setRightSpeed(Double.parseDouble(line[11].replace("\"", "")));
-                payload.setRightDistance(Double.parseDouble(line[12].replace("\"", "")));
-                payload.setAngle(Double.parseDouble(line[13].replace("\"", "")));
-                payload.setLeftStatus(Integer.parseInt(line[14].replace("\"", "")));
-                payload.setRightStatus(Integer.parseInt(line[15].replace("\"", "")));
-                payload.setRDistanceAlarm(Integer.parseInt(line[16].replace("\"", "")));
-                payload.setRSpeedAlarm(Integer.parseInt(line[17].replace("\"", "")));
-                payload.setLDistanceAlarm(Integer.parseInt(line[18].replace("\"", "")));
-                payload.setLSpeedAlarm(Integer.parseInt(line[19].replace("\"", "")));
-                payload.setAngleAlarm(Integer.parseInt(line[20].replace("\"", "")));
-                payload.setCreatedAt(line[21].replace("\"", ""));
-                payload.setUpdatedAt(line[22].replace("\"", ""));
-                payload.setDeletedAt(line[23].replace("\"", ""));
-
-                payloads.add(payload);
+        long count = storage.size();
+        try {
+            Path sealed = storage.seal();
+            if (sealed != null) {
+                log.info("Sealed session {}_{}_{} with {} records in {}", org_id, berth_id, session_id, count, sealed);
+            } else {
+                sealed = lastSealed;
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new RuntimeException("Failed to read CSV file: " + e.getMessage());
-        }
+            if (sealed == null) {
+                log.warn("Session {}_{}_{} has no sealed segment, its summary is discarded", org_id, berth_id, session_id);
+                resetSession();
+                return null;
+            }
+            // The sync scheduler uploads it, so the sensor thread never waits on the network
+            publishSummary(sealed);
 
-        return payloads;
+            return sealed.toString();
+
+        } catch (IOException e) {
+            log.error("Failed to seal session segment: {}", e.getMessage());
+            throw new RuntimeException("Failed to export data to CSV", e);
+        }
     }
+
     /**
      * Clear the storage without exporting
      */
     public void clear() {
-        int size = storage.size();
-        storage.clear();
+        long size = storage.size();
+        try {
+            storage.clear();
+        } catch (IOException e) {
+            log.error("Failed to clear spilled session data: {}", e.getMessage());
+        }
         log.info("Cleared {} items from cache", size);
     }
-    private void sendToApi(List<SyncPayload> payloads) {
-        return;
-//        try {
-//            ResponseEntity<String> response = restTemplate.postForEntity(
-//                    API_URL,
-//                    payloads,
-//                    String.class
-//            );
-//
-//            if (response.getStatusCode().is2xxSuccessful()) {
-//                System.out.println("Successfully synced " + payloads.size() + " records");
-//            } else {
-//                System.err.println("Failed to sync data. Status code: " + response.getStatusCode());
-//            }
-//        } catch (Exception e) {
-//            e.printStackTrace();
-//            log.warn("Failed to send data to API: " + e.getMessage());
-//        }
-    }
     /**
-     * Get all items without removing them
+     * Get the items that have not been flushed to the session segment yet
      */
     public List<SyncPayload> getAll() {
-        return new ArrayList<>(storage);
+        return storage.pending();
     }
 }
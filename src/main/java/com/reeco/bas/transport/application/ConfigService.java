@@ -1,11 +1,17 @@
 package com.reeco.bas.transport.application;
 
+import com.reeco.bas.transport.infrastructure.http.CircuitBreaker;
+import com.reeco.bas.transport.infrastructure.health.ComponentHealth;
+import com.reeco.bas.transport.infrastructure.health.HealthRegistry;
+import com.reeco.bas.transport.infrastructure.http.CircuitBreakerRegistry;
+import com.reeco.bas.transport.infrastructure.jfr.ConfigReloadEvent;
 import com.reeco.bas.transport.model.*;
 import com.reeco.bas.transport.utils.annotators.Service;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.codehaus.jackson.map.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.http.ResponseEntity;
@@ -13,6 +19,8 @@ import org.springframework.web.client.RestClientException;
 
 import java.io.File;
 import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Service
 @Slf4j
@@ -22,7 +30,26 @@ public class ConfigService {
     private static final int MAX_RETRIES = 5;
     private static final long RETRY_DELAY_MS = 1000;
     private static final String API_BASE_URL = "http://smartbas-data.vnemisoft.com";
-    private final RestTemplate restTemplate;
+    private static final String CONFIG_ENDPOINT = "/data-app/config/";
+    private static final int CONNECT_TIMEOUT = 300;
+    private static final int READ_TIMEOUT = 400;
+    // While the API is unreachable, repeat the failure warning once per this many attempts
+    private static final int FAILURE_LOG_EVERY = 60;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private HealthRegistry healthRegistry;
+
+    @Value("${health.config.stale-after:60000}")
+    private long staleAfterMs;
+
+    private volatile long lastFetchTime;
+    private volatile int consecutiveFailures;
+
+    private CircuitBreaker circuitBreaker;
+    private RestTemplate restTemplate;
 
     @Value("${data.organization-id}")
     private int ORGANIZATION_ID;
@@ -30,35 +57,65 @@ public class ConfigService {
     @Value("${data.berth-id}")
     private int BERTH_ID;
 
-    public ConfigService() {
-            // Configure timeout settings
-        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
-        requestFactory.setConnectTimeout(300); // 0.5 seconds timeout for connection
-        requestFactory.setReadTimeout(400);    // 0.5 seconds timeout for reading
-        this.restTemplate = new RestTemplate(requestFactory);
-
+    @PostConstruct
+    public void createRestTemplate() {
+        circuitBreaker = circuitBreakerRegistry.breaker(CONFIG_ENDPOINT, READ_TIMEOUT);
+        restTemplate = circuitBreakerRegistry.restTemplate(circuitBreaker, CONNECT_TIMEOUT);
+        healthRegistry.register("config", this::checkHealth);
     }
 
     @Scheduled(fixedDelayString = "${config.fetch.interval:1000}") // Default 60 seconds
     public void fetchAndUpdateConfig() {
+        ConfigReloadEvent reloadEvent = new ConfigReloadEvent();
+        reloadEvent.begin();
+        reloadEvent.statusCode = -1;
         try {
-            String url = API_BASE_URL + "/data-app/config/"+ "E052JI";
-            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+            String url = API_BASE_URL + CONFIG_ENDPOINT + "E052JI";
+            ResponseEntity<String> response = circuitBreaker.execute(() -> restTemplate.getForEntity(url, String.class));
+            reloadEvent.statusCode = response.getStatusCode().value();
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 // Parse the response to ConfigModel
                 ConfigModel newConfig = objectMapper.readValue(response.getBody(), ConfigModel.class);
                 // Save the new configuration
                 saveConfig(newConfig);
+                reloadEvent.saved = true;
+                lastFetchTime = System.currentTimeMillis();
+                if (consecutiveFailures > 0) {
+                    log.info("Configuration API reachable again after {} failed attempts", consecutiveFailures);
+                    consecutiveFailures = 0;
+                }
                 log.info("[HEARTBEAT] Successfully updated.");
             }  else {
                 log.error("Failed to fetch configuration. Status: {}", response.getStatusCode());
             }
         } catch (RestClientException e) {
-            ;
+            reloadEvent.failure = e.getMessage();
+            consecutiveFailures++;
+            if (consecutiveFailures % FAILURE_LOG_EVERY == 1) {
+                log.warn("Failed to fetch configuration ({} attempts in a row), using the saved config: {}",
+                        consecutiveFailures, e.getMessage());
+            }
         } catch (Exception e) {
+            reloadEvent.failure = e.getMessage();
             log.error("Error processing configuration update: {}", e.getMessage());
+        } finally {
+            reloadEvent.commit();
+        }
+    }
+
+    private ComponentHealth checkHealth() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        long last = lastFetchTime;
+        details.put("last_fetch_age_ms", last == 0 ? null : System.currentTimeMillis() - last);
+        details.put("consecutive_failures", consecutiveFailures);
+        if (!new File(CONFIG_FILE).exists()) {
+            return ComponentHealth.down("No saved configuration", details);
+        }
+        if (last == 0 || System.currentTimeMillis() - last > staleAfterMs) {
+            return ComponentHealth.degraded("Configuration not refreshed for more than " + staleAfterMs + " ms", details);
         }
+        return ComponentHealth.up(details);
     }
 
     public ConfigModel loadConfig() {
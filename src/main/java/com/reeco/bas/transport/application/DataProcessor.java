@@ -1,12 +1,13 @@
 package com.reeco.bas.transport.application;
 
+import com.reeco.bas.transport.infrastructure.jfr.RuleEvaluationEvent;
 import com.reeco.bas.transport.model.*;
 import com.reeco.bas.transport.utils.annotators.Service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.time.ZonedDateTime;
+import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -41,7 +42,7 @@ public class DataProcessor {
     public CombinedData createCombinedData(double angle, String leftZone, String rightZone,
                                            double leftDistance, double rightDistance,
                                            double leftSpeed, double rightSpeed,
-                                           ConfigModel config) {
+                                           ConfigModel config, long captureTimeMillis) {
         return CombinedData.builder()
                 .orgid(52)
                 .berth_id(1)
@@ -49,7 +50,7 @@ public class DataProcessor {
                 .angle(buildAngleData(angle, leftZone, config))
                 .distance(buildSensorMetrics(leftZone, rightZone, leftDistance, rightDistance, ParameterType.DISTANCE, config))
                 .speed(buildSensorMetrics(leftZone, rightZone, leftSpeed, rightSpeed, ParameterType.SPEED, config))
-                .event_time(getCurrentFormattedTime())
+                .event_time(formatEventTime(captureTimeMillis))
                 .build();
     }
 
@@ -82,8 +83,12 @@ public class DataProcessor {
                 .build();
     }
 
-    private String getCurrentFormattedTime() {
-        return ZonedDateTime.now(ZoneOffset.UTC)
+    /**
+     * Format the serial capture time, not the build time, so {@code event_time} reflects when the sample was taken.
+     */
+    private String formatEventTime(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis)
+                .atZone(ZoneOffset.UTC)
                 .plusHours(7)
                 .format(DATE_FORMATTER);
     }
@@ -92,6 +97,10 @@ public class DataProcessor {
         return ZONE_MAPPING.getOrDefault(zoneStr, 1);
     }
 
+    /**
+     * @return the sample to store, or null if {@code combinedData} cannot be mapped. Sides and
+     * angle missing after a sensor timeout are left at zero with zone 0.
+     */
     public SyncPayload mappingCombinedDataToSyncPayload(CombinedData combinedData) {
         try {
             SyncPayload syncPayload = new SyncPayload();
@@ -100,31 +109,39 @@ public class DataProcessor {
             syncPayload.setTime(combinedData.getEvent_time());
             syncPayload.setOrgId(combinedData.getOrgid());
 
-            // Set zones
-            syncPayload.setAngleZone(combinedData.getAngle().getZone());
-            syncPayload.setLSpeedZone(combinedData.getSpeed().getSs01().getZone());
-            syncPayload.setLDistanceZone(combinedData.getDistance().getSs01().getZone());
-            syncPayload.setRDistanceZone(combinedData.getDistance().getSs02().getZone());
-            syncPayload.setRSpeedZone(combinedData.getSpeed().getSs02().getZone());
-
-            // Set values
-            syncPayload.setLeftSpeed(combinedData.getSpeed().getSs01().getValue());
-            syncPayload.setRightSpeed(combinedData.getSpeed().getSs02().getValue());
-            syncPayload.setLeftDistance(combinedData.getDistance().getSs01().getValue());
-            syncPayload.setRightDistance(combinedData.getDistance().getSs02().getValue());
-            syncPayload.setAngle(combinedData.getAngle().getValue());
-
-            // Set status and alarms
-            int leftStatus = combinedData.getDistance().getSs01().getStatus_id();
-            int rightStatus = combinedData.getDistance().getSs02().getStatus_id();
-
-            syncPayload.setLeftStatus(leftStatus);
-            syncPayload.setRightStatus(rightStatus);
-            syncPayload.setRDistanceAlarm(rightStatus);
-            syncPayload.setRSpeedAlarm(combinedData.getSpeed().getSs02().getStatus_id());
-            syncPayload.setLDistanceAlarm(leftStatus);
-            syncPayload.setLSpeedAlarm(combinedData.getSpeed().getSs01().getStatus_id());
-            syncPayload.setAngleAlarm(combinedData.getAngle().getStatus_id());
+            CombinedData.AngleData angle = combinedData.getAngle();
+            if (angle != null) {
+                syncPayload.setAngleZone(angle.getZone());
+                syncPayload.setAngle(angle.getValue());
+                syncPayload.setAngleAlarm(angle.getStatus_id());
+            }
+
+            CombinedData.SensorData leftDistance = side(combinedData.getDistance(), true);
+            if (leftDistance != null) {
+                syncPayload.setLDistanceZone(leftDistance.getZone());
+                syncPayload.setLeftDistance(leftDistance.getValue());
+                syncPayload.setLeftStatus(leftDistance.getStatus_id());
+                syncPayload.setLDistanceAlarm(leftDistance.getStatus_id());
+            }
+            CombinedData.SensorData rightDistance = side(combinedData.getDistance(), false);
+            if (rightDistance != null) {
+                syncPayload.setRDistanceZone(rightDistance.getZone());
+                syncPayload.setRightDistance(rightDistance.getValue());
+                syncPayload.setRightStatus(rightDistance.getStatus_id());
+                syncPayload.setRDistanceAlarm(rightDistance.getStatus_id());
+            }
+            CombinedData.SensorData leftSpeed = side(combinedData.getSpeed(), true);
+            if (leftSpeed != null) {
+                syncPayload.setLSpeedZone(leftSpeed.getZone());
+                syncPayload.setLeftSpeed(leftSpeed.getValue());
+                syncPayload.setLSpeedAlarm(leftSpeed.getStatus_id());
+            }
+            CombinedData.SensorData rightSpeed = side(combinedData.getSpeed(), false);
+            if (rightSpeed != null) {
+                syncPayload.setRSpeedZone(rightSpeed.getZone());
+                syncPayload.setRightSpeed(rightSpeed.getValue());
+                syncPayload.setRSpeedAlarm(rightSpeed.getStatus_id());
+            }
 
             // Set timestamps
             String eventTime = combinedData.getEvent_time();
@@ -135,12 +152,35 @@ public class DataProcessor {
             return syncPayload;
         } catch (Exception e) {
             log.warn("Error mapping combined data to sync payload", e);
-            return new SyncPayload();
+            return null;
         }
     }
 
+    private static CombinedData.SensorData side(CombinedData.SensorMetrics metrics, boolean left) {
+        if (metrics == null) {
+            return null;
+        }
+        return left ? metrics.getSs01() : metrics.getSs02();
+    }
+
     private Integer getStatusId(String zone, double value, SensorType sensorType,
                                 ParameterType parameterType, ConfigModel config) {
+        RuleEvaluationEvent ruleEvent = new RuleEvaluationEvent();
+        ruleEvent.begin();
+        Integer statusId = evaluateStatusId(zone, value, sensorType, parameterType, config);
+        if (ruleEvent.shouldCommit()) {
+            ruleEvent.parameter = parameterType.name();
+            ruleEvent.sensor = sensorType.name();
+            ruleEvent.zone = zone;
+            ruleEvent.value = value;
+            ruleEvent.statusId = statusId != null ? statusId : 0;
+            ruleEvent.commit();
+        }
+        return statusId;
+    }
+
+    private Integer evaluateStatusId(String zone, double value, SensorType sensorType,
+                                     ParameterType parameterType, ConfigModel config) {
         try {
             AlarmConfig alarmConfig = Optional.ofNullable(config.getAlarm())
                     .orElse(new AlarmConfig());
@@ -1,8 +1,12 @@
 package com.reeco.bas.transport.application;
 
 import com.reeco.bas.transport.infrastructure.KafkaMessageProducer;
+import com.reeco.bas.transport.infrastructure.jfr.FusionEvent;
+import com.reeco.bas.transport.infrastructure.metrics.PipelineMetrics;
+import com.reeco.bas.transport.infrastructure.server.LiveStreamHub;
 import com.reeco.bas.transport.model.*;
 import com.reeco.bas.transport.utils.annotators.Service;
+import com.reeco.bas.transport.utils.logging.TelemetryLog;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -21,6 +25,7 @@ public class DataService {
     private long leftSensorTimestamp = System.currentTimeMillis();
     private long rightSensorTimestamp = System.currentTimeMillis();
     private static final long SENSOR_TIMEOUT_MS = 10000;
+    private volatile CombinedData lastCombinedData;
 
     @Autowired
     private DataProcessor dataProcessor;
@@ -37,15 +42,43 @@ public class DataService {
     @Autowired
     private VesselStateMachine vesselStateMachine;
 
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private LiveStreamHub liveStreamHub;
+
+    @Autowired
+    private SensorQualityMonitor sensorQualityMonitor;
+
     public void processData(DataModel dataModel) {
+        processData(dataModel, CaptureStamp.now());
+    }
+
+    /**
+     * Pair the sample with the other sensor's latest one. A fused record takes its
+     * {@code event_time} from the capture of the sample that completed the pair.
+     */
+    public void processData(DataModel dataModel, CaptureStamp capture) {
+        long fusionStart = System.nanoTime();
+        FusionEvent fusionEvent = new FusionEvent();
+        fusionEvent.begin();
+        CombinedData fused = null;
         ConfigModel config = configService.loadConfig();
         long currentTime = System.currentTimeMillis();
 
         if (dataModel.getSensorsType() == SensorsType.LEFT) {
+            if (leftSensorData != null) {
+                // The previous left sample never met a right one
+                sensorQualityMonitor.lostToPairing(SensorsType.LEFT);
+            }
             leftSensorData = dataModel;
             leftSensorTimestamp = currentTime;
             isLeftTimeout = false;
         } else if (dataModel.getSensorsType() == SensorsType.RIGHT) {
+            if (rightSensorData != null) {
+                sensorQualityMonitor.lostToPairing(SensorsType.RIGHT);
+            }
             rightSensorData = dataModel;
             rightSensorTimestamp = currentTime;
             isRightTimeout = false;
@@ -55,7 +88,7 @@ public class DataService {
             if (shouldProcessData(currentTime) && config.getBerthId() == 1) {
                 // Handle timeout cases by copying data
                 handleSensorTimeout(currentTime);
-                processAndSendCombinedData(config);
+                fused = processAndSendCombinedData(config, capture);
 
                 // Update vessel state machine with latest sensor data
                 updateVesselStateMachine();
@@ -66,11 +99,27 @@ public class DataService {
                 leftSensorData = null;
                 rightSensorData = null;
             }
+            pipelineMetrics.record(PipelineMetrics.Stage.FUSION, fusionStart);
+            if (fusionEvent.shouldCommit()) {
+                fusionEvent.sensor = String.valueOf(dataModel.getSensorsType());
+                fusionEvent.fused = fused != null;
+                fusionEvent.errorCode = fused != null ? fused.getError_code() : 0;
+                fusionEvent.leftTimeout = isLeftTimeout;
+                fusionEvent.rightTimeout = isRightTimeout;
+                fusionEvent.commit();
+            }
         }
 
         log.debug("Sensor timestamp difference: {}", rightSensorTimestamp - currentTime);
     }
 
+    /**
+     * @return the latest fused record, or null before the first one
+     */
+    public CombinedData getLastCombinedData() {
+        return lastCombinedData;
+    }
+
     private void updateVesselStateMachine() {
         if (leftSensorData == null || rightSensorData == null) {
             return;
@@ -135,9 +184,13 @@ public class DataService {
         return (currentTime - timestamp) <= SENSOR_TIMEOUT_MS;
     }
 
-    private void processAndSendCombinedData(ConfigModel config) {
+    /**
+     * @return the fused record that was sent, or null when the session was stopped instead
+     */
+    private CombinedData processAndSendCombinedData(ConfigModel config, CaptureStamp capture) {
         if ("stop".equals(config.getMode())) {
             cacheStorageService.exportAndClear(config.getOrgId(), config.getBerthId(), config.getSessionId());
+            return null;
         }
         else {
             double leftSpeed = leftSensorData.getSpeed() * 100;
@@ -163,8 +216,10 @@ public class DataService {
             String leftZone = dataProcessor.getZone(leftDistanceToFender, config);
             String rightZone = dataProcessor.getZone(rightDistanceToFender, config);
 
+            long combineStart = System.nanoTime();
             CombinedData combinedData = dataProcessor.createCombinedData(angle, leftZone, rightZone,
-                    leftDistanceToFender, rightDistanceToFender, leftSpeed, rightSpeed, config);
+                    leftDistanceToFender, rightDistanceToFender, leftSpeed, rightSpeed, config, capture.epochMillis());
+            pipelineMetrics.record(PipelineMetrics.Stage.COMBINE, combineStart);
 
             ErrorCodePair errorPair = mergeErrorCode(
                     leftSensorData.getError_code(),
@@ -176,14 +231,19 @@ public class DataService {
             if (isLeftTimeout) {
                 combinedData = deleteSSData(combinedData, true, false);
                 combinedData.setError_code(1031);
+                pipelineMetrics.sensorTimedOut(SensorsType.LEFT);
             }
             if (isRightTimeout) {
                 combinedData = deleteSSData(combinedData, false, true);
                 combinedData.setError_code(1032);
+                pipelineMetrics.sensorTimedOut(SensorsType.RIGHT);
             }
+            pipelineMetrics.recordLatency(PipelineMetrics.Hop.FUSE, capture);
 
-            messageService.sendProcessedDataRecord(combinedData);
-            log.info("[PROCESSED DATA]: {}", combinedData);
+            lastCombinedData = combinedData;
+            liveStreamHub.publishCombined(combinedData);
+            messageService.sendProcessedDataRecord(combinedData, capture);
+            TelemetryLog.PROCESSED.info("[PROCESSED DATA]: {}", combinedData);
 
             try {
                 SyncPayload syncPayload = dataProcessor.mappingCombinedDataToSyncPayload(combinedData);
@@ -191,6 +251,7 @@ public class DataService {
             } catch (Exception e) {
                 log.error("Failed to process and cache sync payload. combinedData: {}", combinedData, e);
             }
+            return combinedData;
         }
     }
 
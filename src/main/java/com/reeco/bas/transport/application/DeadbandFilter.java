@@ -0,0 +1,155 @@
+package com.reeco.bas.transport.application;
+
+import com.reeco.bas.transport.model.CombinedData;
+import com.reeco.bas.transport.model.DataModel;
+import com.reeco.bas.transport.model.SensorsType;
+import com.reeco.bas.transport.utils.annotators.Service;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.Arrays;
+
+/**
+ * Change-only emission. A record is sent when any signal moves beyond its deadband, when a
+ * discrete field (error code, status, zone, presence) changes, or when the stream has been
+ * silent for longer than the max-silence interval. Every emitted record is complete, so the
+ * server reconstructs the signal by holding the last received value.
+ */
+@Service
+public class DeadbandFilter {
+    private static final int FUSED_SLOTS = 5;
+
+    @Value("${telemetry.deadband.enabled:true}")
+    private boolean enabled;
+
+    @Value("${telemetry.deadband.max-silence:10000}")
+    private long maxSilenceMs;
+
+    @Value("${telemetry.deadband.raw.distance:0.01}")
+    private double rawDistanceDeadband;
+
+    @Value("${telemetry.deadband.raw.speed:0.005}")
+    private double rawSpeedDeadband;
+
+    @Value("${telemetry.deadband.angle:0.1}")
+    private double angleDeadband;
+
+    @Value("${telemetry.deadband.distance:0.01}")
+    private double distanceDeadband;
+
+    @Value("${telemetry.deadband.speed:0.5}")
+    private double speedDeadband;
+
+    private SignalSet[] rawSignals;
+    private SignalSet fusedSignals;
+
+    @PostConstruct
+    public void init() {
+        rawSignals = new SignalSet[SensorsType.values().length];
+        for (int i = 0; i < rawSignals.length; i++) {
+            rawSignals[i] = new SignalSet(new double[]{rawDistanceDeadband, rawSpeedDeadband}, 1);
+        }
+        fusedSignals = new SignalSet(new double[]{angleDeadband, distanceDeadband, distanceDeadband, speedDeadband, speedDeadband},
+                2 + 2 * FUSED_SLOTS);
+    }
+
+    public synchronized boolean shouldEmitRaw(DataModel record, long nowMs) {
+        if (!enabled) {
+            return true;
+        }
+        SignalSet signals = rawSignals[record.getSensorsType().ordinal()];
+        signals.pendingValues[0] = valueOf(record.getDistance());
+        signals.pendingValues[1] = valueOf(record.getSpeed());
+        signals.pendingDiscrete[0] = record.getError_code();
+        return signals.shouldEmit(nowMs, maxSilenceMs);
+    }
+
+    public synchronized boolean shouldEmitProcessed(CombinedData record, long nowMs) {
+        if (!enabled) {
+            return true;
+        }
+        SignalSet signals = fusedSignals;
+        int presence = 0;
+        CombinedData.AngleData angle = record.getAngle();
+        if (angle != null) {
+            presence |= 1;
+            setSlot(signals, 0, angle.getValue(), angle.getStatus_id(), angle.getZone());
+        } else {
+            clearSlot(signals, 0);
+        }
+        presence |= setSlot(signals, 1, record.getDistance() == null ? null : record.getDistance().getSs01());
+        presence |= setSlot(signals, 2, record.getDistance() == null ? null : record.getDistance().getSs02());
+        presence |= setSlot(signals, 3, record.getSpeed() == null ? null : record.getSpeed().getSs01());
+        presence |= setSlot(signals, 4, record.getSpeed() == null ? null : record.getSpeed().getSs02());
+        signals.pendingDiscrete[0] = record.getError_code();
+        signals.pendingDiscrete[1] = presence;
+        return signals.shouldEmit(nowMs, maxSilenceMs);
+    }
+
+    private static int setSlot(SignalSet signals, int slot, CombinedData.SensorData data) {
+        if (data == null) {
+            clearSlot(signals, slot);
+            return 0;
+        }
+        setSlot(signals, slot, data.getValue(), data.getStatus_id(), data.getZone());
+        return 1 << slot;
+    }
+
+    private static void setSlot(SignalSet signals, int slot, double value, int statusId, int zone) {
+        signals.pendingValues[slot] = value;
+        signals.pendingDiscrete[2 + 2 * slot] = statusId;
+        signals.pendingDiscrete[3 + 2 * slot] = zone;
+    }
+
+    private static void clearSlot(SignalSet signals, int slot) {
+        signals.pendingValues[slot] = Double.NaN;
+        signals.pendingDiscrete[2 + 2 * slot] = 0;
+        signals.pendingDiscrete[3 + 2 * slot] = 0;
+    }
+
+    private static double valueOf(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+
+    /**
+     * Last emitted and candidate values of one stream. Kept as primitive arrays so the
+     * per-sample check does not allocate.
+     */
+    static class SignalSet {
+        final double[] thresholds;
+        final double[] lastValues;
+        final double[] pendingValues;
+        final int[] lastDiscrete;
+        final int[] pendingDiscrete;
+        long lastEmitMs;
+        boolean primed = false;
+
+        SignalSet(double[] thresholds, int discreteCount) {
+            this.thresholds = thresholds;
+            this.lastValues = new double[thresholds.length];
+            this.pendingValues = new double[thresholds.length];
+            this.lastDiscrete = new int[discreteCount];
+            this.pendingDiscrete = new int[discreteCount];
+        }
+
+        boolean shouldEmit(long nowMs, long maxSilenceMs) {
+            boolean emit = !primed
+                    || nowMs - lastEmitMs >= maxSilenceMs
+                    || !Arrays.equals(pendingDiscrete, lastDiscrete);
+            for (int i = 0; i < thresholds.length && !emit; i++) {
+                double pending = pendingValues[i];
+                double last = lastValues[i];
+                if (Double.isNaN(pending) != Double.isNaN(last) || Math.abs(pending - last) > thresholds[i]) {
+                    emit = true;
+                }
+            }
+            if (emit) {
+                System.arraycopy(pendingValues, 0, lastValues, 0, pendingValues.length);
+                System.arraycopy(pendingDiscrete, 0, lastDiscrete, 0, pendingDiscrete.length);
+                lastEmitMs = nowMs;
+                primed = true;
+            }
+            return emit;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.reeco.bas.transport.application;
+
+import com.reeco.bas.transport.model.VesselState;
+
+/**
+ * How much telemetry is streamed upstream in each vessel state.
+ */
+public enum EmissionPolicy {
+    FULL_RATE,      // every sample
+    DOWNSAMPLED,    // one aggregated record per interval
+    HEARTBEAT;      // latest sample once per heartbeat interval
+
+    public static EmissionPolicy forState(VesselState state) {
+        return switch (state) {
+            case BERTHING, DEPARTING -> FULL_RATE;
+            case MOORING -> DOWNSAMPLED;
+            case AVAILABLE -> HEARTBEAT;
+        };
+    }
+}
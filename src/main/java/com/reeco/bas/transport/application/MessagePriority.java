@@ -0,0 +1,44 @@
+package com.reeco.bas.transport.application;
+
+import com.reeco.bas.transport.model.CombinedData;
+import com.reeco.bas.transport.model.DataModel;
+
+/**
+ * Outbound lane selection. Alarms and sensor error conditions go to the low-latency
+ * critical lane, routine samples to the batched bulk lane.
+ */
+public enum MessagePriority {
+    CRITICAL,
+    BULK;
+
+    private static final int NORMAL_STATUS_ID = 1;
+    private static final int MIN_ALARM_ERROR_CODE = 1011;
+    private static final int MAX_ALARM_ERROR_CODE = 1032;
+
+    public static MessagePriority of(DataModel message) {
+        return isAlarmErrorCode(message.getError_code()) ? CRITICAL : BULK;
+    }
+
+    public static MessagePriority of(CombinedData message) {
+        return isAlarmErrorCode(message.getError_code()) || hasEscalatedStatus(message) ? CRITICAL : BULK;
+    }
+
+    public static boolean isAlarmErrorCode(int errorCode) {
+        return errorCode >= MIN_ALARM_ERROR_CODE && errorCode <= MAX_ALARM_ERROR_CODE;
+    }
+
+    public static boolean hasEscalatedStatus(CombinedData message) {
+        if (message.getAngle() != null && message.getAngle().getStatus_id() > NORMAL_STATUS_ID) {
+            return true;
+        }
+        return isEscalated(message.getDistance()) || isEscalated(message.getSpeed());
+    }
+
+    private static boolean isEscalated(CombinedData.SensorMetrics metrics) {
+        if (metrics == null) {
+            return false;
+        }
+        return (metrics.getSs01() != null && metrics.getSs01().getStatus_id() > NORMAL_STATUS_ID)
+                || (metrics.getSs02() != null && metrics.getSs02().getStatus_id() > NORMAL_STATUS_ID);
+    }
+}
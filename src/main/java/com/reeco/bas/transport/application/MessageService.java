@@ -1,9 +1,24 @@
 package com.reeco.bas.transport.application;
 
+import com.reeco.bas.transport.infrastructure.codec.CombinedDataCodec;
+import com.reeco.bas.transport.infrastructure.codec.WireFormat;
+import com.reeco.bas.transport.infrastructure.health.ComponentHealth;
+import com.reeco.bas.transport.infrastructure.health.HealthRegistry;
+import com.reeco.bas.transport.infrastructure.http.CircuitBreaker;
+import com.reeco.bas.transport.infrastructure.http.CircuitBreakerOpenException;
+import com.reeco.bas.transport.infrastructure.http.CircuitBreakerRegistry;
+import com.reeco.bas.transport.infrastructure.jfr.OutboundSendEvent;
+import com.reeco.bas.transport.infrastructure.metrics.PipelineMetrics;
+import com.reeco.bas.transport.infrastructure.outbound.OutboundLane;
+import com.reeco.bas.transport.model.CaptureStamp;
 import com.reeco.bas.transport.model.CombinedData;
 import com.reeco.bas.transport.model.DataModel;
 import com.reeco.bas.transport.utils.annotators.Infrastructure;
 import com.reeco.bas.transport.utils.annotators.Service;
+import com.reeco.bas.transport.utils.logging.TelemetryLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,10 +27,16 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.client.RestTemplate;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
@@ -24,9 +45,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public class MessageService {
     private static final String BASE_URL = "http://smartbas-data.vnemisoft.com";
     private static final String SEND_MESSAGE_ENDPOINT = "/data-app/sensor-data";
+    /** Not served by the data API yet, see {@code gateway.lane.bulk.batch-endpoint.enabled}. */
+    private static final String SEND_BATCH_ENDPOINT = "/data-app/sensor-data/batch";
     private static final String DATA_APP_CODE = "E052JI";
     private static final int CONNECT_TIMEOUT = 300;
     private static final int READ_TIMEOUT = 400;
+    private static final int BULK_READ_TIMEOUT = 2000;
+    private static final String WIRE_FORMAT_HEADER = "X-Wire-Format";
+    private static final String TOPIC_HEADER = "X-Topic";
+    private static final String CODE_HEADER = "X-Data-App-Code";
+    private static final double BACKLOG_DEGRADED_RATIO = 0.8;
 
     @Value("${gateway.topic.raw-data}")
     private String RAW_DATA_TOPIC_NAME;
@@ -34,48 +62,355 @@ public class MessageService {
     @Value("${gateway.topic.processed-data}")
     private String PROCESSED_DATA_TOPIC_NAME;
 
-    private final RestTemplate restTemplate;
+    @Value("${gateway.lane.critical.capacity:1024}")
+    private int criticalLaneCapacity;
+
+    @Value("${gateway.lane.bulk.capacity:5000}")
+    private int bulkLaneCapacity;
+
+    @Value("${gateway.lane.bulk.batch-size:50}")
+    private int bulkBatchSize;
+
+    @Value("${gateway.lane.bulk.batch-endpoint.enabled:false}")
+    private boolean batchEndpointEnabled;
+
+    @Value("${gateway.wire-format:JSON}")
+    private WireFormat wireFormat;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private TelemetryRateController telemetryRateController;
+
+    @Autowired
+    private DeadbandFilter deadbandFilter;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private HealthRegistry healthRegistry;
+
+    private CircuitBreaker criticalCircuitBreaker;
+    private CircuitBreaker bulkCircuitBreaker;
+    private RestTemplate criticalRestTemplate;
+    private RestTemplate bulkRestTemplate;
+    private OutboundLane<OutboundMessage> criticalLane;
+    private OutboundLane<OutboundMessage> bulkLane;
     private final ObjectMapper objectMapper;
 
     public MessageService() {
         this.objectMapper = new ObjectMapper();
-        this.restTemplate = createRestTemplateWithTimeouts();
     }
 
-    private RestTemplate createRestTemplateWithTimeouts() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(CONNECT_TIMEOUT);
-        factory.setReadTimeout(READ_TIMEOUT);
-        return new RestTemplate(factory);
+    @PostConstruct
+    public void createOutboundLanes() {
+        criticalCircuitBreaker = circuitBreakerRegistry.breaker(SEND_MESSAGE_ENDPOINT, READ_TIMEOUT);
+        criticalRestTemplate = circuitBreakerRegistry.restTemplate(criticalCircuitBreaker, CONNECT_TIMEOUT);
+        // The bulk lane gets its own breaker even when it posts to the per-message endpoint,
+        // so routine telemetry cannot open the circuit the alarms go through
+        bulkCircuitBreaker = batchEndpointEnabled
+                ? circuitBreakerRegistry.breaker(SEND_BATCH_ENDPOINT, BULK_READ_TIMEOUT)
+                : circuitBreakerRegistry.breaker(SEND_MESSAGE_ENDPOINT + "#bulk", BULK_READ_TIMEOUT);
+        bulkRestTemplate = circuitBreakerRegistry.restTemplate(bulkCircuitBreaker, CONNECT_TIMEOUT);
+        if (!batchEndpointEnabled && wireFormat == WireFormat.BINARY) {
+            log.warn("gateway.wire-format=BINARY needs the batch endpoint, sending bulk records as JSON");
+        }
+
+        // The critical lane never batches: every alarm is posted as soon as it is dequeued
+        criticalLane = new OutboundLane<>("critical", criticalLaneCapacity, 1, this::sendCritical);
+        bulkLane = new OutboundLane<>("bulk", bulkLaneCapacity, bulkBatchSize, this::sendBulk);
+        criticalLane.start();
+        bulkLane.start();
+        pipelineMetrics.registerLane(criticalLane);
+        pipelineMetrics.registerLane(bulkLane);
+        healthRegistry.register("outbound", this::checkHealth);
+    }
+
+    /**
+     * Degraded while a lane is more than {@link #BACKLOG_DEGRADED_RATIO} full or a data API
+     * circuit is open, since records are then being delayed or dropped.
+     */
+    private ComponentHealth checkHealth() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("critical_backlog", criticalLane.getDepth());
+        details.put("bulk_backlog", bulkLane.getDepth());
+        details.put("critical_dropped", criticalLane.getDropped());
+        details.put("bulk_dropped", bulkLane.getDropped());
+        details.put("critical_circuit", criticalCircuitBreaker.getState());
+        details.put("bulk_circuit", bulkCircuitBreaker.getState());
+
+        if (criticalCircuitBreaker.getState() == CircuitBreaker.State.OPEN
+                || bulkCircuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+            return ComponentHealth.degraded("Data API circuit is open", details);
+        }
+        if (criticalLane.getDepth() > criticalLaneCapacity * BACKLOG_DEGRADED_RATIO
+                || bulkLane.getDepth() > bulkLaneCapacity * BACKLOG_DEGRADED_RATIO) {
+            return ComponentHealth.degraded("Outbound backlog above " + (int) (BACKLOG_DEGRADED_RATIO * 100) + "%", details);
+        }
+        return ComponentHealth.up(details);
+    }
+
+    @PreDestroy
+    public void stopOutboundLanes() {
+        criticalLane.stop();
+        bulkLane.stop();
     }
 
     public void sendDataRecord(DataModel message) {
-        log.info("Sending data record to topic: {}", RAW_DATA_TOPIC_NAME);
-        sendMessage(RAW_DATA_TOPIC_NAME, message);
+        long now = System.currentTimeMillis();
+        if (!telemetryRateController.admitRaw(message, now) || !deadbandFilter.shouldEmitRaw(message, now)) {
+            return;
+        }
+        telemetryRateController.rawEmitted(message, now);
+        TelemetryLog.RAW.debug("Sending data record to topic: {}", RAW_DATA_TOPIC_NAME);
+        enqueue(RAW_DATA_TOPIC_NAME, message, MessagePriority.of(message), null);
     }
 
     public void sendProcessedDataRecord(CombinedData message) {
-        sendMessage(PROCESSED_DATA_TOPIC_NAME, message);
+        sendProcessedDataRecord(message, null);
+    }
+
+    /**
+     * @param capture serial capture of the sample behind the record, or null when it is unknown;
+     *                used to time the enqueue, sent and acked hops
+     */
+    public void sendProcessedDataRecord(CombinedData message, CaptureStamp capture) {
+        long now = System.currentTimeMillis();
+        CombinedData admitted = telemetryRateController.admitProcessed(message, now);
+        if (admitted == null) {
+            return;
+        }
+        // Escalated alarms bypass the deadband so they are reported at full rate
+        if (!MessagePriority.hasEscalatedStatus(admitted) && !deadbandFilter.shouldEmitProcessed(admitted, now)) {
+            return;
+        }
+        enqueue(PROCESSED_DATA_TOPIC_NAME, admitted, MessagePriority.of(admitted), capture);
+    }
+
+    public int getCriticalBacklog() {
+        return criticalLane.getDepth();
+    }
+
+    public int getBulkBacklog() {
+        return bulkLane.getDepth();
+    }
+
+    private void enqueue(String topic, Object message, MessagePriority priority, CaptureStamp capture) {
+        OutboundMessage outbound = new OutboundMessage(topic, message, capture);
+        if (priority == MessagePriority.CRITICAL) {
+            criticalLane.offer(outbound);
+        } else {
+            bulkLane.offer(outbound);
+        }
+        if (capture != null) {
+            pipelineMetrics.recordLatency(PipelineMetrics.Hop.ENQUEUE, capture);
+        }
+    }
+
+    private void recordLatency(PipelineMetrics.Hop hop, List<OutboundMessage> messages) {
+        for (OutboundMessage message : messages) {
+            if (message.getCapture() != null) {
+                pipelineMetrics.recordLatency(hop, message.getCapture());
+            }
+        }
+    }
+
+    /**
+     * Keep the critical lane's keep-alive connection and DNS entry warm so the first
+     * alarm after a quiet period does not pay for a fresh TCP handshake. The request bypasses
+     * the breaker: its failures must not open the alarm circuit and its latency must not
+     * feed the adaptive timeout.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${gateway.lane.critical.keep-warm:30000}")
+    public void warmUpCriticalConnection() {
+        if (criticalLane.getDepth() > 0) {
+            return;
+        }
+        try {
+            criticalRestTemplate.headForHeaders(BASE_URL);
+        } catch (Exception e) {
+            log.debug("Connection warm-up failed: {}", e.getMessage());
+        }
+    }
+
+    private void sendCritical(List<OutboundMessage> batch) {
+        for (OutboundMessage message : batch) {
+            sendMessage(message, criticalCircuitBreaker, criticalRestTemplate, true);
+        }
     }
 
-    private <T> void sendMessage(String topic, T message) {
+    private void sendMessage(OutboundMessage outbound, CircuitBreaker circuitBreaker, RestTemplate restTemplate,
+                             boolean critical) {
+        String topic = outbound.getTopic();
+        OutboundSendEvent sendEvent = beginSend(SEND_MESSAGE_ENDPOINT, "json", 1);
         try {
             String endpoint = BASE_URL + SEND_MESSAGE_ENDPOINT;
-            String messageJson = objectMapper.writeValueAsString(message);
+            String messageJson = objectMapper.writeValueAsString(outbound.getPayload());
             MessageRequest request = new MessageRequest(topic,DATA_APP_CODE, messageJson);
 
             HttpEntity<MessageRequest> entity = createHttpEntity(request);
-            ResponseEntity<MessageResponse> response = restTemplate.postForEntity(
+            sendEvent.bytes = messageJson.length();
+            recordLatency(PipelineMetrics.Hop.SENT, List.of(outbound));
+            long publishStart = System.nanoTime();
+            ResponseEntity<MessageResponse> response = circuitBreaker.execute(() -> restTemplate.postForEntity(
                     endpoint,
                     entity,
                     MessageResponse.class
-            );
+            ));
+            pipelineMetrics.record(PipelineMetrics.Stage.PUBLISH, publishStart);
+            sendEvent.statusCode = response.getStatusCode().value();
 
             if (!response.getStatusCode().is2xxSuccessful()) {
+                pipelineMetrics.httpFailed();
                 log.error("Failed to send message. Status: {}", response.getStatusCode());
+            } else {
+                recordLatency(PipelineMetrics.Hop.ACKED, List.of(outbound));
+            }
+        } catch (CircuitBreakerOpenException e) {
+            sendEvent.failure = e.getMessage();
+            if (critical) {
+                pipelineMetrics.alarmRejected();
+                log.warn("Dropped alarm for topic {}: {}", topic, e.getMessage());
+            } else {
+                log.debug("Dropped message for topic {}: {}", topic, e.getMessage());
             }
         } catch (Exception e) {
+            sendEvent.failure = e.getMessage();
+            pipelineMetrics.httpFailed();
             log.error("Error sending message to service: {}", e.getMessage(), e);
+        } finally {
+            sendEvent.commit();
+        }
+    }
+
+    private void sendBulk(List<OutboundMessage> batch) {
+        if (!batchEndpointEnabled) {
+            for (OutboundMessage message : batch) {
+                sendMessage(message, bulkCircuitBreaker, bulkRestTemplate, false);
+            }
+            return;
+        }
+        if (wireFormat != WireFormat.BINARY) {
+            sendJsonBatch(batch);
+            return;
+        }
+        // Only fused records have a binary schema; raw records stay on JSON
+        List<OutboundMessage> processed = new ArrayList<>(batch.size());
+        List<OutboundMessage> others = new ArrayList<>();
+        for (OutboundMessage message : batch) {
+            if (message.getPayload() instanceof CombinedData) {
+                processed.add(message);
+            } else {
+                others.add(message);
+            }
+        }
+        if (!processed.isEmpty()) {
+            sendBinaryBatch(processed);
+        }
+        if (!others.isEmpty()) {
+            sendJsonBatch(others);
+        }
+    }
+
+    private void sendBinaryBatch(List<OutboundMessage> batch) {
+        List<CombinedData> records = new ArrayList<>(batch.size());
+        for (OutboundMessage message : batch) {
+            records.add((CombinedData) message.getPayload());
+        }
+        OutboundSendEvent sendEvent = beginSend(SEND_BATCH_ENDPOINT, "binary", records.size());
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+            headers.set(WIRE_FORMAT_HEADER, CombinedDataCodec.FORMAT_NAME);
+            headers.set(TOPIC_HEADER, PROCESSED_DATA_TOPIC_NAME);
+            headers.set(CODE_HEADER, DATA_APP_CODE);
+            byte[] body = CombinedDataCodec.encode(records);
+            HttpEntity<byte[]> entity = new HttpEntity<>(body, headers);
+            sendEvent.bytes = body.length;
+            recordLatency(PipelineMetrics.Hop.SENT, batch);
+            long publishStart = System.nanoTime();
+            ResponseEntity<MessageResponse> response = bulkCircuitBreaker.execute(() -> bulkRestTemplate.postForEntity(
+                    BASE_URL + SEND_BATCH_ENDPOINT,
+                    entity,
+                    MessageResponse.class
+            ));
+            pipelineMetrics.record(PipelineMetrics.Stage.PUBLISH, publishStart);
+            sendEvent.statusCode = response.getStatusCode().value();
+
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                pipelineMetrics.httpFailed();
+                log.error("Failed to send binary batch of {} records. Status: {}", records.size(), response.getStatusCode());
+            } else {
+                recordLatency(PipelineMetrics.Hop.ACKED, batch);
+            }
+        } catch (CircuitBreakerOpenException e) {
+            sendEvent.failure = e.getMessage();
+            log.debug("Dropped binary batch of {} records: {}", records.size(), e.getMessage());
+        } catch (Exception e) {
+            sendEvent.failure = e.getMessage();
+            pipelineMetrics.httpFailed();
+            log.error("Error sending binary batch of {} records to service: {}", records.size(), e.getMessage());
+        } finally {
+            sendEvent.commit();
+        }
+    }
+
+    private void sendJsonBatch(List<OutboundMessage> batch) {
+        OutboundSendEvent sendEvent = beginSend(SEND_BATCH_ENDPOINT, "json", batch.size());
+        try {
+            List<MessageRequest> requests = new ArrayList<>(batch.size());
+            for (OutboundMessage message : batch) {
+                requests.add(new MessageRequest(message.getTopic(), DATA_APP_CODE, toJson(message.getPayload())));
+            }
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            HttpEntity<MessageBatchRequest> entity = new HttpEntity<>(new MessageBatchRequest(DATA_APP_CODE, requests), headers);
+            recordLatency(PipelineMetrics.Hop.SENT, batch);
+            long publishStart = System.nanoTime();
+            ResponseEntity<MessageResponse> response = bulkCircuitBreaker.execute(() -> bulkRestTemplate.postForEntity(
+                    BASE_URL + SEND_BATCH_ENDPOINT,
+                    entity,
+                    MessageResponse.class
+            ));
+            pipelineMetrics.record(PipelineMetrics.Stage.PUBLISH, publishStart);
+            sendEvent.statusCode = response.getStatusCode().value();
+
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                pipelineMetrics.httpFailed();
+                log.error("Failed to send batch of {} messages. Status: {}", batch.size(), response.getStatusCode());
+            } else {
+                recordLatency(PipelineMetrics.Hop.ACKED, batch);
+            }
+        } catch (CircuitBreakerOpenException e) {
+            sendEvent.failure = e.getMessage();
+            log.debug("Dropped batch of {} messages: {}", batch.size(), e.getMessage());
+        } catch (Exception e) {
+            sendEvent.failure = e.getMessage();
+            pipelineMetrics.httpFailed();
+            log.error("Error sending batch of {} messages to service: {}", batch.size(), e.getMessage());
+        } finally {
+            sendEvent.commit();
+        }
+    }
+
+    private OutboundSendEvent beginSend(String endpoint, String format, int records) {
+        OutboundSendEvent sendEvent = new OutboundSendEvent();
+        sendEvent.begin();
+        sendEvent.endpoint = endpoint;
+        sendEvent.format = format;
+        sendEvent.records = records;
+        sendEvent.statusCode = -1;
+        return sendEvent;
+    }
+
+    private String toJson(Object message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize message", e);
         }
     }
 
@@ -94,6 +429,21 @@ class MessageRequest {
     private Object message;
 }
 
+@lombok.Data
+@lombok.AllArgsConstructor
+class MessageBatchRequest {
+    private String code;
+    private List<MessageRequest> messages;
+}
+
+@lombok.Data
+@lombok.AllArgsConstructor
+class OutboundMessage {
+    private String topic;
+    private Object payload;
+    private CaptureStamp capture;
+}
+
 @lombok.Data
 class MessageResponse {
     private String status;
@@ -106,4 +456,4 @@ class MessageDetails {
     private String topic;
     private int partition;
     private long offset;
-}
\ No newline at end of file
+}
@@ -0,0 +1,237 @@
+package com.reeco.bas.transport.application;
+
+import com.reeco.bas.transport.application.storage.SegmentCompactor;
+import com.reeco.bas.transport.application.storage.SessionArchive;
+import com.reeco.bas.transport.application.storage.SessionCatalog;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the export directory within its disk budget. Segments are kept at full resolution
+ * for {@code storage.retention.raw-days}; after that they are compacted into a downsampled
+ * rollup plus a gzip copy in the cold directory. When the directory still exceeds its
+ * budget, the oldest disposable data is deleted, compressed copies first.
+ * <p>
+ * Data that has not been synced is never compacted or deleted while upload is enabled.
+ * Each run handles a bounded number of segments on its own thread, so it never competes
+ * with the sensor path or holds up the other scheduled jobs.
+ */
+@Service
+@Slf4j
+public class RetentionService {
+    private static final String ROLLUP_SUFFIX = ".rollup" + SessionArchive.SUFFIX;
+    private static final String GZIP_SUFFIX = ".gz";
+
+    @Value("${storage.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${storage.retention.raw-days:7}")
+    private int rawDays;
+
+    @Value("${storage.retention.rollup-interval:10000}")
+    private long rollupIntervalMs;
+
+    @Value("${storage.retention.disk-budget-mb:2048}")
+    private long diskBudgetMb;
+
+    @Value("${storage.retention.max-segments-per-run:4}")
+    private int maxSegmentsPerRun;
+
+    @Autowired
+    private CacheStorageService cacheStorageService;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "retention");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(initialDelayString = "${storage.retention.interval:600000}", fixedDelayString = "${storage.retention.interval:600000}")
+    public void enforce() {
+        if (!enabled) {
+            return;
+        }
+        // Compaction reads and gzips whole segments, so it must not hold the shared scheduler thread
+        if (!running.compareAndSet(false, true)) {
+            log.debug("Previous retention run still in progress, skipping");
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                enforceRetention();
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void enforceRetention() {
+        try {
+            Files.createDirectories(Paths.get(CacheStorageService.COLD_DIRECTORY));
+            compactExpiredSegments();
+            enforceDiskBudget();
+        } catch (Exception e) {
+            log.error("Error in retention scheduler: ", e);
+        }
+    }
+
+    /**
+     * Move segments past the raw retention period to the cold directory, oldest first.
+     */
+    private void compactExpiredSegments() {
+        long cutoff = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(rawDays));
+        SessionCatalog catalog = cacheStorageService.getSessionCatalog();
+        List<SessionCatalog.Entry> expired = new ArrayList<>();
+        for (SessionCatalog.Entry entry : catalog.getEntries()) {
+            if (isRaw(entry) && entry.getRowCount() > 0 && entry.getEndTime() < cutoff && isDisposable(entry.getFileName())) {
+                expired.add(entry);
+            }
+        }
+        expired.sort(Comparator.comparingLong(SessionCatalog.Entry::getEndTime));
+
+        for (SessionCatalog.Entry entry : expired.subList(0, Math.min(maxSegmentsPerRun, expired.size()))) {
+            try {
+                compact(entry);
+            } catch (IOException e) {
+                log.warn("Failed to compact segment {}: {}", entry.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    private void compact(SessionCatalog.Entry entry) throws IOException {
+        SessionCatalog catalog = cacheStorageService.getSessionCatalog();
+        Path segment = Paths.get(CacheStorageService.CSV_DIRECTORY, entry.getFileName());
+        String baseName = baseName(entry.getFileName());
+        Path rollup = Paths.get(CacheStorageService.COLD_DIRECTORY, baseName + ROLLUP_SUFFIX);
+        Path compressed = Paths.get(CacheStorageService.COLD_DIRECTORY, entry.getFileName() + GZIP_SUFFIX);
+
+        long rawBytes = Files.size(segment);
+        int rollupCount = SegmentCompactor.rollup(segment, rollup, TimeUnit.MILLISECONDS.toMicros(rollupIntervalMs));
+        SegmentCompactor.gzip(segment, compressed);
+
+        // Register the rollup before the raw file goes, so queries always find one of them
+        SessionCatalog.Entry rollupEntry = SessionCatalog.index(rollup);
+        rollupEntry.setFileName(CacheStorageService.coldName(rollup.getFileName().toString()));
+        catalog.register(rollupEntry);
+        catalog.remove(entry.getFileName());
+        Files.delete(segment);
+
+        Path summary = Paths.get(CacheStorageService.CSV_DIRECTORY, baseName + CacheStorageService.SUMMARY_SUFFIX);
+        if (Files.exists(summary)) {
+            Files.move(summary, Paths.get(CacheStorageService.COLD_DIRECTORY, summary.getFileName().toString()));
+        }
+        log.info("Compacted segment {}: {} rows rolled up into {}, {} bytes compressed to {}", entry.getFileName(),
+                entry.getRowCount(), rollupCount, rawBytes, Files.size(compressed));
+    }
+
+    /**
+     * Delete the oldest disposable files until the export directory fits its budget: compressed
+     * raw copies first, then rollups, then disposable segments still at full resolution.
+     */
+    private void enforceDiskBudget() throws IOException {
+        long budget = diskBudgetMb * 1024 * 1024;
+        long used = directorySize(Paths.get(CacheStorageService.CSV_DIRECTORY));
+        if (used <= budget) {
+            return;
+        }
+
+        // Only disposable segments are moved to the cold directory, so all of it can go
+        List<File> candidates = new ArrayList<>();
+        candidates.addAll(oldestFirst(new File(CacheStorageService.COLD_DIRECTORY).listFiles(
+                (dir, name) -> name.endsWith(GZIP_SUFFIX))));
+        candidates.addAll(oldestFirst(new File(CacheStorageService.COLD_DIRECTORY).listFiles(
+                (dir, name) -> name.endsWith(ROLLUP_SUFFIX))));
+        candidates.addAll(oldestFirst(new File(CacheStorageService.CSV_DIRECTORY).listFiles(
+                (dir, name) -> cacheStorageService.getSessionCatalog().contains(name) && isDisposable(name))));
+
+        for (File candidate : candidates) {
+            if (used <= budget) {
+                break;
+            }
+            used -= delete(candidate);
+        }
+        if (used > budget) {
+            log.warn("Export directory uses {} MB, above its {} MB budget, but holds no more disposable data to delete",
+                    used / (1024 * 1024), diskBudgetMb);
+        }
+    }
+
+    private long delete(File file) throws IOException {
+        long freed = file.length();
+        String name = file.getName();
+        SessionCatalog catalog = cacheStorageService.getSessionCatalog();
+        boolean cold = file.getParentFile().getCanonicalFile().equals(new File(CacheStorageService.COLD_DIRECTORY).getCanonicalFile());
+        catalog.remove(cold ? CacheStorageService.coldName(name) : name);
+        Files.delete(file.toPath());
+
+        // The summary goes with the last copy of the session
+        if (!name.endsWith(GZIP_SUFFIX)) {
+            Path summary = file.toPath().resolveSibling(baseName(name) + CacheStorageService.SUMMARY_SUFFIX);
+            if (Files.exists(summary)) {
+                freed += Files.size(summary);
+                Files.delete(summary);
+            }
+        }
+        log.info("Deleted {} to stay within the export disk budget", file);
+        return freed;
+    }
+
+    /**
+     * Raw segments can be compacted or deleted once synced, or at any time when upload is
+     * disabled and the gateway itself is the archive.
+     */
+    private boolean isDisposable(String segmentName) {
+        return !cacheStorageService.isUploadEnabled() || cacheStorageService.isSynced(segmentName);
+    }
+
+    private static boolean isRaw(SessionCatalog.Entry entry) {
+        return entry.getFileName().indexOf('/') < 0;
+    }
+
+    private static String baseName(String fileName) {
+        if (fileName.endsWith(ROLLUP_SUFFIX)) {
+            return fileName.substring(0, fileName.length() - ROLLUP_SUFFIX.length());
+        }
+        return fileName.substring(0, fileName.lastIndexOf('.'));
+    }
+
+    private static List<File> oldestFirst(File[] files) {
+        if (files == null) {
+            return List.of();
+        }
+        List<File> sorted = new ArrayList<>(Arrays.asList(files));
+        sorted.sort(Comparator.comparingLong(File::lastModified));
+        return sorted;
+    }
+
+    private static long directorySize(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.reeco.bas.transport.application;
+
+import com.reeco.bas.transport.application.storage.SensorQualityStats;
+import com.reeco.bas.transport.infrastructure.metrics.PipelineMetrics;
+import com.reeco.bas.transport.model.SensorsType;
+import com.reeco.bas.transport.utils.annotators.Service;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Signal quality of each sensor. Every frame is counted twice, both in O(1):
+ * <ul>
+ *   <li>in a window over the last {@code quality.window-size} frames, published as weak signal,
+ *   out-of-target and parse failure ratios and a frame rate</li>
+ *   <li>in {@link SensorQualityStats} for the session in progress, attached to the session summary</li>
+ * </ul>
+ */
+@Service
+public class SensorQualityMonitor {
+
+    @Value("${quality.window-size:256}")
+    private int windowSize;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    private final SensorQualityStats[] session = new SensorQualityStats[SensorsType.values().length];
+    private final Window[] windows = new Window[SensorsType.values().length];
+
+    @PostConstruct
+    public void init() {
+        for (SensorsType sensor : SensorsType.values()) {
+            session[sensor.ordinal()] = new SensorQualityStats();
+            Window window = new Window(windowSize);
+            windows[sensor.ordinal()] = window;
+            pipelineMetrics.registerSensorGauge("gateway.sensor.weak_signal.ratio",
+                    "Share of weak signal frames among the recent frames", sensor, window, Window::weakRatio);
+            pipelineMetrics.registerSensorGauge("gateway.sensor.out_of_target.ratio",
+                    "Share of out-of-target frames among the recent frames", sensor, window, Window::outOfTargetRatio);
+            pipelineMetrics.registerSensorGauge("gateway.sensor.parse.failure.ratio",
+                    "Share of unparseable frames among the recent frames", sensor, window, Window::parseFailureRatio);
+            pipelineMetrics.registerSensorGauge("gateway.sensor.frame.rate",
+                    "Frames per second over the recent frames", sensor, window, Window::frameRate);
+        }
+    }
+
+    public void frameParsed(SensorsType sensor, double signalStrength, boolean weak, boolean outOfTarget) {
+        long now = System.currentTimeMillis();
+        windows[sensor.ordinal()].add(now, (weak ? Window.WEAK : 0) | (outOfTarget ? Window.OUT_OF_TARGET : 0));
+        session[sensor.ordinal()].acceptFrame(now, signalStrength, weak, outOfTarget);
+        pipelineMetrics.frameQuality(sensor, signalStrength, weak, outOfTarget);
+    }
+
+    public void parseFailed(SensorsType sensor) {
+        long now = System.currentTimeMillis();
+        windows[sensor.ordinal()].add(now, Window.PARSE_FAILED);
+        session[sensor.ordinal()].parseFailed(now);
+    }
+
+    /**
+     * A frame of {@code sensor} was replaced by a newer one before it could be fused.
+     */
+    public void lostToPairing(SensorsType sensor) {
+        session[sensor.ordinal()].lostToPairing();
+        pipelineMetrics.lostToPairing(sensor);
+    }
+
+    /**
+     * @return the quality of {@code sensor} since the session started
+     */
+    public SensorQualityStats getSessionQuality(SensorsType sensor) {
+        return session[sensor.ordinal()].copy();
+    }
+
+    /**
+     * Start counting a new session.
+     */
+    public void resetSession() {
+        for (SensorQualityStats stats : session) {
+            stats.reset();
+        }
+    }
+
+    /**
+     * Ring of the last frames with running counts, so adding a frame and reading a ratio
+     * never scan the window.
+     */
+    static final class Window {
+        static final byte WEAK = 1;
+        static final byte OUT_OF_TARGET = 2;
+        static final byte PARSE_FAILED = 4;
+
+        private final long[] times;
+        private final byte[] flags;
+        private int next;
+        private int size;
+        private int weak;
+        private int outOfTarget;
+        private int parseFailed;
+
+        Window(int capacity) {
+            times = new long[capacity];
+            flags = new byte[capacity];
+        }
+
+        synchronized void add(long timeMillis, int flag) {
+            if (size == times.length) {
+                byte evicted = flags[next];
+                weak -= evicted & WEAK;
+                outOfTarget -= (evicted & OUT_OF_TARGET) >> 1;
+                parseFailed -= (evicted & PARSE_FAILED) >> 2;
+            } else {
+                size++;
+            }
+            times[next] = timeMillis;
+            flags[next] = (byte) flag;
+            weak += flag & WEAK;
+            outOfTarget += (flag & OUT_OF_TARGET) >> 1;
+            parseFailed += (flag & PARSE_FAILED) >> 2;
+            next = (next + 1) % times.length;
+        }
+
+        synchronized double weakRatio() {
+            return size == 0 ? 0 : (double) weak / size;
+        }
+
+        synchronized double outOfTargetRatio() {
+            return size == 0 ? 0 : (double) outOfTarget / size;
+        }
+
+        synchronized double parseFailureRatio() {
+            return size == 0 ? 0 : (double) parseFailed / size;
+        }
+
+        synchronized double frameRate() {
+            if (size == 0) {
+                return 0;
+            }
+            // Measured up to now, so the rate falls off when the sensor goes quiet
+            long span = System.currentTimeMillis() - times[size == times.length ? next : 0];
+            return span <= 0 ? 0 : size * 1000.0 / span;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.reeco.bas.transport.application;
+
+import com.reeco.bas.transport.model.CombinedData;
+import com.reeco.bas.transport.model.DataModel;
+import com.reeco.bas.transport.model.SensorsType;
+import com.reeco.bas.transport.utils.annotators.Service;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.Arrays;
+
+/**
+ * Decides which samples are streamed upstream based on the current {@link EmissionPolicy}.
+ * The policy is re-read from the state machine on every sample, so a transition takes
+ * effect on the very next record. Escalated alarms always pass at full rate.
+ */
+@Service
+@Slf4j
+public class TelemetryRateController {
+
+    @Value("${telemetry.mooring.aggregate-interval:10000}")
+    private long aggregateIntervalMs;
+
+    @Value("${telemetry.available.heartbeat-interval:60000}")
+    private long heartbeatIntervalMs;
+
+    @Autowired
+    private VesselStateMachine vesselStateMachine;
+
+    private EmissionPolicy currentPolicy = null;
+    private final long[] lastRawEmitTime = new long[SensorsType.values().length];
+    private final int[] lastRawErrorCode = new int[SensorsType.values().length];
+    private long lastProcessedEmitTime = 0;
+    private final CombinedDataAggregate aggregate = new CombinedDataAggregate();
+
+    /**
+     * Only checks the policy; call {@link #rawEmitted} once the record is actually sent, so a
+     * record dropped further down the pipeline does not hold back the next one.
+     *
+     * @return true if the raw record may be sent upstream
+     */
+    public synchronized boolean admitRaw(DataModel record, long nowMs) {
+        EmissionPolicy policy = refreshPolicy();
+        if (policy == EmissionPolicy.FULL_RATE) {
+            return true;
+        }
+        int sensor = record.getSensorsType().ordinal();
+        long interval = policy == EmissionPolicy.DOWNSAMPLED ? aggregateIntervalMs : heartbeatIntervalMs;
+        // A change of sensor condition is always reported immediately
+        return record.getError_code() != lastRawErrorCode[sensor] || nowMs - lastRawEmitTime[sensor] >= interval;
+    }
+
+    /**
+     * Records that a raw record admitted by {@link #admitRaw} was sent upstream.
+     */
+    public synchronized void rawEmitted(DataModel record, long nowMs) {
+        int sensor = record.getSensorsType().ordinal();
+        lastRawEmitTime[sensor] = nowMs;
+        lastRawErrorCode[sensor] = record.getError_code();
+    }
+
+    /**
+     * @return the record to send upstream (the sample itself or an aggregate), or null to suppress it
+     */
+    public synchronized CombinedData admitProcessed(CombinedData record, long nowMs) {
+        EmissionPolicy policy = refreshPolicy();
+        if (policy == EmissionPolicy.FULL_RATE || MessagePriority.hasEscalatedStatus(record)) {
+            aggregate.reset();
+            lastProcessedEmitTime = nowMs;
+            return record;
+        }
+
+        if (policy == EmissionPolicy.HEARTBEAT) {
+            if (nowMs - lastProcessedEmitTime >= heartbeatIntervalMs) {
+                lastProcessedEmitTime = nowMs;
+                return record;
+            }
+            return null;
+        }
+
+        aggregate.add(record);
+        if (nowMs - lastProcessedEmitTime >= aggregateIntervalMs) {
+            lastProcessedEmitTime = nowMs;
+            CombinedData summary = aggregate.toCombinedData();
+            aggregate.reset();
+            return summary;
+        }
+        return null;
+    }
+
+    public synchronized EmissionPolicy getCurrentPolicy() {
+        return refreshPolicy();
+    }
+
+    private EmissionPolicy refreshPolicy() {
+        EmissionPolicy policy = EmissionPolicy.forState(vesselStateMachine.getCurrentState());
+        if (policy != currentPolicy) {
+            log.info("Telemetry emission policy switched from {} to {}", currentPolicy, policy);
+            currentPolicy = policy;
+            // Emit the first sample under the new policy straight away
+            aggregate.reset();
+            lastProcessedEmitTime = 0;
+            Arrays.fill(lastRawEmitTime, 0);
+        }
+        return policy;
+    }
+
+    /**
+     * Running mean of each metric over the downsampling window. Status is the worst seen,
+     * zone the closest seen, everything else is taken from the latest sample.
+     */
+    static class CombinedDataAggregate {
+        private static final int SLOT_COUNT = 5;
+
+        private final double[] sum = new double[SLOT_COUNT];
+        private final int[] count = new int[SLOT_COUNT];
+        private final int[] maxStatus = new int[SLOT_COUNT];
+        private final int[] minZone = new int[SLOT_COUNT];
+        private CombinedData latest;
+
+        CombinedDataAggregate() {
+            reset();
+        }
+
+        void add(CombinedData record) {
+            latest = record;
+            if (record.getAngle() != null) {
+                accumulate(0, record.getAngle().getValue(), record.getAngle().getStatus_id(), record.getAngle().getZone());
+            }
+            if (record.getDistance() != null) {
+                accumulate(1, record.getDistance().getSs01());
+                accumulate(2, record.getDistance().getSs02());
+            }
+            if (record.getSpeed() != null) {
+                accumulate(3, record.getSpeed().getSs01());
+                accumulate(4, record.getSpeed().getSs02());
+            }
+        }
+
+        CombinedData toCombinedData() {
+            if (latest == null) {
+                return null;
+            }
+            return CombinedData.builder()
+                    .orgid(latest.getOrgid())
+                    .berth_id(latest.getBerth_id())
+                    .session_id(latest.getSession_id())
+                    .angle(count[0] == 0 ? null : CombinedData.AngleData.builder()
+                            .value(sum[0] / count[0])
+                            .status_id(maxStatus[0])
+                            .zone(minZone[0])
+                            .build())
+                    .distance(CombinedData.SensorMetrics.builder()
+                            .ss01(sensorData(1))
+                            .ss02(sensorData(2))
+                            .build())
+                    .speed(CombinedData.SensorMetrics.builder()
+                            .ss01(sensorData(3))
+                            .ss02(sensorData(4))
+                            .build())
+                    .event_time(latest.getEvent_time())
+                    .error_code(latest.getError_code())
+                    .error_msg(latest.getError_msg())
+                    .build();
+        }
+
+        void reset() {
+            Arrays.fill(sum, 0);
+            Arrays.fill(count, 0);
+            Arrays.fill(maxStatus, 0);
+            Arrays.fill(minZone, Integer.MAX_VALUE);
+            latest = null;
+        }
+
+        private void accumulate(int slot, CombinedData.SensorData data) {
+            if (data != null) {
+                accumulate(slot, data.getValue(), data.getStatus_id(), data.getZone());
+            }
+        }
+
+        private void accumulate(int slot, double value, int statusId, int zone) {
+            sum[slot] += value;
+            count[slot]++;
+            maxStatus[slot] = Math.max(maxStatus[slot], statusId);
+            minZone[slot] = Math.min(minZone[slot], zone);
+        }
+
+        private CombinedData.SensorData sensorData(int slot) {
+            if (count[slot] == 0) {
+                return null;
+            }
+            return CombinedData.SensorData.builder()
+                    .value(sum[slot] / count[slot])
+                    .status_id(maxStatus[slot])
+                    .zone(minZone[slot])
+                    .build();
+        }
+    }
+}
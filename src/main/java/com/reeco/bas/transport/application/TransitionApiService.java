@@ -1,14 +1,22 @@
 package com.reeco.bas.transport.application;
 
+import com.reeco.bas.transport.infrastructure.http.CircuitBreaker;
+import com.reeco.bas.transport.infrastructure.http.CircuitBreakerOpenException;
+import com.reeco.bas.transport.infrastructure.http.CircuitBreakerRegistry;
+import com.reeco.bas.transport.infrastructure.metrics.PipelineMetrics;
+import com.reeco.bas.transport.infrastructure.outbound.OutboundLane;
 import com.reeco.bas.transport.model.VesselStateTransition;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -32,13 +40,52 @@ public class TransitionApiService {
     @Value("${api.retry.delay:1000}")
     private long retryDelayMillis;
 
-    private final RestTemplate restTemplate;
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
 
-    public TransitionApiService() {
-        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
-        requestFactory.setConnectTimeout(connectTimeout);
-        requestFactory.setReadTimeout(readTimeout);
-        this.restTemplate = new RestTemplate(requestFactory);
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Value("${api.transition.lane.capacity:64}")
+    private int transitionLaneCapacity;
+
+    private CircuitBreaker circuitBreaker;
+    private RestTemplate restTemplate;
+    private OutboundLane<VesselStateTransition> transitionLane;
+
+    // Built after injection so the configured timeouts are actually applied
+    @PostConstruct
+    public void createRestTemplate() {
+        circuitBreaker = circuitBreakerRegistry.breaker("/data-app/transition", readTimeout);
+        restTemplate = circuitBreakerRegistry.restTemplate(circuitBreaker, connectTimeout);
+        transitionLane = new OutboundLane<>("transition", transitionLaneCapacity, 1, this::sendTransitions);
+        transitionLane.start();
+        pipelineMetrics.registerLane(transitionLane);
+    }
+
+    @PreDestroy
+    public void stopTransitionLane() {
+        transitionLane.stop();
+    }
+
+    /**
+     * Queue a transition on the dedicated low-latency lane. Retries run on the lane's own
+     * thread, so the state machine never blocks on the network.
+     */
+    public void submitStateTransition(VesselStateTransition transition) {
+        transitionLane.offer(transition);
+    }
+
+    public int getBacklog() {
+        return transitionLane.getDepth();
+    }
+
+    private void sendTransitions(List<VesselStateTransition> transitions) {
+        for (VesselStateTransition transition : transitions) {
+            if (!notifyStateTransition(transition)) {
+                log.error("Failed to notify state transition: {} -> {}", transition.getFromState(), transition.getToState());
+            }
+        }
     }
 
     public boolean notifyStateTransition(VesselStateTransition transition) {
@@ -59,12 +106,12 @@ public class TransitionApiService {
                 log.info("Sending state transition notification to {}: {} -> {} (attempt {}/{})",
                         apiUrl, transition.getFromState(), transition.getToState(), attempt, maxRetries);
 
-                ResponseEntity<ApiResponse> response = restTemplate.exchange(
+                ResponseEntity<ApiResponse> response = circuitBreaker.execute(() -> restTemplate.exchange(
                         apiUrl,
                         HttpMethod.POST,
                         requestEntity,
                         ApiResponse.class
-                );
+                ));
 
                 if (response.getStatusCode().is2xxSuccessful()) {
                     log.info("Successfully notified state transition: {} -> {}",
@@ -74,6 +121,10 @@ public class TransitionApiService {
                     log.warn("Failed to notify state transition: {} -> {}. Status: {}",
                             transition.getFromState(), transition.getToState(), response.getStatusCode());
                 }
+            } catch (CircuitBreakerOpenException e) {
+                log.error("Failed to notify state transition: {} -> {}. {}",
+                        transition.getFromState(), transition.getToState(), e.getMessage());
+                return false;
             } catch (RestClientException e) {
                 if (attempt < maxRetries) {
                     log.warn("Error sending transition notification (attempt {}/{}): {}. Retrying in {} ms...",
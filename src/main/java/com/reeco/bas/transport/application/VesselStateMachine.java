@@ -1,5 +1,8 @@
 package com.reeco.bas.transport.application;
 
+import com.reeco.bas.transport.infrastructure.jfr.StateTransitionEvent;
+import com.reeco.bas.transport.infrastructure.metrics.PipelineMetrics;
+import com.reeco.bas.transport.infrastructure.server.LiveStreamHub;
 import com.reeco.bas.transport.model.ConfigModel;
 import com.reeco.bas.transport.model.VesselState;
 import com.reeco.bas.transport.model.VesselStateTransition;
@@ -9,6 +12,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
@@ -43,7 +47,7 @@ public class VesselStateMachine {
     @Value("${vessel.transition.departing.complete.time:30}")
     private int departingCompleteTimeSeconds;
 
-    private VesselState currentState = VesselState.AVAILABLE;
+    private volatile VesselState currentState = VesselState.AVAILABLE;
     private Map<String, Object> stateContext = new HashMap<>();
 
     @Autowired
@@ -52,6 +56,12 @@ public class VesselStateMachine {
     @Autowired
     private ConfigService configService;
 
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private LiveStreamHub liveStreamHub;
+
     private Instant stateChangeTime = Instant.now();
     private Instant conditionMetTime = null;
 
@@ -73,6 +83,7 @@ public class VesselStateMachine {
         } catch (Exception e) {
             log.error("Error during vessel state initialization", e);
         }
+        pipelineMetrics.vesselStateChanged(currentState);
     }
 
     private VesselState determineStateFromMode(String mode) {
@@ -94,6 +105,7 @@ public class VesselStateMachine {
             currentState = initialState;
             stateChangeTime = Instant.now();
             stateContext.clear();
+            pipelineMetrics.vesselStateChanged(initialState);
         }
     }
 
@@ -350,10 +362,18 @@ public class VesselStateMachine {
     }
 
     private void transitionState(VesselState newState) {
+        StateTransitionEvent transitionEvent = new StateTransitionEvent();
+        if (transitionEvent.shouldCommit()) {
+            transitionEvent.fromState = String.valueOf(currentState);
+            transitionEvent.toState = newState.name();
+            transitionEvent.timeInState = Duration.between(stateChangeTime, Instant.now()).toMillis();
+            transitionEvent.commit();
+        }
         VesselState oldState = currentState;
         currentState = newState;
         stateChangeTime = Instant.now();
         conditionMetTime = null;
+        pipelineMetrics.vesselStateChanged(newState);
 
         // Clear context but keep sensor data
         Map<String, Object> sensorData = new HashMap<>();
@@ -368,12 +388,9 @@ public class VesselStateMachine {
         stateContext.clear();
         stateContext.putAll(sensorData);
 
-        // Notify about state transition
+        // Notify about state transition on the dedicated transition lane
         VesselStateTransition transition = new VesselStateTransition(dataAppCode, oldState, newState);
-        boolean success = transitionApiService.notifyStateTransition(transition);
-
-        if (!success) {
-            log.error("Failed to notify state transition: {} -> {}", oldState, newState);
-        }
+        transitionApiService.submitStateTransition(transition);
+        liveStreamHub.publishTransition(transition);
     }
 }
\ No newline at end of file
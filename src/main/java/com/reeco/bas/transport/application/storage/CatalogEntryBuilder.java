@@ -0,0 +1,73 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.reeco.bas.transport.infrastructure.codec.CombinedDataCodec;
+import com.reeco.bas.transport.model.SyncPayload;
+
+/**
+ * Accumulates a {@link SessionCatalog.Entry} one record at a time while a segment is written
+ * or indexed.
+ */
+class CatalogEntryBuilder {
+    /** Rows between two sparse index points of a CSV segment. */
+    static final int SPARSE_INDEX_INTERVAL = 1024;
+    private static final int NORMAL_STATUS = 1;
+
+    private final SessionCatalog.Entry entry = new SessionCatalog.Entry();
+
+    /**
+     * @param offset byte offset of the record's row, or -1 if the format has its own index
+     */
+    void add(SyncPayload record, long offset) {
+        long time = timeOf(record);
+        if (time != Long.MIN_VALUE) {
+            entry.setStartTime(Math.min(entry.getStartTime(), time));
+            entry.setEndTime(Math.max(entry.getEndTime(), time));
+            if (offset >= 0 && entry.getRowCount() % SPARSE_INDEX_INTERVAL == 0) {
+                entry.getIndex().add(new SessionCatalog.IndexPoint(offset, time));
+            }
+        }
+        entry.setRowCount(entry.getRowCount() + 1);
+        // Blank rows were written on sensor timeouts before those were mapped; they only hold zeros
+        if (!SessionStatistics.isSessionSample(record)) {
+            return;
+        }
+        if (entry.getOrgId() == 0) {
+            entry.setOrgId(record.getOrgId());
+            entry.setBerthId(record.getBerthId());
+            entry.setSessionId(record.getRecordId());
+        }
+        // A side missing after a sensor timeout has zone 0 and a zero distance
+        if (record.getLDistanceZone() != 0) {
+            entry.setMinDistance(Math.min(entry.getMinDistance(), record.getLeftDistance()));
+        }
+        if (record.getRDistanceZone() != 0) {
+            entry.setMinDistance(Math.min(entry.getMinDistance(), record.getRightDistance()));
+        }
+        entry.setMaxSpeed(Math.max(entry.getMaxSpeed(), Math.max(Math.abs(record.getLeftSpeed()), Math.abs(record.getRightSpeed()))));
+        if (record.getAngleAlarm() > NORMAL_STATUS) {
+            entry.setAngleAlarms(entry.getAngleAlarms() + 1);
+        }
+        if (record.getLDistanceAlarm() > NORMAL_STATUS || record.getRDistanceAlarm() > NORMAL_STATUS) {
+            entry.setDistanceAlarms(entry.getDistanceAlarms() + 1);
+        }
+        if (record.getLSpeedAlarm() > NORMAL_STATUS || record.getRSpeedAlarm() > NORMAL_STATUS) {
+            entry.setSpeedAlarms(entry.getSpeedAlarms() + 1);
+        }
+    }
+
+    SessionCatalog.Entry build(String fileName) {
+        entry.setFileName(fileName);
+        return entry;
+    }
+
+    /**
+     * @return the record's time in epoch micros, or {@code Long.MIN_VALUE} if it cannot be parsed
+     */
+    static long timeOf(SyncPayload record) {
+        try {
+            return CombinedDataCodec.toEpochMicros(record.getTime());
+        } catch (RuntimeException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+}
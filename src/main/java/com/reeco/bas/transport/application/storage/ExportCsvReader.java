@@ -0,0 +1,356 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.reeco.bas.transport.model.SyncPayload;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Byte-level reader for CSV export segments. The file is memory-mapped and numeric fields
+ * are parsed in place, without creating a String per field. Only the four timestamp
+ * columns become Strings, and {@code created_at}/{@code updated_at} share the {@code time}
+ * instance when they are equal.
+ * <p>
+ * Files can be split into line-aligned {@link Range}s that are read on separate threads.
+ */
+public class ExportCsvReader implements Closeable {
+    private static final int FIELD_COUNT = SessionSegmentWriter.HEADER.length;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final int dataStart;
+    private long malformedRows = 0;
+
+    /**
+     * Start offset (inclusive) and end offset (exclusive) of a run of whole rows.
+     */
+    public record Range(long start, long end) {
+    }
+
+    @FunctionalInterface
+    public interface RowVisitor {
+        /**
+         * @param row        the parsed row
+         * @param nextOffset offset of the row after it
+         * @return false to stop reading
+         */
+        boolean visit(SyncPayload row, long nextOffset);
+    }
+
+    public ExportCsvReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Export file too large to map: " + file);
+            }
+            this.size = (int) length;
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            this.dataStart = nextLine(0);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return offset of the first row after the header
+     */
+    public long dataStart() {
+        return dataStart;
+    }
+
+    public synchronized long getMalformedRows() {
+        return malformedRows;
+    }
+
+    /**
+     * Split the rows into at most {@code parts} ranges of roughly equal size.
+     */
+    public List<Range> split(int parts) {
+        List<Range> ranges = new ArrayList<>(parts);
+        int start = dataStart;
+        for (int i = 1; i <= parts && start < size; i++) {
+            int end = i == parts ? size : nextLine(Math.max(start, dataStart + (int) ((long) (size - dataStart) * i / parts)));
+            if (end > start) {
+                ranges.add(new Range(start, end));
+                start = end;
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Parse the rows that start in {@code [from, to)}. {@code from} must be the start of a row.
+     * @param target supplies the instance each row is parsed into; return the same instance
+     *               every time to read without allocating
+     * @return the offset reading stopped at
+     */
+    public long read(long from, long to, Supplier<SyncPayload> target, RowVisitor visitor) {
+        int[] starts = new int[FIELD_COUNT];
+        int[] ends = new int[FIELD_COUNT];
+        int position = (int) Math.max(from, dataStart);
+        int limit = (int) Math.min(to, size);
+        while (position < limit) {
+            int lineEnd = lineEnd(position);
+            int next = Math.min(lineEnd + 1, size);
+            if (lineEnd > position) {
+                SyncPayload row = target.get();
+                if (splitFields(position, lineEnd, starts, ends) && parseRow(starts, ends, row)) {
+                    if (!visitor.visit(row, next)) {
+                        return next;
+                    }
+                } else {
+                    synchronized (this) {
+                        malformedRows++;
+                    }
+                }
+            }
+            position = next;
+        }
+        return position;
+    }
+
+    /**
+     * Visit every row using {@code parallelism} threads. Each thread reuses one instance,
+     * so {@code action} must copy anything it keeps.
+     */
+    public void readParallel(int parallelism, Consumer<SyncPayload> action) {
+        split(parallelism).parallelStream().forEach(range -> {
+            SyncPayload reused = new SyncPayload();
+            read(range.start(), range.end(), () -> reused, (row, next) -> {
+                action.accept(row);
+                return true;
+            });
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int lineEnd(int position) {
+        while (position < size && buffer.get(position) != '\n') {
+            position++;
+        }
+        return position;
+    }
+
+    private int nextLine(int position) {
+        return Math.min(lineEnd(position) + 1, size);
+    }
+
+    /**
+     * Record the content bounds of every field, without the surrounding quotes.
+     */
+    private boolean splitFields(int position, int lineEnd, int[] starts, int[] ends) {
+        if (buffer.get(lineEnd - 1) == '\r') {
+            lineEnd--;
+        }
+        int field = 0;
+        while (field < FIELD_COUNT) {
+            if (position < lineEnd && buffer.get(position) == '"') {
+                int close = position + 1;
+                while (close < lineEnd && buffer.get(close) != '"') {
+                    close++;
+                }
+                if (close >= lineEnd || close + 1 < lineEnd && buffer.get(close + 1) == '"') {
+                    // Escaped quotes never occur in exports; treat them as malformed
+                    return false;
+                }
+                starts[field] = position + 1;
+                ends[field] = close;
+                position = close + 1;
+            } else {
+                starts[field] = position;
+                while (position < lineEnd && buffer.get(position) != ',') {
+                    position++;
+                }
+                ends[field] = position;
+            }
+            field++;
+            if (position >= lineEnd) {
+                break;
+            }
+            if (buffer.get(position) != ',') {
+                return false;
+            }
+            position++;
+        }
+        return field == FIELD_COUNT && position >= lineEnd;
+    }
+
+    private boolean parseRow(int[] starts, int[] ends, SyncPayload row) {
+        try {
+            row.setRecordId(parseInt(starts[0], ends[0]));
+            row.setBerthId(parseInt(starts[1], ends[1]));
+            String time = string(starts[2], ends[2]);
+            row.setTime(time);
+            row.setOrgId(parseInt(starts[3], ends[3]));
+            row.setAngleZone(parseInt(starts[4], ends[4]));
+            row.setLSpeedZone(parseInt(starts[5], ends[5]));
+            row.setLDistanceZone(parseInt(starts[6], ends[6]));
+            row.setRDistanceZone(parseInt(starts[7], ends[7]));
+            row.setRSpeedZone(parseInt(starts[8], ends[8]));
+            row.setLeftSpeed(parseDouble(starts[9], ends[9]));
+            row.setLeftDistance(parseDouble(starts[10], ends[10]));
+            row.setRightSpeed(parseDouble(starts[11], ends[11]));
+            row.setRightDistance(parseDouble(starts[12], ends[12]));
+            row.setAngle(parseDouble(starts[13], ends[13]));
+            row.setLeftStatus(parseInt(starts[14], ends[14]));
+            row.setRightStatus(parseInt(starts[15], ends[15]));
+            row.setRDistanceAlarm(parseInt(starts[16], ends[16]));
+            row.setRSpeedAlarm(parseInt(starts[17], ends[17]));
+            row.setLDistanceAlarm(parseInt(starts[18], ends[18]));
+            row.setLSpeedAlarm(parseInt(starts[19], ends[19]));
+            row.setAngleAlarm(parseInt(starts[20], ends[20]));
+            row.setCreatedAt(sameBytes(starts[21], ends[21], starts[2], ends[2]) ? time : string(starts[21], ends[21]));
+            row.setUpdatedAt(sameBytes(starts[22], ends[22], starts[2], ends[2]) ? time : string(starts[22], ends[22]));
+            row.setDeletedAt(ends[23] == starts[23] ? "" : string(starts[23], ends[23]));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private int parseInt(int start, int end) {
+        if (start == end) {
+            throw new NumberFormatException("Empty integer field");
+        }
+        boolean negative = buffer.get(start) == '-';
+        int position = negative ? start + 1 : start;
+        if (position == end) {
+            throw new NumberFormatException("Invalid integer field");
+        }
+        long value = 0;
+        while (position < end) {
+            int digit = buffer.get(position++) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid integer field");
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("Integer field out of range");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Integer field out of range");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Exact for decimal strings with at most 15-16 significant digits and a small exponent,
+     * which covers everything {@link Double#toString} writes for sensor values: the mantissa
+     * and the power of ten are both exact doubles, so the single division or multiplication
+     * rounds correctly. Anything else falls back to {@link Double#parseDouble}.
+     */
+    private double parseDouble(int start, int end) {
+        int position = start;
+        boolean negative = false;
+        if (position < end && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+            negative = buffer.get(position) == '-';
+            position++;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean fraction = false;
+        while (position < end) {
+            byte b = buffer.get(position);
+            if (b >= '0' && b <= '9') {
+                if (mantissa >= MAX_EXACT_MANTISSA / 10) {
+                    return slowParseDouble(start, end);
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (fraction) {
+                    exponent--;
+                }
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+            position++;
+        }
+        if (digits == 0) {
+            return slowParseDouble(start, end);
+        }
+        if (position < end) {
+            byte b = buffer.get(position);
+            if (b != 'e' && b != 'E') {
+                return slowParseDouble(start, end);
+            }
+            position++;
+            boolean negativeExponent = false;
+            if (position < end && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+                negativeExponent = buffer.get(position) == '-';
+                position++;
+            }
+            int explicit = 0;
+            int exponentDigits = 0;
+            while (position < end && exponentDigits < 4) {
+                int digit = buffer.get(position) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                explicit = explicit * 10 + digit;
+                exponentDigits++;
+                position++;
+            }
+            if (exponentDigits == 0 || position < end) {
+                return slowParseDouble(start, end);
+            }
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+        if (exponent < -22 || exponent > 22) {
+            return slowParseDouble(start, end);
+        }
+        double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        return negative ? -value : value;
+    }
+
+    private double slowParseDouble(int start, int end) {
+        return Double.parseDouble(string(start, end));
+    }
+
+    private boolean sameBytes(int start, int end, int otherStart, int otherEnd) {
+        if (end - start != otherEnd - otherStart) {
+            return false;
+        }
+        for (int i = 0; i < end - start; i++) {
+            if (buffer.get(start + i) != buffer.get(otherStart + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String string(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,162 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.reeco.bas.transport.model.SyncPayload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Turns old raw segments into cold storage: a downsampled rollup archive that stays
+ * queryable, and a gzip copy of the raw file.
+ * <p>
+ * A rollup keeps one record per interval, built conservatively so no alarm disappears:
+ * the closest distance and the fastest speed and widest angle of the interval, the closest
+ * zone and the highest status of every alarm. Sides that timed out (zone 0) are left out,
+ * unless they timed out for the whole interval.
+ */
+public final class SegmentCompactor {
+    private static final int ROLLUP_BLOCK_SIZE = 512;
+
+    private SegmentCompactor() {
+    }
+
+    /**
+     * @return the number of rollup records written
+     */
+    public static int rollup(Path segment, Path target, long intervalMicros) throws IOException {
+        RollupBuilder builder = new RollupBuilder(intervalMicros);
+        if (segment.getFileName().toString().endsWith(SessionArchive.SUFFIX)) {
+            try (SessionArchiveReader reader = new SessionArchiveReader(segment)) {
+                reader.forEach(builder::add);
+            }
+        } else {
+            try (ExportCsvReader reader = new ExportCsvReader(segment)) {
+                SyncPayload reused = new SyncPayload();
+                reader.read(reader.dataStart(), reader.size(), () -> reused, (record, next) -> {
+                    builder.add(record);
+                    return true;
+                });
+            }
+        }
+        List<SyncPayload> records = builder.finish();
+        SessionArchiveWriter.writeArchive(target, records, ROLLUP_BLOCK_SIZE);
+        return records.size();
+    }
+
+    public static void gzip(Path source, Path target) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + SegmentWriter.OPEN_SUFFIX);
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+            in.transferTo(out);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static final class RollupBuilder {
+        private final long intervalMicros;
+        private final List<SyncPayload> rollups = new ArrayList<>();
+        private SyncPayload current;
+        private long currentBucket = Long.MIN_VALUE;
+
+        RollupBuilder(long intervalMicros) {
+            this.intervalMicros = intervalMicros;
+        }
+
+        void add(SyncPayload record) {
+            long time = CatalogEntryBuilder.timeOf(record);
+            if (time == Long.MIN_VALUE) {
+                return;
+            }
+            long bucket = Math.floorDiv(time, intervalMicros);
+            if (current == null || bucket != currentBucket) {
+                current = copyOf(record);
+                currentBucket = bucket;
+                rollups.add(current);
+                return;
+            }
+            // A side that timed out has zone 0 and a zero value; it only shows if the whole interval timed out
+            if (record.getLDistanceZone() != 0) {
+                current.setLeftDistance(current.getLDistanceZone() == 0 ? record.getLeftDistance()
+                        : Math.min(current.getLeftDistance(), record.getLeftDistance()));
+                current.setLDistanceZone(closest(current.getLDistanceZone(), record.getLDistanceZone()));
+            }
+            if (record.getRDistanceZone() != 0) {
+                current.setRightDistance(current.getRDistanceZone() == 0 ? record.getRightDistance()
+                        : Math.min(current.getRightDistance(), record.getRightDistance()));
+                current.setRDistanceZone(closest(current.getRDistanceZone(), record.getRDistanceZone()));
+            }
+            if (record.getLSpeedZone() != 0) {
+                current.setLeftSpeed(current.getLSpeedZone() == 0 ? record.getLeftSpeed()
+                        : widest(current.getLeftSpeed(), record.getLeftSpeed()));
+                current.setLSpeedZone(closest(current.getLSpeedZone(), record.getLSpeedZone()));
+            }
+            if (record.getRSpeedZone() != 0) {
+                current.setRightSpeed(current.getRSpeedZone() == 0 ? record.getRightSpeed()
+                        : widest(current.getRightSpeed(), record.getRightSpeed()));
+                current.setRSpeedZone(closest(current.getRSpeedZone(), record.getRSpeedZone()));
+            }
+            if (record.getAngleZone() != 0) {
+                current.setAngle(current.getAngleZone() == 0 ? record.getAngle() : widest(current.getAngle(), record.getAngle()));
+                current.setAngleZone(closest(current.getAngleZone(), record.getAngleZone()));
+            }
+            current.setLeftStatus(Math.max(current.getLeftStatus(), record.getLeftStatus()));
+            current.setRightStatus(Math.max(current.getRightStatus(), record.getRightStatus()));
+            current.setRDistanceAlarm(Math.max(current.getRDistanceAlarm(), record.getRDistanceAlarm()));
+            current.setRSpeedAlarm(Math.max(current.getRSpeedAlarm(), record.getRSpeedAlarm()));
+            current.setLDistanceAlarm(Math.max(current.getLDistanceAlarm(), record.getLDistanceAlarm()));
+            current.setLSpeedAlarm(Math.max(current.getLSpeedAlarm(), record.getLSpeedAlarm()));
+            current.setAngleAlarm(Math.max(current.getAngleAlarm(), record.getAngleAlarm()));
+        }
+
+        List<SyncPayload> finish() {
+            return rollups;
+        }
+
+        private static double widest(double a, double b) {
+            return Math.abs(b) > Math.abs(a) ? b : a;
+        }
+
+        /**
+         * Closest of two zones, where zone 0 means the reading timed out.
+         */
+        private static int closest(int current, int zone) {
+            return current == 0 ? zone : Math.min(current, zone);
+        }
+
+        private static SyncPayload copyOf(SyncPayload record) {
+            SyncPayload copy = new SyncPayload();
+            copy.setRecordId(record.getRecordId());
+            copy.setBerthId(record.getBerthId());
+            copy.setOrgId(record.getOrgId());
+            copy.setTime(record.getTime());
+            copy.setCreatedAt(record.getCreatedAt());
+            copy.setUpdatedAt(record.getUpdatedAt());
+            copy.setDeletedAt(record.getDeletedAt());
+            copy.setLeftDistance(record.getLeftDistance());
+            copy.setRightDistance(record.getRightDistance());
+            copy.setLeftSpeed(record.getLeftSpeed());
+            copy.setRightSpeed(record.getRightSpeed());
+            copy.setAngle(record.getAngle());
+            copy.setAngleZone(record.getAngleZone());
+            copy.setLSpeedZone(record.getLSpeedZone());
+            copy.setLDistanceZone(record.getLDistanceZone());
+            copy.setRDistanceZone(record.getRDistanceZone());
+            copy.setRSpeedZone(record.getRSpeedZone());
+            copy.setLeftStatus(record.getLeftStatus());
+            copy.setRightStatus(record.getRightStatus());
+            copy.setRDistanceAlarm(record.getRDistanceAlarm());
+            copy.setRSpeedAlarm(record.getRSpeedAlarm());
+            copy.setLDistanceAlarm(record.getLDistanceAlarm());
+            copy.setLSpeedAlarm(record.getLSpeedAlarm());
+            copy.setAngleAlarm(record.getAngleAlarm());
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.reeco.bas.transport.application.storage;
+
+/**
+ * On-disk format of session segments.
+ */
+public enum SegmentFormat {
+    /** Columnar {@link SessionArchive} files. */
+    ARCHIVE,
+    /** Quoted CSV in the legacy export layout. */
+    CSV
+}
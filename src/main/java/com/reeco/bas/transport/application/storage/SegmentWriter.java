@@ -0,0 +1,194 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.reeco.bas.transport.model.SyncPayload;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
+
+/**
+ * Base for sinks that stream a session into segment files while it runs. A segment is
+ * written as {@code <org>_<berth>_<session>-<timestamp><suffix>.part} and renamed to drop the
+ * {@code .part} suffix when it is sealed, either on rollover (size or age) or when the
+ * session ends. Only sealed segments are visible to the sync scheduler. Records without a
+ * session identity are skipped.
+ */
+@Slf4j
+public abstract class SegmentWriter implements SpillSink {
+    static final String OPEN_SUFFIX = ".part";
+    private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private final Path directory;
+    private final String suffix;
+    private final long maxSegmentBytes;
+    private final long maxSegmentAgeMs;
+
+    private String sessionKey;
+    private Path openSegment;
+    private long segmentOpenedAt;
+    private long sessionCount = 0;
+    private CatalogEntryBuilder catalogEntry;
+    private Consumer<SessionCatalog.Entry> sealListener = entry -> {
+    };
+
+    protected SegmentWriter(Path directory, String suffix, long maxSegmentBytes, long maxSegmentAgeMs) throws IOException {
+        this.directory = directory;
+        this.suffix = suffix;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.maxSegmentAgeMs = maxSegmentAgeMs;
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    protected abstract void openSegment(Path segment, SyncPayload first) throws IOException;
+
+    /**
+     * Append the records in {@code [from, to)}, which all belong to the session of the open
+     * segment, calling {@link #recorded} for each of them.
+     */
+    protected abstract void writeRecords(SessionColumns records, int from, int to) throws IOException;
+
+    /**
+     * @return bytes written to the open segment so far
+     */
+    protected abstract long segmentBytes();
+
+    protected abstract void closeSegment() throws IOException;
+
+    /**
+     * Make a segment left open by a crash readable before it is sealed.
+     * @return false if nothing usable is left and the file should be deleted
+     */
+    protected abstract boolean repairSegment(Path segment) throws IOException;
+
+    /**
+     * Receive the catalog entry of every segment this writer seals.
+     */
+    public void onSeal(Consumer<SessionCatalog.Entry> listener) {
+        this.sealListener = listener;
+    }
+
+    /**
+     * @param offset byte offset of the record's row, or -1 if the format has its own index
+     */
+    protected void recorded(SyncPayload record, long offset) {
+        catalogEntry.add(record, offset);
+    }
+
+    @Override
+    public void spill(SessionColumns chunk) throws IOException {
+        int start = 0;
+        while (start < chunk.size()) {
+            int end = start + 1;
+            while (end < chunk.size() && chunk.sameSession(start, end)) {
+                end++;
+            }
+            SyncPayload first = chunk.get(start);
+            if (!SessionStatistics.isSessionSample(first)) {
+                // Must neither seal the session's segment nor open one of its own
+                log.debug("Skipping {} records without a session", end - start);
+                start = end;
+                continue;
+            }
+            String key = sessionKeyOf(first);
+            if (openSegment == null || !key.equals(sessionKey)) {
+                sealSegment();
+                open(key, first);
+            }
+            writeRecords(chunk, start, end);
+            sessionCount += end - start;
+            start = end;
+        }
+        if (openSegment != null
+                && (segmentBytes() >= maxSegmentBytes || System.currentTimeMillis() - segmentOpenedAt >= maxSegmentAgeMs)) {
+            sealSegment();
+        }
+    }
+
+    @Override
+    public Path seal() throws IOException {
+        Path sealed = sealSegment();
+        sessionKey = null;
+        sessionCount = 0;
+        return sealed;
+    }
+
+    @Override
+    public void discard() throws IOException {
+        if (openSegment != null) {
+            closeSegment();
+            Files.deleteIfExists(openSegment);
+        }
+        openSegment = null;
+        catalogEntry = null;
+        sessionKey = null;
+        sessionCount = 0;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return openSegment != null;
+    }
+
+    @Override
+    public long spilledCount() {
+        return sessionCount;
+    }
+
+    private static String sessionKeyOf(SyncPayload payload) {
+        return payload.getOrgId() + "_" + payload.getBerthId() + "_" + payload.getRecordId();
+    }
+
+    private void open(String key, SyncPayload first) throws IOException {
+        String baseName = key + "-" + LocalDateTime.now().format(FILE_DATE_FORMAT);
+        Path segment = directory.resolve(baseName + suffix + OPEN_SUFFIX);
+        // Rollover within the same second would otherwise reuse the name
+        for (int i = 1; Files.exists(segment) || Files.exists(sealedPath(segment)); i++) {
+            segment = directory.resolve(baseName + "_" + i + suffix + OPEN_SUFFIX);
+        }
+        catalogEntry = new CatalogEntryBuilder();
+        openSegment(segment, first);
+        openSegment = segment;
+        sessionKey = key;
+        segmentOpenedAt = System.currentTimeMillis();
+    }
+
+    private Path sealSegment() throws IOException {
+        if (openSegment == null) {
+            return null;
+        }
+        long bytes = segmentBytes();
+        closeSegment();
+        Path sealed = Files.move(openSegment, sealedPath(openSegment), StandardCopyOption.ATOMIC_MOVE);
+        log.info("Sealed session segment {} ({} bytes)", sealed.getFileName(), bytes);
+        openSegment = null;
+        sealListener.accept(catalogEntry.build(sealed.getFileName().toString()));
+        catalogEntry = null;
+        return sealed;
+    }
+
+    private static Path sealedPath(Path openSegment) {
+        String name = openSegment.getFileName().toString();
+        return openSegment.resolveSibling(name.substring(0, name.length() - OPEN_SUFFIX.length()));
+    }
+
+    private void recover() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + suffix + OPEN_SUFFIX)) {
+            for (Path segment : stream) {
+                if (repairSegment(segment)) {
+                    Files.move(segment, sealedPath(segment), StandardCopyOption.ATOMIC_MOVE);
+                    log.warn("Recovered unsealed session segment {}", segment.getFileName());
+                } else {
+                    Files.delete(segment);
+                    log.warn("Deleted unrecoverable session segment {}", segment.getFileName());
+                }
+            }
+        }
+    }
+}
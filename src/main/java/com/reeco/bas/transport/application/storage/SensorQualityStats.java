@@ -0,0 +1,128 @@
+package com.reeco.bas.transport.application.storage;
+
+import lombok.Data;
+
+import java.util.Arrays;
+
+/**
+ * Frame quality of one sensor, updated in O(1) per frame: signal strength distribution and how
+ * many frames were weak, out of target, unparseable or lost before they could be paired with the
+ * other sensor. Kept per session and written into the session summary next to
+ * {@link SessionStatistics}.
+ */
+@Data
+public class SensorQualityStats {
+    /** Upper bounds of the signal strength buckets; the last bucket takes everything above. */
+    public static final double[] SIGNAL_BUCKET_BOUNDS = {50, 100, 200, 400, 800, 1600, 3200};
+
+    private long frames;
+    private long parseFailures;
+    private long weakSignal;
+    private long outOfTarget;
+    private long lostToPairing;
+
+    private double minSignal = Double.MAX_VALUE;
+    private double maxSignal;
+    private double signalSum;
+    /** Frames per signal strength bucket, see {@link #SIGNAL_BUCKET_BOUNDS}. */
+    private long[] signalHistogram = new long[SIGNAL_BUCKET_BOUNDS.length + 1];
+
+    private long firstFrameTime;
+    private long lastFrameTime;
+
+    public synchronized void acceptFrame(long timeMillis, double signalStrength, boolean weak, boolean outOfTargetFrame) {
+        if (frames == 0) {
+            firstFrameTime = timeMillis;
+        }
+        frames++;
+        lastFrameTime = timeMillis;
+        if (weak) {
+            weakSignal++;
+        }
+        if (outOfTargetFrame) {
+            outOfTarget++;
+        }
+        minSignal = Math.min(minSignal, signalStrength);
+        maxSignal = Math.max(maxSignal, signalStrength);
+        signalSum += signalStrength;
+        signalHistogram[bucket(signalStrength)]++;
+    }
+
+    public synchronized void parseFailed(long timeMillis) {
+        if (frames == 0) {
+            firstFrameTime = timeMillis;
+        }
+        frames++;
+        lastFrameTime = timeMillis;
+        parseFailures++;
+    }
+
+    public synchronized void lostToPairing() {
+        lostToPairing++;
+    }
+
+    public synchronized double getWeakSignalRatio() {
+        return ratio(weakSignal);
+    }
+
+    public synchronized double getOutOfTargetRatio() {
+        return ratio(outOfTarget);
+    }
+
+    public synchronized double getMinSignal() {
+        return frames == parseFailures ? 0 : minSignal;
+    }
+
+    public synchronized double getMeanSignal() {
+        long parsed = frames - parseFailures;
+        return parsed == 0 ? 0 : signalSum / parsed;
+    }
+
+    public synchronized double getFramesPerSecond() {
+        long span = lastFrameTime - firstFrameTime;
+        return span <= 0 ? 0 : (frames - 1) * 1000.0 / span;
+    }
+
+    public synchronized SensorQualityStats copy() {
+        SensorQualityStats copy = new SensorQualityStats();
+        copy.frames = frames;
+        copy.parseFailures = parseFailures;
+        copy.weakSignal = weakSignal;
+        copy.outOfTarget = outOfTarget;
+        copy.lostToPairing = lostToPairing;
+        copy.minSignal = minSignal;
+        copy.maxSignal = maxSignal;
+        copy.signalSum = signalSum;
+        copy.signalHistogram = signalHistogram.clone();
+        copy.firstFrameTime = firstFrameTime;
+        copy.lastFrameTime = lastFrameTime;
+        return copy;
+    }
+
+    public synchronized void reset() {
+        frames = 0;
+        parseFailures = 0;
+        weakSignal = 0;
+        outOfTarget = 0;
+        lostToPairing = 0;
+        minSignal = Double.MAX_VALUE;
+        maxSignal = 0;
+        signalSum = 0;
+        Arrays.fill(signalHistogram, 0);
+        firstFrameTime = 0;
+        lastFrameTime = 0;
+    }
+
+    private double ratio(long count) {
+        return frames == 0 ? 0 : (double) count / frames;
+    }
+
+    static int bucket(double signalStrength) {
+        for (int i = 0; i < SIGNAL_BUCKET_BOUNDS.length; i++) {
+            if (signalStrength <= SIGNAL_BUCKET_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return SIGNAL_BUCKET_BOUNDS.length;
+    }
+}
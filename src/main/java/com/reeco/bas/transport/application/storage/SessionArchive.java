@@ -0,0 +1,337 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.reeco.bas.transport.infrastructure.codec.ColumnCodecs;
+import com.reeco.bas.transport.infrastructure.codec.CombinedDataCodec;
+import com.reeco.bas.transport.infrastructure.codec.GrowableBuffer;
+import com.reeco.bas.transport.infrastructure.codec.VarInts;
+import com.reeco.bas.transport.model.SyncPayload;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Columnar session archive ({@code .bsa}). Every spilled chunk becomes one block in which
+ * each field is stored as its own column.
+ *
+ * <pre>
+ * header  : magic("BSA") version(1) org_id(varint) berth_id(varint) record_id(varint)
+ * block   : length(4) count(varint) min_time(8) max_time(8) flags(1)
+ *           time (delta-of-delta epoch micros, or strings with FLAG_TEXT_TIME)
+ *           [created_at strings] [updated_at strings] [deleted_at strings]
+ *           left_speed left_distance right_speed right_distance angle (XOR doubles)
+ *           angle_zone lspeed_zone ldistance_zone rdistance_zone rspeed_zone left_status right_status
+ *           rdistance_alarm rspeed_alarm ldistance_alarm lspeed_alarm angle_alarm (run-length ints)
+ * footer  : block_count(varint) per block: offset(varint) count(varint) min_time(zigzag) max_time(zigzag)
+ * trailer : footer_offset(8) magic("BSAF")
+ * </pre>
+ *
+ * The identity fields are stored once in the header and {@code created_at}/{@code updated_at}
+ * are only stored when they differ from {@code time}. The footer indexes every block by
+ * offset and time range, so readers can skip blocks without decoding them.
+ */
+public final class SessionArchive {
+    public static final String SUFFIX = ".bsa";
+    public static final byte VERSION = 1;
+
+    static final int TRAILER_SIZE = 12;
+    static final int BLOCK_PREFIX_MAX_SIZE = 4 + 5 + 8 + 8;
+    private static final byte[] MAGIC = {'B', 'S', 'A'};
+    private static final int TRAILER_MAGIC = 0x42534146; // "BSAF"
+
+    private static final int FLAG_TEXT_TIME = 0x01;
+    private static final int FLAG_CREATED_AT = 0x02;
+    private static final int FLAG_UPDATED_AT = 0x04;
+    private static final int FLAG_DELETED_AT = 0x08;
+
+    private static final int DOUBLE_COLUMNS = SessionColumns.DOUBLE_COLUMNS;
+    private static final int INT_COLUMNS = SessionColumns.INT_COLUMNS;
+
+    private SessionArchive() {
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Header {
+        private final int orgId;
+        private final int berthId;
+        private final int recordId;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class BlockIndex {
+        private final long offset;
+        private final int count;
+        private final long minTime;
+        private final long maxTime;
+
+        public boolean overlaps(long fromMicros, long toMicros) {
+            return maxTime >= fromMicros && minTime <= toMicros;
+        }
+    }
+
+    static byte[] encodeHeader(SyncPayload first) {
+        GrowableBuffer out = new GrowableBuffer(16);
+        out.put(MAGIC, 0, MAGIC.length);
+        out.put(VERSION);
+        VarInts.writeSigned(out, first.getOrgId());
+        VarInts.writeSigned(out, first.getBerthId());
+        VarInts.writeSigned(out, first.getRecordId());
+        return out.toByteArray();
+    }
+
+    static Header readHeader(ByteBuffer in) {
+        for (byte expected : MAGIC) {
+            if (in.get() != expected) {
+                throw new IllegalArgumentException("Not a session archive");
+            }
+        }
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported session archive version " + version);
+        }
+        return new Header((int) VarInts.readSigned(in), (int) VarInts.readSigned(in), (int) VarInts.readSigned(in));
+    }
+
+    /**
+     * Encode the samples in {@code [from, to)} as one block, including its length prefix.
+     * @return the block's index entry, relative to {@code offset}
+     */
+    static BlockIndex encodeBlock(SessionColumns records, int from, int to, long offset, GrowableBuffer out) {
+        int count = to - from;
+        boolean textTime = !records.hasCanonicalTimes(from, to);
+        int flags = 0;
+        // Only samples kept whole can have timestamps that differ from their time
+        for (SyncPayload record : records.irregularRows(from, to)) {
+            String time = record.getTime();
+            if (!equalsOrBothEmpty(record.getCreatedAt(), time)) {
+                flags |= FLAG_CREATED_AT;
+            }
+            if (!equalsOrBothEmpty(record.getUpdatedAt(), time)) {
+                flags |= FLAG_UPDATED_AT;
+            }
+            if (record.getDeletedAt() != null && !record.getDeletedAt().isEmpty()) {
+                flags |= FLAG_DELETED_AT;
+            }
+        }
+        long[] times = new long[count];
+        // Blocks with unparseable times match every range query
+        long minTime = Long.MIN_VALUE;
+        long maxTime = Long.MAX_VALUE;
+        if (textTime) {
+            flags |= FLAG_TEXT_TIME;
+        } else if (count > 0) {
+            records.copyTimes(from, to, times);
+            minTime = Long.MAX_VALUE;
+            maxTime = Long.MIN_VALUE;
+            for (long time : times) {
+                minTime = Math.min(minTime, time);
+                maxTime = Math.max(maxTime, time);
+            }
+        }
+
+        GrowableBuffer body = new GrowableBuffer(count * 16 + 32);
+        VarInts.writeUnsigned(body, count);
+        body.putLong(minTime);
+        body.putLong(maxTime);
+        body.put((byte) flags);
+        SessionColumns.Cursor cursor = records.cursor();
+        SyncPayload record = new SyncPayload();
+        if (textTime) {
+            for (int row = from; row < to; row++) {
+                writeString(body, cursor.moveTo(row).getTime());
+            }
+        } else {
+            ColumnCodecs.writeDeltaOfDelta(body, times, count);
+        }
+        if ((flags & FLAG_CREATED_AT) != 0) {
+            for (int row = from; row < to; row++) {
+                writeString(body, cursor.moveTo(row).copyTo(record).getCreatedAt());
+            }
+        }
+        if ((flags & FLAG_UPDATED_AT) != 0) {
+            for (int row = from; row < to; row++) {
+                writeString(body, cursor.moveTo(row).copyTo(record).getUpdatedAt());
+            }
+        }
+        if ((flags & FLAG_DELETED_AT) != 0) {
+            for (int row = from; row < to; row++) {
+                writeString(body, cursor.moveTo(row).copyTo(record).getDeletedAt());
+            }
+        }
+
+        double[] doubles = new double[count];
+        for (int column = 0; column < DOUBLE_COLUMNS; column++) {
+            records.copyDoubleColumn(column, from, to, doubles);
+            ColumnCodecs.writeXorDoubles(body, doubles, count);
+        }
+        int[] ints = new int[count];
+        for (int column = 0; column < INT_COLUMNS; column++) {
+            records.copyIntColumn(column, from, to, ints);
+            ColumnCodecs.writeRunLength(body, ints, count);
+        }
+
+        int length = body.size();
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            out.put((byte) (length >>> shift));
+        }
+        byte[] encoded = body.toByteArray();
+        out.put(encoded, 0, encoded.length);
+        return new BlockIndex(offset, count, minTime, maxTime);
+    }
+
+    /**
+     * Read the index entry of the block at {@code in}'s position without decoding it.
+     */
+    static BlockIndex readBlockPrefix(ByteBuffer in, long offset) {
+        in.getInt();
+        int count = (int) VarInts.readUnsigned(in);
+        return new BlockIndex(offset, count, in.getLong(), in.getLong());
+    }
+
+    /**
+     * Decode the block starting (with its length prefix) at {@code in}'s position.
+     */
+    static List<SyncPayload> decodeBlock(ByteBuffer in, Header header) {
+        in.getInt();
+        int count = (int) VarInts.readUnsigned(in);
+        in.getLong();
+        in.getLong();
+        int flags = in.get() & 0xFF;
+
+        List<SyncPayload> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SyncPayload record = new SyncPayload();
+            record.setOrgId(header.getOrgId());
+            record.setBerthId(header.getBerthId());
+            record.setRecordId(header.getRecordId());
+            records.add(record);
+        }
+        if ((flags & FLAG_TEXT_TIME) != 0) {
+            for (SyncPayload record : records) {
+                record.setTime(readString(in));
+            }
+        } else {
+            long[] times = new long[count];
+            ColumnCodecs.readDeltaOfDelta(in, times, count);
+            for (int i = 0; i < count; i++) {
+                records.get(i).setTime(CombinedDataCodec.fromEpochMicros(times[i]));
+            }
+        }
+        for (SyncPayload record : records) {
+            record.setCreatedAt((flags & FLAG_CREATED_AT) != 0 ? readString(in) : record.getTime());
+        }
+        for (SyncPayload record : records) {
+            record.setUpdatedAt((flags & FLAG_UPDATED_AT) != 0 ? readString(in) : record.getTime());
+        }
+        for (SyncPayload record : records) {
+            record.setDeletedAt((flags & FLAG_DELETED_AT) != 0 ? readString(in) : "");
+        }
+
+        double[] doubles = new double[count];
+        for (int column = 0; column < DOUBLE_COLUMNS; column++) {
+            ColumnCodecs.readXorDoubles(in, doubles, count);
+            for (int i = 0; i < count; i++) {
+                setDoubleColumn(records.get(i), column, doubles[i]);
+            }
+        }
+        int[] ints = new int[count];
+        for (int column = 0; column < INT_COLUMNS; column++) {
+            ColumnCodecs.readRunLength(in, ints, count);
+            for (int i = 0; i < count; i++) {
+                setIntColumn(records.get(i), column, ints[i]);
+            }
+        }
+        return records;
+    }
+
+    static void encodeFooter(List<BlockIndex> blocks, long footerOffset, GrowableBuffer out) {
+        VarInts.writeUnsigned(out, blocks.size());
+        for (BlockIndex block : blocks) {
+            VarInts.writeUnsigned(out, block.getOffset());
+            VarInts.writeUnsigned(out, block.getCount());
+            VarInts.writeSigned(out, block.getMinTime());
+            VarInts.writeSigned(out, block.getMaxTime());
+        }
+        out.putLong(footerOffset);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            out.put((byte) (TRAILER_MAGIC >>> shift));
+        }
+    }
+
+    /**
+     * @param in buffer positioned at the footer
+     */
+    static List<BlockIndex> readFooter(ByteBuffer in) {
+        int blockCount = (int) VarInts.readUnsigned(in);
+        List<BlockIndex> blocks = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            blocks.add(new BlockIndex(VarInts.readUnsigned(in), (int) VarInts.readUnsigned(in),
+                    VarInts.readSigned(in), VarInts.readSigned(in)));
+        }
+        return blocks;
+    }
+
+    /**
+     * @param trailer the last {@link #TRAILER_SIZE} bytes of the file
+     * @return the footer offset
+     */
+    static long readTrailer(ByteBuffer trailer) {
+        long footerOffset = trailer.getLong();
+        if (trailer.getInt() != TRAILER_MAGIC) {
+            throw new IllegalArgumentException("Session archive has no footer");
+        }
+        return footerOffset;
+    }
+
+    private static boolean equalsOrBothEmpty(String value, String time) {
+        if (value == null || value.isEmpty()) {
+            return time == null || time.isEmpty();
+        }
+        return value.equals(time);
+    }
+
+    private static void writeString(GrowableBuffer out, String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        VarInts.writeUnsigned(out, bytes.length);
+        out.put(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = (int) VarInts.readUnsigned(in);
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void setDoubleColumn(SyncPayload record, int column, double value) {
+        switch (column) {
+            case 0 -> record.setLeftSpeed(value);
+            case 1 -> record.setLeftDistance(value);
+            case 2 -> record.setRightSpeed(value);
+            case 3 -> record.setRightDistance(value);
+            default -> record.setAngle(value);
+        }
+    }
+
+    private static void setIntColumn(SyncPayload record, int column, int value) {
+        switch (column) {
+            case 0 -> record.setAngleZone(value);
+            case 1 -> record.setLSpeedZone(value);
+            case 2 -> record.setLDistanceZone(value);
+            case 3 -> record.setRDistanceZone(value);
+            case 4 -> record.setRSpeedZone(value);
+            case 5 -> record.setLeftStatus(value);
+            case 6 -> record.setRightStatus(value);
+            case 7 -> record.setRDistanceAlarm(value);
+            case 8 -> record.setRSpeedAlarm(value);
+            case 9 -> record.setLDistanceAlarm(value);
+            case 10 -> record.setLSpeedAlarm(value);
+            default -> record.setAngleAlarm(value);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.opencsv.CSVWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Converts session archives back to the legacy CSV export layout.
+ *
+ * <pre>
+ * java -cp app.jar com.reeco.bas.transport.application.storage.SessionArchiveCsvExporter export/ [more files or dirs]
+ * </pre>
+ *
+ * Each {@code .bsa} file is written next to itself with a {@code .csv} suffix.
+ */
+public final class SessionArchiveCsvExporter {
+
+    private SessionArchiveCsvExporter() {
+    }
+
+    public static Path export(Path archive) throws IOException {
+        String name = archive.getFileName().toString();
+        Path csv = archive.resolveSibling(name.substring(0, name.length() - SessionArchive.SUFFIX.length())
+                + SessionSegmentWriter.SUFFIX);
+        export(archive, csv);
+        return csv;
+    }
+
+    public static long export(Path archive, Path csv) throws IOException {
+        long[] count = {0};
+        try (SessionArchiveReader reader = new SessionArchiveReader(archive);
+             Writer out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8);
+             CSVWriter writer = new CSVWriter(out)) {
+            writer.writeNext(SessionSegmentWriter.HEADER);
+            reader.forEach(record -> {
+                writer.writeNext(SessionSegmentWriter.toRow(record));
+                count[0]++;
+            });
+        }
+        return count[0];
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: SessionArchiveCsvExporter <archive.bsa | directory>...");
+            System.exit(1);
+        }
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path)) {
+                try (DirectoryStream<Path> archives = Files.newDirectoryStream(path, "*" + SessionArchive.SUFFIX)) {
+                    for (Path archive : archives) {
+                        System.out.println(archive + " -> " + export(archive));
+                    }
+                }
+            } else {
+                System.out.println(path + " -> " + export(path));
+            }
+        }
+    }
+}
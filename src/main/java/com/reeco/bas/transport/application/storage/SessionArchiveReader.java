@@ -0,0 +1,93 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.reeco.bas.transport.model.SyncPayload;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads a sealed {@link SessionArchive}. The file is memory-mapped and only the blocks that
+ * are actually requested get decoded.
+ */
+public class SessionArchiveReader implements Closeable {
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final SessionArchive.Header header;
+    private final List<SessionArchive.BlockIndex> blocks;
+
+    public SessionArchiveReader(Path archive) throws IOException {
+        this.channel = FileChannel.open(archive, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < SessionArchive.TRAILER_SIZE) {
+                throw new IOException("Session archive is truncated: " + archive);
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            this.header = SessionArchive.readHeader(buffer.duplicate());
+            long footerOffset = SessionArchive.readTrailer(buffer.duplicate().position((int) size - SessionArchive.TRAILER_SIZE));
+            this.blocks = SessionArchive.readFooter(buffer.duplicate().position((int) footerOffset));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e instanceof IOException io ? io : new IOException("Invalid session archive " + archive + ": " + e.getMessage(), e);
+        }
+    }
+
+    public SessionArchive.Header getHeader() {
+        return header;
+    }
+
+    public List<SessionArchive.BlockIndex> getBlocks() {
+        return blocks;
+    }
+
+    public long getRecordCount() {
+        long count = 0;
+        for (SessionArchive.BlockIndex block : blocks) {
+            count += block.getCount();
+        }
+        return count;
+    }
+
+    public List<SyncPayload> readBlock(SessionArchive.BlockIndex block) {
+        ByteBuffer in = buffer.duplicate();
+        in.position((int) block.getOffset());
+        return SessionArchive.decodeBlock(in, header);
+    }
+
+    public void forEach(Consumer<SyncPayload> action) {
+        for (SessionArchive.BlockIndex block : blocks) {
+            readBlock(block).forEach(action);
+        }
+    }
+
+    /**
+     * Visit the records whose time falls in {@code [fromMicros, toMicros]}, skipping blocks
+     * that the footer index rules out.
+     */
+    public void scan(long fromMicros, long toMicros, Consumer<SyncPayload> action) {
+        for (SessionArchive.BlockIndex block : blocks) {
+            if (block.overlaps(fromMicros, toMicros)) {
+                readBlock(block).forEach(action);
+            }
+        }
+    }
+
+    public List<SyncPayload> readAll() {
+        List<SyncPayload> records = new ArrayList<>((int) getRecordCount());
+        forEach(records::add);
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
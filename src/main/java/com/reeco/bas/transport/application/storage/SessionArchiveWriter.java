@@ -0,0 +1,166 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.reeco.bas.transport.infrastructure.codec.GrowableBuffer;
+import com.reeco.bas.transport.model.SyncPayload;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams session records into {@link SessionArchive} segments, one block per spilled chunk.
+ * The footer is written when the segment is sealed; a segment left open by a crash is
+ * rebuilt from its complete blocks on startup.
+ */
+public class SessionArchiveWriter extends SegmentWriter {
+    private final GrowableBuffer scratch = new GrowableBuffer(16 * 1024);
+    private final SyncPayload record = new SyncPayload();
+
+    private FileChannel channel;
+    private long position;
+    private List<SessionArchive.BlockIndex> blocks;
+
+    public SessionArchiveWriter(Path directory, long maxSegmentBytes, long maxSegmentAgeMs) throws IOException {
+        super(directory, SessionArchive.SUFFIX, maxSegmentBytes, maxSegmentAgeMs);
+    }
+
+    /**
+     * Write a complete archive in one go, e.g. a rollup of an older segment.
+     */
+    public static void writeArchive(Path target, List<SyncPayload> records, int blockSize) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + OPEN_SUFFIX);
+        SessionColumns columns = SessionColumns.of(records);
+        try (FileChannel file = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            long offset = 0;
+            if (!records.isEmpty()) {
+                byte[] header = SessionArchive.encodeHeader(records.get(0));
+                write(file, ByteBuffer.wrap(header), 0);
+                offset = header.length;
+            }
+            GrowableBuffer block = new GrowableBuffer(16 * 1024);
+            List<SessionArchive.BlockIndex> index = new ArrayList<>();
+            for (int start = 0; start < columns.size(); start += blockSize) {
+                block.reset();
+                index.add(SessionArchive.encodeBlock(columns, start, Math.min(start + blockSize, columns.size()), offset, block));
+                write(file, ByteBuffer.wrap(block.toByteArray()), offset);
+                offset += block.size();
+            }
+            writeFooter(file, index, offset);
+            file.force(false);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    protected void openSegment(Path segment, SyncPayload first) throws IOException {
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        byte[] header = SessionArchive.encodeHeader(first);
+        write(channel, ByteBuffer.wrap(header), 0);
+        position = header.length;
+        blocks = new ArrayList<>();
+    }
+
+    @Override
+    protected void writeRecords(SessionColumns records, int from, int to) throws IOException {
+        scratch.reset();
+        blocks.add(SessionArchive.encodeBlock(records, from, to, position, scratch));
+        write(channel, ByteBuffer.wrap(scratch.toByteArray()), position);
+        position += scratch.size();
+        SessionColumns.Cursor cursor = records.cursor();
+        for (int row = from; row < to; row++) {
+            recorded(cursor.moveTo(row).copyTo(record), -1);
+        }
+    }
+
+    @Override
+    protected long segmentBytes() {
+        return position;
+    }
+
+    @Override
+    protected void closeSegment() throws IOException {
+        try {
+            writeFooter(channel, blocks, position);
+            channel.force(false);
+        } finally {
+            channel.close();
+            channel = null;
+            blocks = null;
+        }
+    }
+
+    /**
+     * Keep every complete block and rewrite the footer after the last one.
+     */
+    @Override
+    protected boolean repairSegment(Path segment) throws IOException {
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = file.size();
+            if (hasFooter(file, size)) {
+                return true;
+            }
+            ByteBuffer headerBuffer = read(file, 0, (int) Math.min(size, 64));
+            try {
+                SessionArchive.readHeader(headerBuffer);
+            } catch (RuntimeException e) {
+                return false;
+            }
+            List<SessionArchive.BlockIndex> recovered = new ArrayList<>();
+            long offset = headerBuffer.position();
+            while (offset + 4 <= size) {
+                ByteBuffer prefix = read(file, offset, (int) Math.min(SessionArchive.BLOCK_PREFIX_MAX_SIZE, size - offset));
+                long end = offset + 4 + (prefix.getInt(0) & 0xFFFFFFFFL);
+                if (end > size || prefix.remaining() < SessionArchive.BLOCK_PREFIX_MAX_SIZE - 4) {
+                    break;
+                }
+                recovered.add(SessionArchive.readBlockPrefix(prefix, offset));
+                offset = end;
+            }
+            file.truncate(offset);
+            writeFooter(file, recovered, offset);
+            return true;
+        }
+    }
+
+    private static boolean hasFooter(FileChannel file, long size) throws IOException {
+        if (size < SessionArchive.TRAILER_SIZE) {
+            return false;
+        }
+        try {
+            long footerOffset = SessionArchive.readTrailer(read(file, size - SessionArchive.TRAILER_SIZE, SessionArchive.TRAILER_SIZE));
+            return footerOffset > 0 && footerOffset < size;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static void writeFooter(FileChannel file, List<SessionArchive.BlockIndex> index, long offset) throws IOException {
+        GrowableBuffer footer = new GrowableBuffer(index.size() * 16 + SessionArchive.TRAILER_SIZE + 8);
+        SessionArchive.encodeFooter(index, offset, footer);
+        write(file, ByteBuffer.wrap(footer.toByteArray()), offset);
+    }
+
+    private static ByteBuffer read(FileChannel file, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (file.read(buffer, offset + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void write(FileChannel file, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            file.write(buffer, offset + buffer.position());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.reeco.bas.transport.model.SyncPayload;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Bounded in-memory tier for the current session. Samples are collected into a fixed-size
+ * {@link SessionColumns} chunk that is handed to the {@link SpillSink} when full and then
+ * reused, so heap usage stays constant however long the session runs. The record count is
+ * tracked in a field, so {@link #size()} is O(1).
+ */
+@Slf4j
+public class SessionBuffer {
+    private final int chunkSize;
+    private final SpillSink sink;
+    private final SessionColumns activeChunk;
+    private long droppedCount = 0;
+
+    public SessionBuffer(int chunkSize, SpillSink sink) {
+        this.chunkSize = chunkSize;
+        this.sink = sink;
+        this.activeChunk = new SessionColumns(chunkSize);
+    }
+
+    public synchronized void add(SyncPayload payload) {
+        activeChunk.add(payload);
+        if (activeChunk.size() >= chunkSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Hand the current chunk to the sink even if it is not full yet.
+     */
+    public synchronized void flush() {
+        if (activeChunk.isEmpty()) {
+            return;
+        }
+        try {
+            sink.spill(activeChunk);
+        } catch (IOException e) {
+            // Memory must stay bounded, so a chunk that cannot be spilled is dropped
+            droppedCount += activeChunk.size();
+            log.error("Failed to spill {} records, dropping them: {}", activeChunk.size(), e.getMessage());
+        }
+        activeChunk.clear();
+    }
+
+    /**
+     * Flush the remaining records and seal the session output.
+     * @return the last sealed file, or null if nothing was written
+     */
+    public synchronized Path seal() throws IOException {
+        flush();
+        return sink.seal();
+    }
+
+    public synchronized long size() {
+        return sink.spilledCount() + activeChunk.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return activeChunk.isEmpty() && !sink.isOpen();
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * @return the records that have not been handed to the sink yet
+     */
+    public synchronized List<SyncPayload> pending() {
+        return activeChunk.toList();
+    }
+
+    public synchronized void clear() throws IOException {
+        sink.discard();
+        activeChunk.clear();
+    }
+}
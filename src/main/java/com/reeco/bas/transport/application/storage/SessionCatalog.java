@@ -0,0 +1,210 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reeco.bas.transport.model.SyncPayload;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Catalog of sealed session segments, persisted as JSON next to them. Entries are added
+ * when a segment is sealed, so finding a session never requires opening files, and range
+ * queries only read the part of a segment that overlaps the range: archives through their
+ * block footer, CSV segments through a sparse row index kept in the entry.
+ */
+@Slf4j
+public class SessionCatalog {
+    private final Path directory;
+    private final Path file;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Entry> entries;
+
+    @Data
+    public static class Entry {
+        private String fileName;
+        private int orgId;
+        private int berthId;
+        private int sessionId;
+        /** Epoch micros of the first and last sample. */
+        private long startTime = Long.MAX_VALUE;
+        private long endTime = Long.MIN_VALUE;
+        private long rowCount;
+        private double minDistance = Double.MAX_VALUE;
+        private double maxSpeed = 0;
+        /** Samples with an escalated alarm status. */
+        private long angleAlarms;
+        private long distanceAlarms;
+        private long speedAlarms;
+        /** Sparse row index of CSV segments; archives carry their own. */
+        private List<IndexPoint> index = new ArrayList<>();
+
+        public boolean overlaps(long fromMicros, long toMicros) {
+            return rowCount > 0 && endTime >= fromMicros && startTime <= toMicros;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IndexPoint {
+        private long offset;
+        private long time;
+    }
+
+    public SessionCatalog(Path directory, Path file) {
+        this.directory = directory;
+        this.file = file;
+        this.entries = load(file);
+    }
+
+    public synchronized void register(Entry entry) {
+        entries.put(entry.getFileName(), entry);
+        save();
+    }
+
+    public synchronized boolean contains(String fileName) {
+        return entries.containsKey(fileName);
+    }
+
+    public synchronized Entry get(String fileName) {
+        return entries.get(fileName);
+    }
+
+    public synchronized void remove(String fileName) {
+        if (entries.remove(fileName) != null) {
+            save();
+        }
+    }
+
+    /**
+     * Forget segments that no longer exist.
+     */
+    public synchronized void retain(Collection<String> fileNames) {
+        if (entries.keySet().retainAll(fileNames)) {
+            save();
+        }
+    }
+
+    public synchronized List<Entry> getEntries() {
+        return new ArrayList<>(entries.values());
+    }
+
+    /**
+     * @return the segments of a berth that have samples in {@code [fromMicros, toMicros]}, oldest first
+     */
+    public synchronized List<Entry> find(int berthId, long fromMicros, long toMicros) {
+        List<Entry> matches = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.getBerthId() == berthId && entry.overlaps(fromMicros, toMicros)) {
+                matches.add(entry);
+            }
+        }
+        matches.sort(Comparator.comparingLong(Entry::getStartTime));
+        return matches;
+    }
+
+    /**
+     * Visit every sample of a berth with a time in {@code [fromMicros, toMicros]}, leaving out
+     * blank rows without a session.
+     */
+    public void query(int berthId, long fromMicros, long toMicros, Consumer<SyncPayload> action) throws IOException {
+        for (Entry entry : find(berthId, fromMicros, toMicros)) {
+            Path segment = directory.resolve(entry.getFileName());
+            Consumer<SyncPayload> inRange = record -> {
+                long time = CatalogEntryBuilder.timeOf(record);
+                if (time >= fromMicros && time <= toMicros && SessionStatistics.isSessionSample(record)) {
+                    action.accept(record);
+                }
+            };
+            if (entry.getFileName().endsWith(SessionArchive.SUFFIX)) {
+                try (SessionArchiveReader reader = new SessionArchiveReader(segment)) {
+                    reader.scan(fromMicros, toMicros, inRange);
+                }
+            } else {
+                try (ExportCsvReader reader = new ExportCsvReader(segment)) {
+                    reader.read(seekOffset(entry, fromMicros), reader.size(), SyncPayload::new, (record, next) -> {
+                        // Rows are written in time order, so the first row past the range ends the scan
+                        if (CatalogEntryBuilder.timeOf(record) > toMicros) {
+                            return false;
+                        }
+                        inRange.accept(record);
+                        return true;
+                    });
+                }
+            }
+        }
+    }
+
+    /**
+     * Build the entry of a sealed segment that was written without one, e.g. before the
+     * catalog existed or by another writer.
+     */
+    public static Entry index(Path segment) throws IOException {
+        CatalogEntryBuilder builder = new CatalogEntryBuilder();
+        if (segment.getFileName().toString().endsWith(SessionArchive.SUFFIX)) {
+            try (SessionArchiveReader reader = new SessionArchiveReader(segment)) {
+                reader.forEach(record -> builder.add(record, -1));
+            }
+        } else {
+            try (ExportCsvReader reader = new ExportCsvReader(segment)) {
+                long[] offset = {reader.dataStart()};
+                reader.read(offset[0], reader.size(), SyncPayload::new, (record, next) -> {
+                    builder.add(record, offset[0]);
+                    offset[0] = next;
+                    return true;
+                });
+            }
+        }
+        return builder.build(segment.getFileName().toString());
+    }
+
+    private static long seekOffset(Entry entry, long fromMicros) {
+        long offset = 0;
+        for (IndexPoint point : entry.getIndex()) {
+            if (point.getTime() > fromMicros) {
+                break;
+            }
+            offset = point.getOffset();
+        }
+        return offset;
+    }
+
+    private void save() {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            objectMapper.writeValue(temp.toFile(), entries);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Failed to save session catalog {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Map<String, Entry> load(Path path) {
+        if (!Files.exists(path)) {
+            return new TreeMap<>();
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            return objectMapper.readValue(in, new TypeReference<TreeMap<String, Entry>>() {
+            });
+        } catch (IOException e) {
+            // The catalog can always be rebuilt from the segments themselves
+            log.error("Failed to read session catalog {}, rebuilding it: {}", path, e.getMessage());
+            return new TreeMap<>();
+        }
+    }
+}
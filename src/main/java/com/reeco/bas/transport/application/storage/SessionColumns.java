@@ -0,0 +1,380 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.reeco.bas.transport.infrastructure.codec.CombinedDataCodec;
+import com.reeco.bas.transport.model.SyncPayload;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Struct-of-arrays store for session samples: one growable primitive array per field
+ * instead of one {@link SyncPayload} object per sample. The three timestamp strings are
+ * kept as a single epoch-micros {@code long}, zones as {@code byte} and status codes as
+ * {@code short}, about 80 bytes per sample.
+ * <p>
+ * Samples that do not fit that layout, e.g. a timestamp that does not round-trip or a
+ * non-empty {@code deleted_at}, are kept whole in a sparse side table, so the store is
+ * lossless. Samples are read back through a flyweight {@link Cursor}.
+ */
+public class SessionColumns {
+    static final int DOUBLE_COLUMNS = 5;
+    static final int INT_COLUMNS = 12;
+    private static final int ZONE_COLUMNS = 5;
+    /** Marks a time that is only held by the sample in the side table. */
+    private static final long TEXT_TIME = Long.MIN_VALUE;
+
+    private int size;
+    private long[] time;
+    private int[] orgId;
+    private int[] berthId;
+    private int[] recordId;
+    /** left_speed, left_distance, right_speed, right_distance, angle */
+    private final double[][] doubles = new double[DOUBLE_COLUMNS][];
+    /** angle, lspeed, ldistance, rdistance and rspeed zones */
+    private final byte[][] zones = new byte[ZONE_COLUMNS][];
+    /** left/right status, then the rdistance, rspeed, ldistance, lspeed and angle alarms */
+    private final short[][] codes = new short[INT_COLUMNS - ZONE_COLUMNS][];
+    private final Map<Integer, SyncPayload> irregular = new HashMap<>();
+
+    public SessionColumns(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        time = new long[capacity];
+        orgId = new int[capacity];
+        berthId = new int[capacity];
+        recordId = new int[capacity];
+        for (int c = 0; c < DOUBLE_COLUMNS; c++) {
+            doubles[c] = new double[capacity];
+        }
+        for (int c = 0; c < zones.length; c++) {
+            zones[c] = new byte[capacity];
+        }
+        for (int c = 0; c < codes.length; c++) {
+            codes[c] = new short[capacity];
+        }
+    }
+
+    public static SessionColumns of(List<SyncPayload> records) {
+        SessionColumns columns = new SessionColumns(records.size());
+        records.forEach(columns::add);
+        return columns;
+    }
+
+    public void add(SyncPayload record) {
+        if (size == time.length) {
+            grow();
+        }
+        int row = size++;
+        orgId[row] = record.getOrgId();
+        berthId[row] = record.getBerthId();
+        recordId[row] = record.getRecordId();
+        doubles[0][row] = record.getLeftSpeed();
+        doubles[1][row] = record.getLeftDistance();
+        doubles[2][row] = record.getRightSpeed();
+        doubles[3][row] = record.getRightDistance();
+        doubles[4][row] = record.getAngle();
+
+        boolean regular = true;
+        for (int c = 0; c < INT_COLUMNS; c++) {
+            int value = intValue(record, c);
+            if (c < ZONE_COLUMNS) {
+                zones[c][row] = (byte) value;
+                regular &= value == (byte) value;
+            } else {
+                codes[c - ZONE_COLUMNS][row] = (short) value;
+                regular &= value == (short) value;
+            }
+        }
+
+        String text = record.getTime();
+        time[row] = canonicalTime(text);
+        regular &= time[row] != TEXT_TIME
+                && text.equals(record.getCreatedAt())
+                && text.equals(record.getUpdatedAt())
+                && (record.getDeletedAt() == null || record.getDeletedAt().isEmpty());
+        if (!regular) {
+            irregular.put(row, copyOf(record));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Forget every sample but keep the arrays, so a chunk can be refilled without allocating.
+     */
+    public void clear() {
+        size = 0;
+        irregular.clear();
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public SyncPayload get(int row) {
+        return cursor().moveTo(row).toPayload();
+    }
+
+    public List<SyncPayload> toList() {
+        List<SyncPayload> records = new ArrayList<>(size);
+        Cursor cursor = cursor();
+        while (cursor.next()) {
+            records.add(cursor.toPayload());
+        }
+        return records;
+    }
+
+    boolean sameSession(int a, int b) {
+        return orgId[a] == orgId[b] && berthId[a] == berthId[b] && recordId[a] == recordId[b];
+    }
+
+    /**
+     * @return true if every sample in {@code [from, to)} has a time that round-trips through epoch micros
+     */
+    boolean hasCanonicalTimes(int from, int to) {
+        for (int row = from; row < to; row++) {
+            if (time[row] == TEXT_TIME) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void copyTimes(int from, int to, long[] target) {
+        System.arraycopy(time, from, target, 0, to - from);
+    }
+
+    void copyDoubleColumn(int column, int from, int to, double[] target) {
+        System.arraycopy(doubles[column], from, target, 0, to - from);
+    }
+
+    /**
+     * Copy a zone or status column in archive column order (see {@link SessionArchive}).
+     */
+    void copyIntColumn(int column, int from, int to, int[] target) {
+        if (column < ZONE_COLUMNS) {
+            byte[] values = zones[column];
+            for (int row = from; row < to; row++) {
+                target[row - from] = values[row];
+            }
+        } else {
+            short[] values = codes[column - ZONE_COLUMNS];
+            for (int row = from; row < to; row++) {
+                target[row - from] = values[row];
+            }
+        }
+        for (Map.Entry<Integer, SyncPayload> entry : irregular.entrySet()) {
+            int row = entry.getKey();
+            if (row >= from && row < to) {
+                target[row - from] = intValue(entry.getValue(), column);
+            }
+        }
+    }
+
+    /**
+     * @return the samples in {@code [from, to)} kept whole, e.g. to check which timestamp columns a block needs
+     */
+    List<SyncPayload> irregularRows(int from, int to) {
+        List<SyncPayload> rows = new ArrayList<>();
+        for (Map.Entry<Integer, SyncPayload> entry : irregular.entrySet()) {
+            if (entry.getKey() >= from && entry.getKey() < to) {
+                rows.add(entry.getValue());
+            }
+        }
+        return rows;
+    }
+
+    private void grow() {
+        int capacity = time.length * 2;
+        time = Arrays.copyOf(time, capacity);
+        orgId = Arrays.copyOf(orgId, capacity);
+        berthId = Arrays.copyOf(berthId, capacity);
+        recordId = Arrays.copyOf(recordId, capacity);
+        for (int c = 0; c < DOUBLE_COLUMNS; c++) {
+            doubles[c] = Arrays.copyOf(doubles[c], capacity);
+        }
+        for (int c = 0; c < zones.length; c++) {
+            zones[c] = Arrays.copyOf(zones[c], capacity);
+        }
+        for (int c = 0; c < codes.length; c++) {
+            codes[c] = Arrays.copyOf(codes[c], capacity);
+        }
+    }
+
+    private static long canonicalTime(String text) {
+        if (text == null) {
+            return TEXT_TIME;
+        }
+        try {
+            long micros = CombinedDataCodec.toEpochMicros(text);
+            return CombinedDataCodec.fromEpochMicros(micros).equals(text) ? micros : TEXT_TIME;
+        } catch (RuntimeException e) {
+            return TEXT_TIME;
+        }
+    }
+
+    static int intValue(SyncPayload record, int column) {
+        return switch (column) {
+            case 0 -> record.getAngleZone();
+            case 1 -> record.getLSpeedZone();
+            case 2 -> record.getLDistanceZone();
+            case 3 -> record.getRDistanceZone();
+            case 4 -> record.getRSpeedZone();
+            case 5 -> record.getLeftStatus();
+            case 6 -> record.getRightStatus();
+            case 7 -> record.getRDistanceAlarm();
+            case 8 -> record.getRSpeedAlarm();
+            case 9 -> record.getLDistanceAlarm();
+            case 10 -> record.getLSpeedAlarm();
+            default -> record.getAngleAlarm();
+        };
+    }
+
+    private static SyncPayload copyOf(SyncPayload record) {
+        SyncPayload copy = new SyncPayload();
+        copy.setTime(record.getTime());
+        copy.setCreatedAt(record.getCreatedAt());
+        copy.setUpdatedAt(record.getUpdatedAt());
+        copy.setDeletedAt(record.getDeletedAt());
+        copy.setAngleZone(record.getAngleZone());
+        copy.setLSpeedZone(record.getLSpeedZone());
+        copy.setLDistanceZone(record.getLDistanceZone());
+        copy.setRDistanceZone(record.getRDistanceZone());
+        copy.setRSpeedZone(record.getRSpeedZone());
+        copy.setLeftStatus(record.getLeftStatus());
+        copy.setRightStatus(record.getRightStatus());
+        copy.setRDistanceAlarm(record.getRDistanceAlarm());
+        copy.setRSpeedAlarm(record.getRSpeedAlarm());
+        copy.setLDistanceAlarm(record.getLDistanceAlarm());
+        copy.setLSpeedAlarm(record.getLSpeedAlarm());
+        copy.setAngleAlarm(record.getAngleAlarm());
+        return copy;
+    }
+
+    /**
+     * Flyweight view of one sample. Moving the cursor changes what its getters return, so
+     * call {@link #toPayload()} for a sample that has to outlive the next move.
+     */
+    public final class Cursor {
+        private int row = -1;
+        private SyncPayload whole;
+
+        public boolean next() {
+            if (row + 1 >= size) {
+                return false;
+            }
+            moveTo(row + 1);
+            return true;
+        }
+
+        public Cursor moveTo(int row) {
+            if (row < 0 || row >= size) {
+                throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+            }
+            this.row = row;
+            this.whole = irregular.isEmpty() ? null : irregular.get(row);
+            return this;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public int getOrgId() {
+            return orgId[row];
+        }
+
+        public int getBerthId() {
+            return berthId[row];
+        }
+
+        public int getRecordId() {
+            return recordId[row];
+        }
+
+        /**
+         * @return the time in epoch micros, or {@code Long.MIN_VALUE} if it cannot be parsed
+         */
+        public long getTimeMicros() {
+            return whole == null ? time[row] : CatalogEntryBuilder.timeOf(whole);
+        }
+
+        public String getTime() {
+            return whole == null ? CombinedDataCodec.fromEpochMicros(time[row]) : whole.getTime();
+        }
+
+        public double getLeftSpeed() {
+            return doubles[0][row];
+        }
+
+        public double getLeftDistance() {
+            return doubles[1][row];
+        }
+
+        public double getRightSpeed() {
+            return doubles[2][row];
+        }
+
+        public double getRightDistance() {
+            return doubles[3][row];
+        }
+
+        public double getAngle() {
+            return doubles[4][row];
+        }
+
+        /**
+         * @param column zone or status column in archive column order
+         */
+        public int getInt(int column) {
+            if (whole != null) {
+                return intValue(whole, column);
+            }
+            return column < ZONE_COLUMNS ? zones[column][row] : codes[column - ZONE_COLUMNS][row];
+        }
+
+        public SyncPayload toPayload() {
+            return copyTo(new SyncPayload());
+        }
+
+        /**
+         * Fill {@code target} with the current sample.
+         */
+        public SyncPayload copyTo(SyncPayload target) {
+            String text = getTime();
+            target.setRecordId(getRecordId());
+            target.setBerthId(getBerthId());
+            target.setOrgId(getOrgId());
+            target.setTime(text);
+            target.setCreatedAt(whole == null ? text : whole.getCreatedAt());
+            target.setUpdatedAt(whole == null ? text : whole.getUpdatedAt());
+            target.setDeletedAt(whole == null ? "" : whole.getDeletedAt());
+            target.setLeftSpeed(getLeftSpeed());
+            target.setLeftDistance(getLeftDistance());
+            target.setRightSpeed(getRightSpeed());
+            target.setRightDistance(getRightDistance());
+            target.setAngle(getAngle());
+            target.setAngleZone(getInt(0));
+            target.setLSpeedZone(getInt(1));
+            target.setLDistanceZone(getInt(2));
+            target.setRDistanceZone(getInt(3));
+            target.setRSpeedZone(getInt(4));
+            target.setLeftStatus(getInt(5));
+            target.setRightStatus(getInt(6));
+            target.setRDistanceAlarm(getInt(7));
+            target.setRSpeedAlarm(getInt(8));
+            target.setLDistanceAlarm(getInt(9));
+            target.setLSpeedAlarm(getInt(10));
+            target.setAngleAlarm(getInt(11));
+            return target;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.opencsv.CSVWriter;
+import com.reeco.bas.transport.model.SyncPayload;
+
+import java.io.BufferedWriter;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streams session records into buffered, quoted CSV segments in the legacy export layout.
+ */
+public class SessionSegmentWriter extends SegmentWriter {
+    public static final String[] HEADER = {
+            "record_id",
+            "berth_id",
+            "time",
+            "org_id",
+            "angle_zone",
+            "lspeed_zone",
+            "ldistance_zone",
+            "rdistance_zone",
+            "rspeed_zone",
+            "left_speed",
+            "left_distance",
+            "right_speed",
+            "right_distance",
+            "angle",
+            "left_status",
+            "right_status",
+            "rdistance_alarm",
+            "rspeed_alarm",
+            "ldistance_alarm",
+            "lspeed_alarm",
+            "angle_alarm",
+            "created_at",
+            "updated_at",
+            "deleted_at",
+    };
+
+    public static final String SUFFIX = ".csv";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final SyncPayload record = new SyncPayload();
+    private CountingWriter countingWriter;
+    private CSVWriter csvWriter;
+
+    public SessionSegmentWriter(Path directory, long maxSegmentBytes, long maxSegmentAgeMs) throws IOException {
+        super(directory, SUFFIX, maxSegmentBytes, maxSegmentAgeMs);
+    }
+
+    public static String[] toRow(SyncPayload item) {
+        return new String[]{
+                String.valueOf(item.getRecordId()),
+                String.valueOf(item.getBerthId()),
+                item.getTime(),
+                String.valueOf(item.getOrgId()),
+                String.valueOf(item.getAngleZone()),
+                String.valueOf(item.getLSpeedZone()),
+                String.valueOf(item.getLDistanceZone()),
+                String.valueOf(item.getRDistanceZone()),
+                String.valueOf(item.getRSpeedZone()),
+                String.valueOf(item.getLeftSpeed()),
+                String.valueOf(item.getLeftDistance()),
+                String.valueOf(item.getRightSpeed()),
+                String.valueOf(item.getRightDistance()),
+                String.valueOf(item.getAngle()),
+                String.valueOf(item.getLeftStatus()),
+                String.valueOf(item.getRightStatus()),
+                String.valueOf(item.getRDistanceAlarm()),
+                String.valueOf(item.getRSpeedAlarm()),
+                String.valueOf(item.getLDistanceAlarm()),
+                String.valueOf(item.getLSpeedAlarm()),
+                String.valueOf(item.getAngleAlarm()),
+                item.getCreatedAt(),
+                item.getUpdatedAt(),
+                item.getDeletedAt() != null ? item.getDeletedAt() : ""
+        };
+    }
+
+    @Override
+    protected void openSegment(Path segment, SyncPayload first) throws IOException {
+        Writer fileWriter = Files.newBufferedWriter(segment, StandardCharsets.UTF_8);
+        countingWriter = new CountingWriter(new BufferedWriter(fileWriter, WRITE_BUFFER_SIZE));
+        csvWriter = new CSVWriter(countingWriter);
+        csvWriter.writeNext(HEADER);
+    }
+
+    @Override
+    protected void writeRecords(SessionColumns records, int from, int to) throws IOException {
+        SessionColumns.Cursor cursor = records.cursor();
+        for (int row = from; row < to; row++) {
+            cursor.moveTo(row).copyTo(record);
+            // Rows are ASCII and CSVWriter passes each one straight through, so the count is the row's byte offset
+            recorded(record, countingWriter.count);
+            csvWriter.writeNext(toRow(record));
+        }
+        csvWriter.flush();
+    }
+
+    @Override
+    protected long segmentBytes() {
+        return countingWriter.count;
+    }
+
+    @Override
+    protected void closeSegment() throws IOException {
+        csvWriter.close();
+        csvWriter = null;
+        countingWriter = null;
+    }
+
+    /**
+     * Drop a trailing partial row.
+     */
+    @Override
+    protected boolean repairSegment(Path segment) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            long position = file.length();
+            while (position > 0) {
+                file.seek(position - 1);
+                if (file.read() == '\n') {
+                    break;
+                }
+                position--;
+            }
+            file.setLength(position);
+            return position > 0;
+        }
+    }
+
+    private static class CountingWriter extends FilterWriter {
+        long count = 0;
+
+        CountingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            super.write(c);
+            count++;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            super.write(buffer, offset, length);
+            count += length;
+        }
+
+        @Override
+        public void write(String value, int offset, int length) throws IOException {
+            super.write(value, offset, length);
+            count += length;
+        }
+    }
+}
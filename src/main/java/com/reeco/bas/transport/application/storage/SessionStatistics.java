@@ -0,0 +1,169 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.reeco.bas.transport.infrastructure.codec.CombinedDataCodec;
+import com.reeco.bas.transport.model.SyncPayload;
+import lombok.Data;
+
+import java.util.Arrays;
+
+/**
+ * Per-session KPIs updated in O(1) per sample, so the summary is ready the moment the
+ * session stops. Zone times are attributed from the gap to the next sample; gaps longer
+ * than {@link #MAX_SAMPLE_GAP_MICROS} (a sensor timeout) are not counted. A side missing after
+ * a sensor timeout has zone 0 and is left out of the minimum distances.
+ */
+@Data
+public class SessionStatistics {
+    /** Zones are 1..3, statuses are counted up to 7 with anything above in the last bucket. */
+    private static final int ZONE_BUCKETS = 4;
+    private static final int STATUS_BUCKETS = 8;
+    private static final long MAX_SAMPLE_GAP_MICROS = 10_000_000L;
+
+    private int orgId;
+    private int berthId;
+    private int sessionId;
+    private String startTime;
+    private String endTime;
+    private long sampleCount;
+
+    private double minLeftDistance = Double.MAX_VALUE;
+    private double minRightDistance = Double.MAX_VALUE;
+    private double maxLeftSpeed;
+    private double maxRightSpeed;
+    private double maxAngle;
+
+    /** Milliseconds spent in each distance zone, indexed by zone. */
+    private long[] leftZoneMillis = new long[ZONE_BUCKETS];
+    private long[] rightZoneMillis = new long[ZONE_BUCKETS];
+
+    /** Samples per status id, indexed by status. */
+    private long[] angleStatusCounts = new long[STATUS_BUCKETS];
+    private long[] leftDistanceStatusCounts = new long[STATUS_BUCKETS];
+    private long[] rightDistanceStatusCounts = new long[STATUS_BUCKETS];
+    private long[] leftSpeedStatusCounts = new long[STATUS_BUCKETS];
+    private long[] rightSpeedStatusCounts = new long[STATUS_BUCKETS];
+
+    /** Frame quality of each sensor over the session, attached when the summary is taken. */
+    private SensorQualityStats leftQuality;
+    private SensorQualityStats rightQuality;
+
+    @JsonIgnore
+    private long previousTime = Long.MIN_VALUE;
+    @JsonIgnore
+    private int previousLeftZone;
+    @JsonIgnore
+    private int previousRightZone;
+
+    public synchronized void accept(SyncPayload sample) {
+        if (sampleCount == 0) {
+            orgId = sample.getOrgId();
+            berthId = sample.getBerthId();
+            sessionId = sample.getRecordId();
+            startTime = sample.getTime();
+        }
+        sampleCount++;
+        endTime = sample.getTime();
+
+        if (sample.getLDistanceZone() != 0) {
+            minLeftDistance = Math.min(minLeftDistance, sample.getLeftDistance());
+        }
+        if (sample.getRDistanceZone() != 0) {
+            minRightDistance = Math.min(minRightDistance, sample.getRightDistance());
+        }
+        maxLeftSpeed = Math.max(maxLeftSpeed, Math.abs(sample.getLeftSpeed()));
+        maxRightSpeed = Math.max(maxRightSpeed, Math.abs(sample.getRightSpeed()));
+        maxAngle = Math.max(maxAngle, Math.abs(sample.getAngle()));
+
+        long time = timeOf(sample);
+        if (previousTime != Long.MIN_VALUE && time != Long.MIN_VALUE) {
+            long gap = time - previousTime;
+            if (gap > 0 && gap <= MAX_SAMPLE_GAP_MICROS) {
+                leftZoneMillis[bucket(previousLeftZone, ZONE_BUCKETS)] += gap / 1000;
+                rightZoneMillis[bucket(previousRightZone, ZONE_BUCKETS)] += gap / 1000;
+            }
+        }
+        previousTime = time;
+        previousLeftZone = sample.getLDistanceZone();
+        previousRightZone = sample.getRDistanceZone();
+
+        angleStatusCounts[bucket(sample.getAngleAlarm(), STATUS_BUCKETS)]++;
+        leftDistanceStatusCounts[bucket(sample.getLDistanceAlarm(), STATUS_BUCKETS)]++;
+        rightDistanceStatusCounts[bucket(sample.getRDistanceAlarm(), STATUS_BUCKETS)]++;
+        leftSpeedStatusCounts[bucket(sample.getLSpeedAlarm(), STATUS_BUCKETS)]++;
+        rightSpeedStatusCounts[bucket(sample.getRSpeedAlarm(), STATUS_BUCKETS)]++;
+    }
+
+    /**
+     * @return true if {@code sample} belongs to another session than the one being summarised
+     */
+    public synchronized boolean isOtherSession(SyncPayload sample) {
+        return sampleCount > 0 && (sample.getRecordId() != sessionId || sample.getBerthId() != berthId
+                || sample.getOrgId() != orgId);
+    }
+
+    /**
+     * @return false for a blank sample that carries no session identity
+     */
+    public static boolean isSessionSample(SyncPayload sample) {
+        return sample != null && sample.getOrgId() != 0 && sample.getBerthId() != 0 && sample.getTime() != null;
+    }
+
+    public synchronized SessionStatistics copy() {
+        SessionStatistics copy = new SessionStatistics();
+        copy.orgId = orgId;
+        copy.berthId = berthId;
+        copy.sessionId = sessionId;
+        copy.startTime = startTime;
+        copy.endTime = endTime;
+        copy.sampleCount = sampleCount;
+        copy.minLeftDistance = minLeftDistance;
+        copy.minRightDistance = minRightDistance;
+        copy.maxLeftSpeed = maxLeftSpeed;
+        copy.maxRightSpeed = maxRightSpeed;
+        copy.maxAngle = maxAngle;
+        copy.leftZoneMillis = leftZoneMillis.clone();
+        copy.rightZoneMillis = rightZoneMillis.clone();
+        copy.angleStatusCounts = angleStatusCounts.clone();
+        copy.leftDistanceStatusCounts = leftDistanceStatusCounts.clone();
+        copy.rightDistanceStatusCounts = rightDistanceStatusCounts.clone();
+        copy.leftSpeedStatusCounts = leftSpeedStatusCounts.clone();
+        copy.rightSpeedStatusCounts = rightSpeedStatusCounts.clone();
+        copy.leftQuality = leftQuality == null ? null : leftQuality.copy();
+        copy.rightQuality = rightQuality == null ? null : rightQuality.copy();
+        copy.previousTime = previousTime;
+        copy.previousLeftZone = previousLeftZone;
+        copy.previousRightZone = previousRightZone;
+        return copy;
+    }
+
+    public synchronized void reset() {
+        sampleCount = 0;
+        startTime = null;
+        endTime = null;
+        minLeftDistance = Double.MAX_VALUE;
+        minRightDistance = Double.MAX_VALUE;
+        maxLeftSpeed = 0;
+        maxRightSpeed = 0;
+        maxAngle = 0;
+        for (long[] counters : new long[][]{leftZoneMillis, rightZoneMillis, angleStatusCounts, leftDistanceStatusCounts,
+                rightDistanceStatusCounts, leftSpeedStatusCounts, rightSpeedStatusCounts}) {
+            Arrays.fill(counters, 0);
+        }
+        leftQuality = null;
+        rightQuality = null;
+        previousTime = Long.MIN_VALUE;
+    }
+
+    private static int bucket(int value, int buckets) {
+        return Math.max(0, Math.min(value, buckets - 1));
+    }
+
+    private static long timeOf(SyncPayload sample) {
+        try {
+            return CombinedDataCodec.toEpochMicros(sample.getTime());
+        } catch (RuntimeException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+}
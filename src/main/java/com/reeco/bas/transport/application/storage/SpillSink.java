@@ -0,0 +1,36 @@
+package com.reeco.bas.transport.application.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Destination for full in-memory chunks of a session.
+ */
+public interface SpillSink {
+
+    /**
+     * Write out a chunk. The chunk is cleared and refilled afterwards, so it must not be kept.
+     */
+    void spill(SessionColumns chunk) throws IOException;
+
+    /**
+     * Finish the current session output.
+     * @return the last sealed file, or null if nothing was open
+     */
+    Path seal() throws IOException;
+
+    /**
+     * Drop everything written for the current session without sealing it.
+     */
+    void discard() throws IOException;
+
+    /**
+     * @return true while a session output is open
+     */
+    boolean isOpen();
+
+    /**
+     * @return number of records written for the current session
+     */
+    long spilledCount();
+}
@@ -0,0 +1,155 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent record of how far each sealed segment has been synced. Sealed segments never
+ * change, so a file whose size and modification time still match its entry is trusted
+ * without being read; the checksum is only recomputed when they differ.
+ */
+@Slf4j
+public class SyncManifest {
+    private static final int CHECKSUM_BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Entry> entries;
+    private boolean dirty = false;
+
+    @Data
+    public static class Entry {
+        private long size;
+        private long lastModified;
+        private long checksum;
+        /** Records already accepted by the sync API. */
+        private long syncedRecords;
+        /** Byte offset of the first unsynced CSV row; unused for archives. */
+        private long syncedBytes;
+        private boolean complete;
+    }
+
+    public SyncManifest(Path file) {
+        this.file = file;
+        this.entries = load(file);
+    }
+
+    /**
+     * @return the entry for {@code segment}, reset to the start if the file is new or its
+     * content changed since it was last synced
+     */
+    public synchronized Entry entryFor(Path segment) throws IOException {
+        String name = segment.getFileName().toString();
+        long size = Files.size(segment);
+        long lastModified = Files.getLastModifiedTime(segment).toMillis();
+        Entry entry = entries.get(name);
+        if (entry != null && entry.getSize() == size && entry.getLastModified() == lastModified) {
+            return entry;
+        }
+
+        long checksum = checksum(segment);
+        if (entry == null || entry.getChecksum() != checksum) {
+            if (entry != null) {
+                log.warn("Segment {} changed since it was last synced, syncing it again", name);
+            }
+            entry = new Entry();
+            entry.setChecksum(checksum);
+            entries.put(name, entry);
+        }
+        entry.setSize(size);
+        entry.setLastModified(lastModified);
+        dirty = true;
+        return entry;
+    }
+
+    /**
+     * @return whether every record of the named segment was accepted by the sync API
+     */
+    public synchronized boolean isComplete(String segmentName) {
+        Entry entry = entries.get(segmentName);
+        return entry != null && entry.isComplete();
+    }
+
+    /**
+     * Record that {@code records} more records were accepted, up to CSV byte offset {@code syncedBytes}.
+     */
+    public synchronized void checkpoint(Entry entry, int records, long syncedBytes) {
+        entry.setSyncedRecords(entry.getSyncedRecords() + records);
+        entry.setSyncedBytes(syncedBytes);
+        dirty = true;
+        save();
+    }
+
+    public synchronized void markComplete(Entry entry) {
+        entry.setComplete(true);
+        dirty = true;
+        save();
+    }
+
+    /**
+     * Forget segments that no longer exist.
+     */
+    public synchronized void retain(Collection<String> segmentNames) {
+        dirty |= entries.keySet().retainAll(segmentNames);
+    }
+
+    /**
+     * Write the manifest if it changed. The file is replaced atomically, so a crash leaves
+     * either the old or the new version.
+     */
+    public synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), entries);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            log.error("Failed to save sync manifest {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Map<String, Entry> load(Path path) {
+        if (!Files.exists(path)) {
+            return new TreeMap<>();
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            return objectMapper.readValue(in, new TypeReference<TreeMap<String, Entry>>() {
+            });
+        } catch (IOException e) {
+            // Losing the manifest only costs a re-sync, never data
+            log.error("Failed to read sync manifest {}, starting from scratch: {}", path, e.getMessage());
+            return new TreeMap<>();
+        }
+    }
+
+    private static long checksum(Path segment) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(CHECKSUM_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+}
@@ -2,10 +2,17 @@ package com.reeco.bas.transport.infrastructure;
 
 import com.reeco.bas.transport.application.DataService;
 import com.reeco.bas.transport.application.MessageService;
+import com.reeco.bas.transport.application.SensorQualityMonitor;
+import com.reeco.bas.transport.infrastructure.health.HealthRegistry;
+import com.reeco.bas.transport.infrastructure.health.SerialPortHealth;
+import com.reeco.bas.transport.infrastructure.jfr.ParseEvent;
+import com.reeco.bas.transport.infrastructure.metrics.PipelineMetrics;
 import com.reeco.bas.transport.model.SensorData;
 import com.reeco.bas.transport.receiver.SerialPortReader;
 import com.reeco.bas.transport.utils.annotators.Infrastructure;
+import com.reeco.bas.transport.utils.logging.TelemetryLog;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import lombok.extern.slf4j.Slf4j;
@@ -17,12 +24,18 @@ import com.reeco.bas.transport.model.DataModel;
 import org.springframework.scheduling.annotation.Scheduled;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Infrastructure
 @RequiredArgsConstructor
 @Slf4j
 public class DeviceHandler {
 
+    /** Returned by {@link #parseData} for a frame that could not be parsed. */
+    private static final SensorData PARSE_FAILED = new SensorData(0d, -1d, 0d);
+
     @Value("ttyS2")
     private String LEFT_SENSOR_PORT;
 
@@ -38,6 +51,18 @@ public class DeviceHandler {
     @Value("${data.threshold.weak-signal}")
     private Integer WEAK_SIGNAL_THRESHOLD;
 
+    @Value("${health.serial.stale-after:10000}")
+    private long STALE_AFTER_MS;
+
+    @Value("${health.serial.min-frame-rate:0.2}")
+    private double MIN_FRAME_RATE;
+
+    @Value("${health.watchdog.interval:5000}")
+    private long WATCHDOG_INTERVAL_MS;
+
+    @Value("${health.watchdog.max-backoff:60000}")
+    private long WATCHDOG_MAX_BACKOFF_MS;
+
     private Double lastValidLeftSpeed;
 
     private Double lastValidLeftDistance;
@@ -52,11 +77,33 @@ public class DeviceHandler {
     @Autowired
     private MessageService messageService;
 
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private HealthRegistry healthRegistry;
+
+    @Autowired
+    private SensorQualityMonitor sensorQualityMonitor;
+
+    private SerialPortReader leftReader;
+
+    private SerialPortReader rightReader;
+
+    private ScheduledExecutorService watchdog;
+
+    /** Current restart delay and next restart time of each reader, only touched by the watchdog thread. */
+    private final long[] restartBackoffMs = new long[SensorsType.values().length];
+    private final long[] nextRestartAt = new long[SensorsType.values().length];
+
     @Scheduled(cron="0 * * * * *")
     public void processCsvFiles() {
         log.info("[SERVICE] Starting CSV processing at {}", LocalDateTime.now());
     }
-    public SensorData parseData(String input){
+    public SensorData parseData(String input, SensorsType sensor){
+        long parseStart = System.nanoTime();
+        ParseEvent parseEvent = new ParseEvent();
+        parseEvent.begin();
         try {
         String cleanedInput = input.substring(1).trim();
 
@@ -71,12 +118,39 @@ public class DeviceHandler {
         Double signalStrengthValue = Double.parseDouble(signalStrength);
 
         SensorData sensorData = new SensorData(speedValue, distanceValue, signalStrengthValue);
+        parseEvent.success = true;
         return sensorData;
         }
         catch (Exception ex) {
-            System.out.println(input);
-            return new SensorData(0d,-1d,0d);
+            pipelineMetrics.parseFailed(sensor);
+            log.warn("Failed to parse {} sensor frame: {}", sensor, input);
+            return PARSE_FAILED;
+        }
+        finally {
+            pipelineMetrics.record(PipelineMetrics.Stage.PARSE, parseStart);
+            if (parseEvent.shouldCommit()) {
+                parseEvent.sensor = sensor.name();
+                parseEvent.bytes = input == null ? 0 : input.length();
+                parseEvent.commit();
+            }
+        }
+    }
+
+    /**
+     * Classify the frame the same way as the error codes: out of target first, then weak signal.
+     */
+    private void recordQuality(SensorsType sensor, SensorData sensorData) {
+        if (sensorData == PARSE_FAILED) {
+            sensorQualityMonitor.parseFailed(sensor);
+            return;
         }
+        boolean outOfTarget = sensorData.distance < 0;
+        boolean weak = !outOfTarget && sensorData.signalStrength < WEAK_SIGNAL_THRESHOLD;
+        sensorQualityMonitor.frameParsed(sensor, sensorData.signalStrength, weak, outOfTarget);
+    }
+
+    public SerialPortReader getReader(SensorsType sensor) {
+        return sensor == SensorsType.LEFT ? leftReader : rightReader;
     }
 
     @PostConstruct
@@ -85,18 +159,20 @@ public class DeviceHandler {
         SerialPort[] ports = SerialPort.getCommPorts();
         
         for (SerialPort port : ports) {
-            System.out.println("Available Port: " + port.getSystemPortName());
+            log.info("Available port: {}", port.getSystemPortName());
         }
 
-        System.out.println("[TRANSPORT] Receiving data from: "+LEFT_SENSOR_PORT);
-        SerialPortReader leftReader = new SerialPortReader(LEFT_SENSOR_PORT);
+        log.info("[TRANSPORT] Receiving data from: {}", LEFT_SENSOR_PORT);
+        leftReader = new SerialPortReader(LEFT_SENSOR_PORT, pipelineMetrics);
         
-        leftReader.setDataListener(data -> {
-             System.out.println("[LEFT SENSOR] Data received: " + data);
-            SensorData sensorData = parseData(data);
+        leftReader.setDataListener((data, capture) -> {
+            TelemetryLog.SERIAL.info("[LEFT SENSOR] Data received: {}", data);
+            pipelineMetrics.sampleReceived(SensorsType.LEFT);
+            SensorData sensorData = parseData(data, SensorsType.LEFT);
+            pipelineMetrics.recordLatency(PipelineMetrics.Hop.PARSE, capture);
+            recordQuality(SensorsType.LEFT, sensorData);
             
             DataModel dataRecord = new DataModel(ORGANIZATION_ID,BERTH_ID,SensorsType.LEFT,sensorData.speed,sensorData.distance,0,"");
-            // System.out.println("TTYS0 sensor " + dataRecord.toString());
             // sensorData.distance = -1.0;
             if (sensorData.distance < 0){
                 dataRecord.error_code = 1011;
@@ -115,25 +191,26 @@ public class DeviceHandler {
                 lastValidLeftDistance = sensorData.distance;
                 lastValidLeftSpeed = sensorData.speed;
             }
-            log.info("[RAW DATA] TTYS0 sensor: "+ dataRecord.toString()+" Signal: "+ sensorData.signalStrength);
+            TelemetryLog.RAW.info("[RAW DATA] TTYS0 sensor: {} Signal: {}", dataRecord, sensorData.signalStrength);
 
             try{
                 messageService.sendDataRecord(dataRecord);
-                dataService.processData(dataRecord);
+                dataService.processData(dataRecord, capture);
             } catch (Exception e) {
-                e.printStackTrace();
+                log.error("Failed to process left sensor record: {}", e.getMessage(), e);
             }
         });
         leftReader.startListening();
 
-        System.out.println("[TRANSPORT] Receiving data from: "+RIGHT_SENSOR_PORT);
-        SerialPortReader rightReader = new SerialPortReader(RIGHT_SENSOR_PORT);
+        log.info("[TRANSPORT] Receiving data from: {}", RIGHT_SENSOR_PORT);
+        rightReader = new SerialPortReader(RIGHT_SENSOR_PORT, pipelineMetrics);
         
-        rightReader.startListening();
-        rightReader.setDataListener(data -> {
-             System.out.println("[RIGHT SENSOR] Data received: " + data);
-            SensorData sensorData = parseData(data);
-            // System.out.println("TTYS1 sensor: " + sensorData.toString());
+        rightReader.setDataListener((data, capture) -> {
+            TelemetryLog.SERIAL.info("[RIGHT SENSOR] Data received: {}", data);
+            pipelineMetrics.sampleReceived(SensorsType.RIGHT);
+            SensorData sensorData = parseData(data, SensorsType.RIGHT);
+            pipelineMetrics.recordLatency(PipelineMetrics.Hop.PARSE, capture);
+            recordQuality(SensorsType.RIGHT, sensorData);
             DataModel dataRecord = new DataModel(ORGANIZATION_ID,BERTH_ID,SensorsType.RIGHT,sensorData.speed,sensorData.distance,0,"");
 
             if (sensorData.distance < 0){
@@ -152,17 +229,80 @@ public class DeviceHandler {
                 lastValidRightDistance = sensorData.distance;
                 lastValidRightSpeed = sensorData.speed;
             }
-            log.info("[RAW DATA] TTYS1 sensor: "+ dataRecord.toString() +" Signal: "+ sensorData.signalStrength);
+            TelemetryLog.RAW.info("[RAW DATA] TTYS1 sensor: {} Signal: {}", dataRecord, sensorData.signalStrength);
 
             try{
                 messageService.sendDataRecord(dataRecord);
-                dataService.processData(dataRecord);
+                dataService.processData(dataRecord, capture);
             } catch (Exception e) {
-                e.printStackTrace();
+                log.error("Failed to process right sensor record: {}", e.getMessage(), e);
             }
 
         });
+        rightReader.startListening();
+
+        healthRegistry.register("serial.left", new SerialPortHealth(() -> leftReader, STALE_AFTER_MS, MIN_FRAME_RATE));
+        healthRegistry.register("serial.right", new SerialPortHealth(() -> rightReader, STALE_AFTER_MS, MIN_FRAME_RATE));
+
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reader-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.scheduleWithFixedDelay(this::watchReaders, WATCHDOG_INTERVAL_MS, WATCHDOG_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
 
+    /**
+     * Restart a reader whose thread died or whose port could not be opened, so an unplugged
+     * or crashed sensor comes back without restarting the service. Runs on its own thread, so
+     * long scheduled jobs cannot delay it. A port that stays unavailable is retried with a
+     * doubling delay up to {@code health.watchdog.max-backoff}.
+     */
+    void watchReaders() {
+        try {
+            long now = System.currentTimeMillis();
+            for (SensorsType sensor : SensorsType.values()) {
+                SerialPortReader reader = getReader(sensor);
+                int index = sensor.ordinal();
+                if (reader == null || reader.isAlive()) {
+                    restartBackoffMs[index] = 0;
+                    continue;
+                }
+                if (now < nextRestartAt[index]) {
+                    continue;
+                }
+                if (restartBackoffMs[index] == 0) {
+                    log.warn("[WATCHDOG] {} sensor reader on {} is not running, restarting", sensor, reader.getPortName());
+                }
+                pipelineMetrics.readerRestarted(sensor);
+                if (reader.startListening()) {
+                    restartBackoffMs[index] = 0;
+                    continue;
+                }
+                restartBackoffMs[index] = restartBackoffMs[index] == 0
+                        ? WATCHDOG_INTERVAL_MS
+                        : Math.min(restartBackoffMs[index] * 2, WATCHDOG_MAX_BACKOFF_MS);
+                nextRestartAt[index] = now + restartBackoffMs[index];
+                log.warn("[WATCHDOG] {} sensor port {} still cannot be opened, retrying in {} ms",
+                        sensor, reader.getPortName(), restartBackoffMs[index]);
+            }
+        } catch (RuntimeException e) {
+            // An exception would cancel the periodic task
+            log.error("[WATCHDOG] Failed to check the sensor readers: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void stopReaders() {
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+        }
+        if (leftReader != null) {
+            leftReader.stopListening();
+        }
+        if (rightReader != null) {
+            rightReader.stopListening();
+        }
     }
 
 }
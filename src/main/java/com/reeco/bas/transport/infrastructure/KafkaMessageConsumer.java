@@ -47,7 +47,7 @@ public class KafkaMessageConsumer {
 
         }
         catch (Exception e) {
-            e.printStackTrace();
+            log.error("Failed to apply config event: {}", e.getMessage(), e);
         }
 
     }
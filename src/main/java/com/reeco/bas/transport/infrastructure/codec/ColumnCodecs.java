@@ -0,0 +1,199 @@
+package com.reeco.bas.transport.infrastructure.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Column encodings for time series blocks: delta-of-delta for timestamps, XOR compression
+ * of consecutive doubles (as in Facebook's Gorilla) and run-length encoding for small
+ * categorical ints such as zones and statuses.
+ */
+public final class ColumnCodecs {
+
+    private ColumnCodecs() {
+    }
+
+    public static void writeDeltaOfDelta(GrowableBuffer out, long[] values, int count) {
+        if (count == 0) {
+            return;
+        }
+        VarInts.writeSigned(out, values[0]);
+        long previousDelta = 0;
+        for (int i = 1; i < count; i++) {
+            long delta = values[i] - values[i - 1];
+            VarInts.writeSigned(out, delta - previousDelta);
+            previousDelta = delta;
+        }
+    }
+
+    public static void readDeltaOfDelta(ByteBuffer in, long[] values, int count) {
+        if (count == 0) {
+            return;
+        }
+        values[0] = VarInts.readSigned(in);
+        long delta = 0;
+        for (int i = 1; i < count; i++) {
+            delta += VarInts.readSigned(in);
+            values[i] = values[i - 1] + delta;
+        }
+    }
+
+    public static void writeRunLength(GrowableBuffer out, int[] values, int count) {
+        int i = 0;
+        while (i < count) {
+            int value = values[i];
+            int run = 1;
+            while (i + run < count && values[i + run] == value) {
+                run++;
+            }
+            VarInts.writeSigned(out, value);
+            VarInts.writeUnsigned(out, run);
+            i += run;
+        }
+    }
+
+    public static void readRunLength(ByteBuffer in, int[] values, int count) {
+        int i = 0;
+        while (i < count) {
+            int value = (int) VarInts.readSigned(in);
+            int run = (int) VarInts.readUnsigned(in);
+            if (run <= 0 || i + run > count) {
+                throw new IllegalArgumentException("Corrupt run length " + run + " at " + i + "/" + count);
+            }
+            Arrays.fill(values, i, i + run, value);
+            i += run;
+        }
+    }
+
+    /**
+     * Each value is XORed with its predecessor. An unchanged value costs one bit; otherwise
+     * only the meaningful bits between the leading and trailing zeros are stored, reusing
+     * the previous window when they fit. The bit stream is prefixed with its byte length.
+     */
+    public static void writeXorDoubles(GrowableBuffer out, double[] values, int count) {
+        if (count == 0) {
+            VarInts.writeUnsigned(out, 0);
+            return;
+        }
+        BitWriter bits = new BitWriter(count * 2 + 8);
+        long previous = Double.doubleToRawLongBits(values[0]);
+        bits.write(previous, 64);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for (int i = 1; i < count; i++) {
+            long current = Double.doubleToRawLongBits(values[i]);
+            long xor = current ^ previous;
+            previous = current;
+            if (xor == 0) {
+                bits.write(0, 1);
+                continue;
+            }
+            bits.write(1, 1);
+            int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                bits.write(0, 1);
+                bits.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int significant = 64 - leading - trailing;
+                bits.write(1, 1);
+                bits.write(leading, 5);
+                bits.write(significant - 1, 6);
+                bits.write(xor >>> trailing, significant);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+        byte[] encoded = bits.toByteArray();
+        VarInts.writeUnsigned(out, encoded.length);
+        out.put(encoded, 0, encoded.length);
+    }
+
+    public static void readXorDoubles(ByteBuffer in, double[] values, int count) {
+        int length = (int) VarInts.readUnsigned(in);
+        if (count == 0) {
+            in.position(in.position() + length);
+            return;
+        }
+        BitReader bits = new BitReader(in, length);
+        long previous = bits.read(64);
+        values[0] = Double.longBitsToDouble(previous);
+        int previousLeading = 0;
+        int previousTrailing = 0;
+        for (int i = 1; i < count; i++) {
+            if (bits.read(1) != 0) {
+                long xor;
+                if (bits.read(1) == 0) {
+                    xor = bits.read(64 - previousLeading - previousTrailing) << previousTrailing;
+                } else {
+                    previousLeading = (int) bits.read(5);
+                    int significant = (int) bits.read(6) + 1;
+                    previousTrailing = 64 - previousLeading - significant;
+                    xor = bits.read(significant) << previousTrailing;
+                }
+                previous ^= xor;
+            }
+            values[i] = Double.longBitsToDouble(previous);
+        }
+        in.position(bits.end);
+    }
+
+    private static final class BitWriter {
+        private final GrowableBuffer out;
+        private int current;
+        private int pending;
+
+        BitWriter(int initialCapacity) {
+            this.out = new GrowableBuffer(initialCapacity);
+        }
+
+        void write(long value, int bitCount) {
+            for (int i = bitCount - 1; i >= 0; i--) {
+                current = (current << 1) | (int) ((value >>> i) & 1);
+                if (++pending == 8) {
+                    out.put((byte) current);
+                    current = 0;
+                    pending = 0;
+                }
+            }
+        }
+
+        byte[] toByteArray() {
+            if (pending > 0) {
+                out.put((byte) (current << (8 - pending)));
+                current = 0;
+                pending = 0;
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static final class BitReader {
+        private final ByteBuffer in;
+        private final int end;
+        private int position;
+        private int current;
+        private int remaining;
+
+        BitReader(ByteBuffer in, int length) {
+            this.in = in;
+            this.position = in.position();
+            this.end = position + length;
+        }
+
+        long read(int bitCount) {
+            long value = 0;
+            for (int i = 0; i < bitCount; i++) {
+                if (remaining == 0) {
+                    if (position >= end) {
+                        throw new IllegalArgumentException("XOR column overruns its length");
+                    }
+                    current = in.get(position++) & 0xFF;
+                    remaining = 8;
+                }
+                value = (value << 1) | ((current >>> --remaining) & 1);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.reeco.bas.transport.infrastructure.codec;
+
+import com.reeco.bas.transport.model.CombinedData;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compact binary encoding for batches of {@link CombinedData}.
+ *
+ * <pre>
+ * header : magic(2) version(1) count(varint) orgid(varint) berth_id(varint) session_id(varint) base_time_micros(8)
+ * record : flags(1) [null_flags(1), FLAG_NULLS] [orgid berth_id session_id](varint, FLAG_IDENTITY)
+ *          time_delta_micros(zigzag) error_code(varint) [error_msg(varint length + UTF-8), FLAG_ERROR_MSG]
+ *          per present metric (angle, distance.ss01, distance.ss02, speed.ss01, speed.ss02):
+ *              value_delta(zigzag, fixed point 1e-4) status_id(varint) zone(varint)
+ * </pre>
+ *
+ * Timestamps and values are delta-encoded against the previous record of the batch, so a
+ * stationary vessel costs only a few bytes per record.
+ * <p>
+ * Decoding gives back the encoded records field for field, nulls included, with one loss:
+ * metric values are rounded to 1e-4 and event times to the microsecond. The null flags byte is
+ * only written for a record with a null distance, speed, error_msg or event_time.
+ */
+public final class CombinedDataCodec {
+    public static final byte VERSION = 1;
+    public static final String FORMAT_NAME = "bas-combined-v1";
+
+    private static final byte MAGIC_0 = (byte) 0xBA;
+    private static final byte MAGIC_1 = (byte) 0x5D;
+    private static final double VALUE_SCALE = 10_000d;
+    private static final ZoneOffset EVENT_TIME_OFFSET = ZoneOffset.ofHours(7);
+    private static final DateTimeFormatter EVENT_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSS");
+
+    // Bits 0-4 of the flags byte mark which metric slots are present
+    private static final int FLAG_ERROR_MSG = 0x20;
+    private static final int FLAG_IDENTITY = 0x40;
+    private static final int FLAG_NULLS = 0x80;
+
+    private static final int NULL_DISTANCE = 0x01;
+    private static final int NULL_SPEED = 0x02;
+    private static final int NULL_ERROR_MSG = 0x04;
+    private static final int NULL_EVENT_TIME = 0x08;
+
+    private static final int SLOT_COUNT = 5;
+
+    private CombinedDataCodec() {
+    }
+
+    public static byte[] encode(List<CombinedData> records) {
+        GrowableBuffer out = new GrowableBuffer(32 + records.size() * 24);
+        out.put(MAGIC_0);
+        out.put(MAGIC_1);
+        out.put(VERSION);
+        VarInts.writeUnsigned(out, records.size());
+        if (records.isEmpty()) {
+            return out.toByteArray();
+        }
+
+        CombinedData first = records.get(0);
+        int orgId = first.getOrgid();
+        int berthId = first.getBerth_id();
+        int sessionId = first.getSession_id();
+        long previousTime = toEpochMicros(first.getEvent_time());
+        VarInts.writeUnsigned(out, orgId);
+        VarInts.writeUnsigned(out, berthId);
+        VarInts.writeUnsigned(out, sessionId);
+        out.putLong(previousTime);
+
+        long[] previousValues = new long[SLOT_COUNT];
+        for (CombinedData record : records) {
+            Metric[] metrics = metricsOf(record);
+            boolean identityChanged = record.getOrgid() != orgId
+                    || record.getBerth_id() != berthId
+                    || record.getSession_id() != sessionId;
+            boolean hasErrorMsg = record.getError_msg() != null && !record.getError_msg().isEmpty();
+
+            int flags = 0;
+            for (int slot = 0; slot < SLOT_COUNT; slot++) {
+                if (metrics[slot] != null) {
+                    flags |= 1 << slot;
+                }
+            }
+            if (hasErrorMsg) {
+                flags |= FLAG_ERROR_MSG;
+            }
+            if (identityChanged) {
+                flags |= FLAG_IDENTITY;
+            }
+            int nullFlags = nullFlagsOf(record);
+            if (nullFlags != 0) {
+                flags |= FLAG_NULLS;
+            }
+            out.put((byte) flags);
+            if (nullFlags != 0) {
+                out.put((byte) nullFlags);
+            }
+
+            if (identityChanged) {
+                orgId = record.getOrgid();
+                berthId = record.getBerth_id();
+                sessionId = record.getSession_id();
+                VarInts.writeUnsigned(out, orgId);
+                VarInts.writeUnsigned(out, berthId);
+                VarInts.writeUnsigned(out, sessionId);
+            }
+
+            if (record.getEvent_time() != null) {
+                long time = toEpochMicros(record.getEvent_time());
+                VarInts.writeSigned(out, time - previousTime);
+                previousTime = time;
+            } else {
+                VarInts.writeSigned(out, 0);
+            }
+
+            VarInts.writeUnsigned(out, record.getError_code());
+            if (hasErrorMsg) {
+                byte[] message = record.getError_msg().getBytes(StandardCharsets.UTF_8);
+                VarInts.writeUnsigned(out, message.length);
+                out.put(message, 0, message.length);
+            }
+
+            for (int slot = 0; slot < SLOT_COUNT; slot++) {
+                Metric metric = metrics[slot];
+                if (metric == null) {
+                    continue;
+                }
+                long fixed = Math.round(metric.value * VALUE_SCALE);
+                VarInts.writeSigned(out, fixed - previousValues[slot]);
+                previousValues[slot] = fixed;
+                VarInts.writeUnsigned(out, metric.statusId);
+                VarInts.writeUnsigned(out, metric.zone);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static List<CombinedData> decode(byte[] payload) {
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        if (in.get() != MAGIC_0 || in.get() != MAGIC_1) {
+            throw new IllegalArgumentException("Not a " + FORMAT_NAME + " payload");
+        }
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported " + FORMAT_NAME + " version: " + version);
+        }
+        int count = (int) VarInts.readUnsigned(in);
+        List<CombinedData> records = new ArrayList<>(count);
+        if (count == 0) {
+            return records;
+        }
+
+        int orgId = (int) VarInts.readUnsigned(in);
+        int berthId = (int) VarInts.readUnsigned(in);
+        int sessionId = (int) VarInts.readUnsigned(in);
+        long time = in.getLong();
+
+        long[] previousValues = new long[SLOT_COUNT];
+        for (int i = 0; i < count; i++) {
+            int flags = in.get() & 0xFF;
+            int nullFlags = (flags & FLAG_NULLS) != 0 ? in.get() & 0xFF : 0;
+            if ((flags & FLAG_IDENTITY) != 0) {
+                orgId = (int) VarInts.readUnsigned(in);
+                berthId = (int) VarInts.readUnsigned(in);
+                sessionId = (int) VarInts.readUnsigned(in);
+            }
+            time += VarInts.readSigned(in);
+            int errorCode = (int) VarInts.readUnsigned(in);
+            String errorMsg = (nullFlags & NULL_ERROR_MSG) != 0 ? null : "";
+            if ((flags & FLAG_ERROR_MSG) != 0) {
+                byte[] message = new byte[(int) VarInts.readUnsigned(in)];
+                in.get(message);
+                errorMsg = new String(message, StandardCharsets.UTF_8);
+            }
+
+            Metric[] metrics = new Metric[SLOT_COUNT];
+            for (int slot = 0; slot < SLOT_COUNT; slot++) {
+                if ((flags & (1 << slot)) == 0) {
+                    continue;
+                }
+                previousValues[slot] += VarInts.readSigned(in);
+                int statusId = (int) VarInts.readUnsigned(in);
+                int zone = (int) VarInts.readUnsigned(in);
+                metrics[slot] = new Metric(previousValues[slot] / VALUE_SCALE, statusId, zone);
+            }
+
+            records.add(CombinedData.builder()
+                    .orgid(orgId)
+                    .berth_id(berthId)
+                    .session_id(sessionId)
+                    .angle(metrics[0] == null ? null : CombinedData.AngleData.builder()
+                            .value(metrics[0].value)
+                            .status_id(metrics[0].statusId)
+                            .zone(metrics[0].zone)
+                            .build())
+                    .distance((nullFlags & NULL_DISTANCE) != 0 ? null : CombinedData.SensorMetrics.builder()
+                            .ss01(toSensorData(metrics[1]))
+                            .ss02(toSensorData(metrics[2]))
+                            .build())
+                    .speed((nullFlags & NULL_SPEED) != 0 ? null : CombinedData.SensorMetrics.builder()
+                            .ss01(toSensorData(metrics[3]))
+                            .ss02(toSensorData(metrics[4]))
+                            .build())
+                    .event_time((nullFlags & NULL_EVENT_TIME) != 0 ? null : fromEpochMicros(time))
+                    .error_code(errorCode)
+                    .error_msg(errorMsg)
+                    .build());
+        }
+        return records;
+    }
+
+    public static long toEpochMicros(String eventTime) {
+        if (eventTime == null || eventTime.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime local = LocalDateTime.parse(eventTime, EVENT_TIME_FORMAT);
+        return TimeUnit.SECONDS.toMicros(local.toEpochSecond(EVENT_TIME_OFFSET))
+                + TimeUnit.NANOSECONDS.toMicros(local.getNano());
+    }
+
+    public static String fromEpochMicros(long epochMicros) {
+        long seconds = Math.floorDiv(epochMicros, 1_000_000L);
+        int nanos = (int) Math.floorMod(epochMicros, 1_000_000L) * 1000;
+        return LocalDateTime.ofEpochSecond(seconds, nanos, EVENT_TIME_OFFSET).format(EVENT_TIME_FORMAT);
+    }
+
+    private static int nullFlagsOf(CombinedData record) {
+        int nullFlags = 0;
+        if (record.getDistance() == null) {
+            nullFlags |= NULL_DISTANCE;
+        }
+        if (record.getSpeed() == null) {
+            nullFlags |= NULL_SPEED;
+        }
+        if (record.getError_msg() == null) {
+            nullFlags |= NULL_ERROR_MSG;
+        }
+        if (record.getEvent_time() == null) {
+            nullFlags |= NULL_EVENT_TIME;
+        }
+        return nullFlags;
+    }
+
+    private static Metric[] metricsOf(CombinedData record) {
+        Metric[] metrics = new Metric[SLOT_COUNT];
+        CombinedData.AngleData angle = record.getAngle();
+        if (angle != null) {
+            metrics[0] = new Metric(angle.getValue(), angle.getStatus_id(), angle.getZone());
+        }
+        if (record.getDistance() != null) {
+            metrics[1] = Metric.of(record.getDistance().getSs01());
+            metrics[2] = Metric.of(record.getDistance().getSs02());
+        }
+        if (record.getSpeed() != null) {
+            metrics[3] = Metric.of(record.getSpeed().getSs01());
+            metrics[4] = Metric.of(record.getSpeed().getSs02());
+        }
+        return metrics;
+    }
+
+    private static CombinedData.SensorData toSensorData(Metric metric) {
+        if (metric == null) {
+            return null;
+        }
+        return CombinedData.SensorData.builder()
+                .value(metric.value)
+                .status_id(metric.statusId)
+                .zone(metric.zone)
+                .build();
+    }
+
+    private static final class Metric {
+        final double value;
+        final int statusId;
+        final int zone;
+
+        Metric(double value, int statusId, int zone) {
+            this.value = value;
+            this.statusId = statusId;
+            this.zone = zone;
+        }
+
+        static Metric of(CombinedData.SensorData data) {
+            return data == null ? null : new Metric(data.getValue(), data.getStatus_id(), data.getZone());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.reeco.bas.transport.infrastructure.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reeco.bas.transport.model.CombinedData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts {@link CombinedDataCodec} payloads back into the JSON documents older consumers expect.
+ */
+public final class CombinedDataJsonTranslator {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private CombinedDataJsonTranslator() {
+    }
+
+    /**
+     * @return one JSON document per record, identical in shape to what MessageService used to post
+     */
+    public static List<String> toJsonRecords(byte[] payload) throws JsonProcessingException {
+        List<CombinedData> records = CombinedDataCodec.decode(payload);
+        List<String> documents = new ArrayList<>(records.size());
+        for (CombinedData record : records) {
+            documents.add(objectMapper.writeValueAsString(record));
+        }
+        return documents;
+    }
+
+    /**
+     * @return the whole batch as a JSON array
+     */
+    public static String toJsonArray(byte[] payload) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(CombinedDataCodec.decode(payload));
+    }
+}
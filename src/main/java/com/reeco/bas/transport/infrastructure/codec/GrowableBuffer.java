@@ -0,0 +1,51 @@
+package com.reeco.bas.transport.infrastructure.codec;
+
+import java.util.Arrays;
+
+/**
+ * Minimal append-only byte buffer used by the encoders.
+ */
+public final class GrowableBuffer {
+    private byte[] bytes;
+    private int size;
+
+    public GrowableBuffer(int initialCapacity) {
+        this.bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public void put(byte b) {
+        ensureCapacity(1);
+        bytes[size++] = b;
+    }
+
+    public void put(byte[] source, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(source, offset, bytes, size, length);
+        size += length;
+    }
+
+    public void putLong(long value) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            bytes[size++] = (byte) (value >>> shift);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+}
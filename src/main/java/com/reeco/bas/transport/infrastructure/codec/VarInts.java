@@ -0,0 +1,44 @@
+package com.reeco.bas.transport.infrastructure.codec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * LEB128 variable-length integers with zigzag encoding for signed values.
+ */
+public final class VarInts {
+
+    private VarInts() {
+    }
+
+    public static void writeUnsigned(GrowableBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    public static void writeSigned(GrowableBuffer out, long value) {
+        writeUnsigned(out, (value << 1) ^ (value >> 63));
+    }
+
+    public static long readUnsigned(ByteBuffer in) {
+        long result = 0;
+        int shift = 0;
+        while (shift < 64) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+        throw new BufferUnderflowException();
+    }
+
+    public static long readSigned(ByteBuffer in) {
+        long raw = readUnsigned(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+}
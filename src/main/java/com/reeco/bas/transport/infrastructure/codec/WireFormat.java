@@ -0,0 +1,6 @@
+package com.reeco.bas.transport.infrastructure.codec;
+
+public enum WireFormat {
+    JSON,
+    BINARY
+}
@@ -0,0 +1,21 @@
+package com.reeco.bas.transport.infrastructure.health;
+
+import java.util.Map;
+
+/**
+ * Result of one health check, with the figures that led to it.
+ */
+public record ComponentHealth(HealthStatus status, String reason, Map<String, Object> details) {
+
+    public static ComponentHealth up(Map<String, Object> details) {
+        return new ComponentHealth(HealthStatus.UP, null, details);
+    }
+
+    public static ComponentHealth degraded(String reason, Map<String, Object> details) {
+        return new ComponentHealth(HealthStatus.DEGRADED, reason, details);
+    }
+
+    public static ComponentHealth down(String reason, Map<String, Object> details) {
+        return new ComponentHealth(HealthStatus.DOWN, reason, details);
+    }
+}
@@ -0,0 +1,32 @@
+package com.reeco.bas.transport.infrastructure.health;
+
+import com.reeco.bas.transport.utils.annotators.Infrastructure;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.Map;
+
+/**
+ * Publishes the {@link HealthRegistry} through the actuator health endpoint, which is
+ * exposed over JMX. A degraded gateway reports {@code OUT_OF_SERVICE}.
+ */
+@Infrastructure
+public class GatewayHealthIndicator implements org.springframework.boot.actuate.health.HealthIndicator {
+
+    @Autowired
+    private HealthRegistry healthRegistry;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = switch (healthRegistry.getStatus()) {
+            case UP -> Health.up();
+            case DEGRADED -> Health.status(Status.OUT_OF_SERVICE);
+            case DOWN -> Health.down();
+        };
+        for (Map.Entry<String, ComponentHealth> entry : healthRegistry.getSnapshot().entrySet()) {
+            builder.withDetail(entry.getKey(), entry.getValue());
+        }
+        return builder.build();
+    }
+}
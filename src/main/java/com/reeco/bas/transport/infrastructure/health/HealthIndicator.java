@@ -0,0 +1,10 @@
+package com.reeco.bas.transport.infrastructure.health;
+
+/**
+ * A component's health check. Called from the registry's scheduler thread only, so
+ * implementations may keep state between calls, such as counters for a rate.
+ */
+@FunctionalInterface
+public interface HealthIndicator {
+    ComponentHealth check();
+}
@@ -0,0 +1,89 @@
+package com.reeco.bas.transport.infrastructure.health;
+
+import com.reeco.bas.transport.utils.annotators.Infrastructure;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs every registered {@link HealthIndicator} every {@code health.check-interval} and keeps
+ * the latest results. The gateway is ready while no component is {@link HealthStatus#DOWN};
+ * the overall status is the worst component status.
+ * <p>
+ * Status changes are logged once when they happen, and every component's status is published
+ * as the {@code gateway.health.status} gauge (0 up, 1 degraded, 2 down).
+ */
+@Infrastructure
+@Slf4j
+public class HealthRegistry {
+    private final MeterRegistry meterRegistry;
+    private final Map<String, HealthIndicator> indicators = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> statusGauges = new ConcurrentHashMap<>();
+    private volatile Map<String, ComponentHealth> snapshot = Map.of();
+
+    public HealthRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void register(String component, HealthIndicator indicator) {
+        indicators.put(component, indicator);
+        AtomicInteger gauge = statusGauges.computeIfAbsent(component, name -> new AtomicInteger());
+        Gauge.builder("gateway.health.status", gauge, AtomicInteger::get)
+                .description("Component health: 0 up, 1 degraded, 2 down")
+                .tag("component", component)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${health.check-interval:2000}")
+    public void evaluate() {
+        Map<String, ComponentHealth> previous = snapshot;
+        Map<String, ComponentHealth> results = new LinkedHashMap<>();
+        for (String component : indicators.keySet().stream().sorted().toList()) {
+            ComponentHealth health;
+            try {
+                health = indicators.get(component).check();
+            } catch (Exception e) {
+                health = ComponentHealth.down("Health check failed: " + e.getMessage(), Map.of());
+            }
+            results.put(component, health);
+            statusGauges.get(component).set(health.status().ordinal());
+
+            ComponentHealth before = previous.get(component);
+            HealthStatus beforeStatus = before != null ? before.status() : HealthStatus.UP;
+            if (health.status() != beforeStatus) {
+                if (health.status() == HealthStatus.UP) {
+                    log.info("[HEALTH] {} recovered: {} -> UP", component, beforeStatus);
+                } else {
+                    log.warn("[HEALTH] {} {} -> {}: {}", component, beforeStatus, health.status(), health.reason());
+                }
+            }
+        }
+        snapshot = Collections.unmodifiableMap(results);
+    }
+
+    /**
+     * @return the latest result of every component, by name
+     */
+    public Map<String, ComponentHealth> getSnapshot() {
+        return snapshot;
+    }
+
+    public HealthStatus getStatus() {
+        HealthStatus status = HealthStatus.UP;
+        for (ComponentHealth health : snapshot.values()) {
+            status = status.worst(health.status());
+        }
+        return status;
+    }
+
+    public boolean isReady() {
+        return getStatus() != HealthStatus.DOWN;
+    }
+}
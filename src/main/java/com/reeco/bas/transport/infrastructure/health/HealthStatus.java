@@ -0,0 +1,17 @@
+package com.reeco.bas.transport.infrastructure.health;
+
+/**
+ * Health of one component, ordered from best to worst so the aggregate is the maximum.
+ */
+public enum HealthStatus {
+    /** Working normally. */
+    UP,
+    /** Working with reduced throughput or freshness; data may be late or partial. */
+    DEGRADED,
+    /** Not working. */
+    DOWN;
+
+    public HealthStatus worst(HealthStatus other) {
+        return other.ordinal() > ordinal() ? other : this;
+    }
+}
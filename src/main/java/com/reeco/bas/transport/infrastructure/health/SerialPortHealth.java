@@ -0,0 +1,60 @@
+package com.reeco.bas.transport.infrastructure.health;
+
+import com.reeco.bas.transport.receiver.SerialPortReader;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Health of one sensor's serial reader: down when its thread is not running, degraded when
+ * frames stop arriving or arrive slower than {@code minFrameRate} per second.
+ */
+public class SerialPortHealth implements HealthIndicator {
+    private final Supplier<SerialPortReader> reader;
+    private final long staleAfterMs;
+    private final double minFrameRate;
+    private long previousFrames;
+    private long previousCheck;
+
+    public SerialPortHealth(Supplier<SerialPortReader> reader, long staleAfterMs, double minFrameRate) {
+        this.reader = reader;
+        this.staleAfterMs = staleAfterMs;
+        this.minFrameRate = minFrameRate;
+    }
+
+    @Override
+    public ComponentHealth check() {
+        SerialPortReader current = reader.get();
+        if (current == null) {
+            return ComponentHealth.down("Reader not created", Map.of());
+        }
+        long now = System.currentTimeMillis();
+        long frames = current.getFramesRead();
+        double frameRate = previousCheck > 0 && now > previousCheck
+                ? (frames - previousFrames) * 1000.0 / (now - previousCheck) : Double.NaN;
+        previousFrames = frames;
+        previousCheck = now;
+        long lastFrame = current.getLastFrameTime();
+        Long age = lastFrame == 0 ? null : now - lastFrame;
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("port", current.getPortName());
+        details.put("open", current.isOpen());
+        details.put("reader_alive", current.isAlive());
+        details.put("frames", frames);
+        details.put("frame_rate", Double.isNaN(frameRate) ? null : Math.round(frameRate * 100) / 100.0);
+        details.put("last_frame_age_ms", age);
+
+        if (!current.isAlive()) {
+            return ComponentHealth.down("Reader thread is not running", details);
+        }
+        if (age == null || age > staleAfterMs) {
+            return ComponentHealth.degraded("No frame for more than " + staleAfterMs + " ms", details);
+        }
+        if (frameRate < minFrameRate) {
+            return ComponentHealth.degraded("Frame rate below " + minFrameRate + "/s", details);
+        }
+        return ComponentHealth.up(details);
+    }
+}
@@ -0,0 +1,25 @@
+package com.reeco.bas.transport.infrastructure.http;
+
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
+/**
+ * Request factory that applies the breaker's current adaptive read timeout to every connection.
+ */
+public class AdaptiveTimeoutRequestFactory extends SimpleClientHttpRequestFactory {
+    private final CircuitBreaker circuitBreaker;
+
+    public AdaptiveTimeoutRequestFactory(CircuitBreaker circuitBreaker, int connectTimeoutMs) {
+        this.circuitBreaker = circuitBreaker;
+        setConnectTimeout(connectTimeoutMs);
+        setReadTimeout(circuitBreaker.getReadTimeoutMillis());
+    }
+
+    @Override
+    protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+        super.prepareConnection(connection, httpMethod);
+        connection.setReadTimeout(circuitBreaker.getReadTimeoutMillis());
+    }
+}
@@ -0,0 +1,153 @@
+package com.reeco.bas.transport.infrastructure.http;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Per-endpoint circuit breaker with half-open probing and a read timeout derived
+ * from the observed p99 latency of successful calls.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final int LATENCY_WINDOW_SIZE = 128;
+    private static final int TIMEOUT_RECALC_INTERVAL = 16;
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final int minReadTimeoutMs;
+    private final int maxReadTimeoutMs;
+    private final double timeoutMultiplier;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final LatencyWindow latencies = new LatencyWindow(LATENCY_WINDOW_SIZE);
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final LongAdder failedCalls = new LongAdder();
+    private final AtomicInteger successesSinceRecalc = new AtomicInteger();
+
+    private volatile long openedAtNanos;
+    private volatile int readTimeoutMs;
+
+    public CircuitBreaker(String name, int failureThreshold, long openDurationMs,
+                          int minReadTimeoutMs, int maxReadTimeoutMs, double timeoutMultiplier) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+        this.minReadTimeoutMs = minReadTimeoutMs;
+        this.maxReadTimeoutMs = maxReadTimeoutMs;
+        this.timeoutMultiplier = timeoutMultiplier;
+        this.readTimeoutMs = maxReadTimeoutMs;
+    }
+
+    /**
+     * Run the call through the breaker. Rejected calls fail immediately with
+     * {@link CircuitBreakerOpenException} without touching the network.
+     */
+    public <T> T execute(Supplier<T> call) {
+        if (!tryAcquire()) {
+            throw new CircuitBreakerOpenException(name);
+        }
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            onSuccess(start);
+            return result;
+        } catch (HttpClientErrorException e) {
+            // A 4xx means the server answered, so it does not count against the endpoint
+            onSuccess(start);
+            throw e;
+        } catch (RuntimeException e) {
+            onFailure();
+            throw e;
+        }
+    }
+
+    public boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        // OPEN, or HALF_OPEN with a probe that never reported back
+        if (System.nanoTime() - openedAtNanos >= openDurationNanos
+                && state.compareAndSet(current, State.HALF_OPEN)) {
+            openedAtNanos = System.nanoTime();
+            log.info("Circuit {} half-open, probing endpoint", name);
+            return true;
+        }
+        rejectedCalls.increment();
+        return false;
+    }
+
+    /**
+     * Record a successful call started at {@code startNanos}. Only the half-open probe closes the
+     * circuit; a slow call that started before the circuit opened does not.
+     */
+    public void onSuccess(long startNanos) {
+        latencies.record(System.nanoTime() - startNanos);
+        consecutiveFailures.set(0);
+        if (successesSinceRecalc.incrementAndGet() >= TIMEOUT_RECALC_INTERVAL) {
+            successesSinceRecalc.set(0);
+            readTimeoutMs = computeReadTimeout();
+        }
+        // The probe acquired the circuit at openedAtNanos, so any call started earlier is stale
+        if (state.get() == State.HALF_OPEN && startNanos - openedAtNanos >= 0
+                && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            log.info("Circuit {} closed", name);
+        }
+    }
+
+    public void onFailure() {
+        failedCalls.increment();
+        int failures = consecutiveFailures.incrementAndGet();
+        State current = state.get();
+        if (current == State.HALF_OPEN || (current == State.CLOSED && failures >= failureThreshold)) {
+            openedAtNanos = System.nanoTime();
+            if (state.getAndSet(State.OPEN) != State.OPEN) {
+                log.warn("Circuit {} opened after {} consecutive failures", name, failures);
+            }
+        }
+    }
+
+    private int computeReadTimeout() {
+        long p99 = latencies.percentile(0.99);
+        if (p99 < 0) {
+            return maxReadTimeoutMs;
+        }
+        long adaptive = (long) (TimeUnit.NANOSECONDS.toMillis(p99) * timeoutMultiplier);
+        return (int) Math.max(minReadTimeoutMs, Math.min(maxReadTimeoutMs, adaptive));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public int getReadTimeoutMillis() {
+        return readTimeoutMs;
+    }
+
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    public long getFailedCalls() {
+        return failedCalls.sum();
+    }
+}
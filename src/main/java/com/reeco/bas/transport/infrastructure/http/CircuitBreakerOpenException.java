@@ -0,0 +1,13 @@
+package com.reeco.bas.transport.infrastructure.http;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Thrown instead of issuing a request while the endpoint's circuit is open.
+ */
+public class CircuitBreakerOpenException extends RestClientException {
+
+    public CircuitBreakerOpenException(String endpoint) {
+        super("Circuit open for endpoint " + endpoint);
+    }
+}
@@ -0,0 +1,74 @@
+package com.reeco.bas.transport.infrastructure.http;
+
+import com.reeco.bas.transport.utils.annotators.Infrastructure;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Infrastructure
+@Slf4j
+@RequiredArgsConstructor
+public class CircuitBreakerRegistry {
+
+    @Value("${gateway.circuit.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${gateway.circuit.open-duration:10000}")
+    private long openDurationMs;
+
+    @Value("${gateway.circuit.timeout.min:150}")
+    private int minReadTimeoutMs;
+
+    @Value("${gateway.circuit.timeout.multiplier:2.0}")
+    private double timeoutMultiplier;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * Get or create the breaker for an endpoint. The configured read timeout becomes the upper bound
+     * for the adaptive timeout.
+     */
+    public CircuitBreaker breaker(String endpoint, int maxReadTimeoutMs) {
+        return breakers.computeIfAbsent(endpoint, name -> {
+            CircuitBreaker breaker = new CircuitBreaker(name, failureThreshold, openDurationMs,
+                    Math.min(minReadTimeoutMs, maxReadTimeoutMs), maxReadTimeoutMs, timeoutMultiplier);
+            registerMetrics(breaker);
+            log.info("Registered circuit breaker for endpoint {}", name);
+            return breaker;
+        });
+    }
+
+    public RestTemplate restTemplate(CircuitBreaker breaker, int connectTimeoutMs) {
+        return new RestTemplate(new AdaptiveTimeoutRequestFactory(breaker, connectTimeoutMs));
+    }
+
+    public Map<String, CircuitBreaker> getBreakers() {
+        return Map.copyOf(breakers);
+    }
+
+    private void registerMetrics(CircuitBreaker breaker) {
+        Gauge.builder("gateway.circuit.state", breaker, b -> b.getState().ordinal())
+                .description("0 = closed, 1 = open, 2 = half-open")
+                .tag("endpoint", breaker.getName())
+                .register(meterRegistry);
+        Gauge.builder("gateway.circuit.read.timeout", breaker, CircuitBreaker::getReadTimeoutMillis)
+                .baseUnit("milliseconds")
+                .tag("endpoint", breaker.getName())
+                .register(meterRegistry);
+        FunctionCounter.builder("gateway.circuit.rejected", breaker, CircuitBreaker::getRejectedCalls)
+                .tag("endpoint", breaker.getName())
+                .register(meterRegistry);
+        FunctionCounter.builder("gateway.circuit.failures", breaker, CircuitBreaker::getFailedCalls)
+                .tag("endpoint", breaker.getName())
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,43 @@
+package com.reeco.bas.transport.infrastructure.http;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size ring of the most recent call latencies, used to derive p99.
+ */
+class LatencyWindow {
+    private final long[] samples;
+    private final long[] scratch;
+    private int next = 0;
+    private int count = 0;
+
+    LatencyWindow(int size) {
+        this.samples = new long[size];
+        this.scratch = new long[size];
+    }
+
+    synchronized void record(long latencyNanos) {
+        samples[next] = latencyNanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    synchronized int size() {
+        return count;
+    }
+
+    /**
+     * @return the requested percentile in nanoseconds, or -1 if nothing has been recorded yet
+     */
+    synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return -1;
+        }
+        System.arraycopy(samples, 0, scratch, 0, count);
+        Arrays.sort(scratch, 0, count);
+        int index = (int) Math.ceil(percentile * count) - 1;
+        return scratch[Math.max(0, Math.min(count - 1, index))];
+    }
+}
@@ -0,0 +1,28 @@
+package com.reeco.bas.transport.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One fetch of the berth configuration from the data API.
+ */
+@Name("com.reeco.bas.ConfigReload")
+@Label("Config Reload")
+@Category({"BAS Gateway", "Config"})
+@Description("Berth configuration fetched and saved")
+@StackTrace(false)
+public class ConfigReloadEvent extends jdk.jfr.Event {
+
+    @Label("Status Code")
+    @Description("HTTP status, or -1 when no response was received")
+    public int statusCode;
+
+    @Label("Saved")
+    public boolean saved;
+
+    @Label("Failure")
+    public String failure;
+}
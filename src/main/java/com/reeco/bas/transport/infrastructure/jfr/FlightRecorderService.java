@@ -0,0 +1,86 @@
+package com.reeco.bas.transport.infrastructure.jfr;
+
+import com.reeco.bas.transport.utils.annotators.Infrastructure;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Keeps a continuous flight recording with the gateway events and the {@code jfr/gateway.jfc}
+ * profile. The recording lives in the JFR repository bounded by age and size, and is written to
+ * {@code jfr.directory} on shutdown. Pull it from a running box with
+ * {@code jcmd <pid> JFR.dump name=gateway filename=gateway.jfr}.
+ */
+@Infrastructure
+@Slf4j
+@ConditionalOnProperty(name = "jfr.enabled", havingValue = "true")
+public class FlightRecorderService {
+    static final String RECORDING_NAME = "gateway";
+    private static final String SETTINGS_RESOURCE = "/jfr/gateway.jfc";
+
+    @Value("${jfr.max-age:21600000}")
+    private long maxAgeMs;
+
+    @Value("${jfr.max-size-mb:64}")
+    private long maxSizeMb;
+
+    @Value("${jfr.directory:logs/jfr}")
+    private String directory;
+
+    private Recording recording;
+
+    @PostConstruct
+    public void start() {
+        FlightRecorder.register(FrameReadEvent.class);
+        FlightRecorder.register(ParseEvent.class);
+        FlightRecorder.register(FusionEvent.class);
+        FlightRecorder.register(RuleEvaluationEvent.class);
+        FlightRecorder.register(OutboundSendEvent.class);
+        FlightRecorder.register(ConfigReloadEvent.class);
+        FlightRecorder.register(StateTransitionEvent.class);
+
+        try (InputStream settings = FlightRecorderService.class.getResourceAsStream(SETTINGS_RESOURCE)) {
+            if (settings == null) {
+                log.error("Flight recorder profile {} not found, recording not started", SETTINGS_RESOURCE);
+                return;
+            }
+            Configuration configuration = Configuration.create(new InputStreamReader(settings, StandardCharsets.UTF_8));
+            Path target = Path.of(directory);
+            Files.createDirectories(target);
+
+            recording = new Recording(configuration);
+            recording.setName(RECORDING_NAME);
+            recording.setToDisk(true);
+            recording.setMaxAge(Duration.ofMillis(maxAgeMs));
+            recording.setMaxSize(maxSizeMb * 1024 * 1024);
+            recording.setDumpOnExit(true);
+            recording.setDestination(target.resolve(RECORDING_NAME + ".jfr"));
+            recording.start();
+            log.info("Flight recording '{}' started, keeping {} min / {} MB", RECORDING_NAME,
+                    Duration.ofMillis(maxAgeMs).toMinutes(), maxSizeMb);
+        } catch (Exception e) {
+            log.error("Failed to start flight recording: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recording != null) {
+            // Stopping writes the recording to its destination
+            recording.stop();
+            recording.close();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.reeco.bas.transport.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One read of the bytes available on a sensor's serial port.
+ */
+@Name("com.reeco.bas.FrameRead")
+@Label("Frame Read")
+@Category({"BAS Gateway", "Serial"})
+@Description("Bytes read from a sensor's serial port")
+@StackTrace(false)
+public class FrameReadEvent extends jdk.jfr.Event {
+
+    @Label("Port")
+    public String port;
+
+    @Label("Bytes")
+    @DataAmount
+    public int bytes;
+}
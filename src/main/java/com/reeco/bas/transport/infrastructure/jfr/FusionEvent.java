@@ -0,0 +1,34 @@
+package com.reeco.bas.transport.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One raw record handled by {@code DataService}, whether or not it completed a fused record.
+ */
+@Name("com.reeco.bas.Fusion")
+@Label("Sensor Fusion")
+@Category({"BAS Gateway", "Pipeline"})
+@Description("Pairing a raw record with the other sensor and building the fused record")
+@StackTrace(false)
+public class FusionEvent extends jdk.jfr.Event {
+
+    @Label("Sensor")
+    public String sensor;
+
+    @Label("Fused")
+    @Description("Whether a fused record was produced")
+    public boolean fused;
+
+    @Label("Error Code")
+    public int errorCode;
+
+    @Label("Left Timeout")
+    public boolean leftTimeout;
+
+    @Label("Right Timeout")
+    public boolean rightTimeout;
+}
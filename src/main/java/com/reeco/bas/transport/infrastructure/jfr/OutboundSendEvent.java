@@ -0,0 +1,39 @@
+package com.reeco.bas.transport.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One POST to the data API, for a single message or a batch.
+ */
+@Name("com.reeco.bas.OutboundSend")
+@Label("Outbound Send")
+@Category({"BAS Gateway", "Outbound"})
+@Description("A message or batch posted to the data API")
+@StackTrace(false)
+public class OutboundSendEvent extends jdk.jfr.Event {
+
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("Wire Format")
+    public String format;
+
+    @Label("Records")
+    public int records;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Status Code")
+    @Description("HTTP status, or -1 when no response was received")
+    public int statusCode;
+
+    @Label("Failure")
+    public String failure;
+}
@@ -0,0 +1,29 @@
+package com.reeco.bas.transport.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Parsing one frame into speed, distance and signal strength.
+ */
+@Name("com.reeco.bas.Parse")
+@Label("Frame Parse")
+@Category({"BAS Gateway", "Pipeline"})
+@Description("A serial frame parsed into a raw sensor record")
+@StackTrace(false)
+public class ParseEvent extends jdk.jfr.Event {
+
+    @Label("Sensor")
+    public String sensor;
+
+    @Label("Bytes")
+    @DataAmount
+    public int bytes;
+
+    @Label("Success")
+    public boolean success;
+}
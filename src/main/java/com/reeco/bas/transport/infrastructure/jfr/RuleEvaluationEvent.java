@@ -0,0 +1,33 @@
+package com.reeco.bas.transport.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evaluating the alarm conditions of one zone for a speed, distance or angle value.
+ */
+@Name("com.reeco.bas.RuleEvaluation")
+@Label("Rule Evaluation")
+@Category({"BAS Gateway", "Pipeline"})
+@Description("Alarm conditions evaluated to a status id")
+@StackTrace(false)
+public class RuleEvaluationEvent extends jdk.jfr.Event {
+
+    @Label("Parameter")
+    public String parameter;
+
+    @Label("Sensor")
+    public String sensor;
+
+    @Label("Zone")
+    public String zone;
+
+    @Label("Value")
+    public double value;
+
+    @Label("Status Id")
+    public int statusId;
+}
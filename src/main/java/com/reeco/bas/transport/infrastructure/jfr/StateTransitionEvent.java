@@ -0,0 +1,30 @@
+package com.reeco.bas.transport.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A vessel state change in {@code VesselStateMachine}.
+ */
+@Name("com.reeco.bas.StateTransition")
+@Label("Vessel State Transition")
+@Category({"BAS Gateway", "Vessel"})
+@Description("The berth's vessel state changed")
+@StackTrace(false)
+public class StateTransitionEvent extends jdk.jfr.Event {
+
+    @Label("From")
+    public String fromState;
+
+    @Label("To")
+    public String toState;
+
+    @Label("Time In State")
+    @Description("How long the vessel stayed in the previous state")
+    @Timespan(Timespan.MILLISECONDS)
+    public long timeInState;
+}
@@ -0,0 +1,197 @@
+package com.reeco.bas.transport.infrastructure.metrics;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A memory-mapped region of labeled 64-bit counters that another process can read while the
+ * gateway runs, in the spirit of Aeron's counters file.
+ * <p>
+ * Layout, little endian:
+ * <pre>
+ *   header    64 bytes   magic, version, capacity, count, pid, start time (epoch ms)
+ *   metadata  capacity x 64 bytes   type (int), label length (int), label (UTF-8, up to 56 bytes)
+ *   values    capacity x 64 bytes   value (long), padded to a cache line
+ * </pre>
+ * Values are published with release writes and read with acquire reads, so a reader never sees
+ * a torn value or a label that is still being written. {@link #incrementOrdered} is a plain
+ * read followed by a release write and assumes one writing thread per counter.
+ */
+public class CountersFile implements AutoCloseable {
+    public static final int MAGIC = 0x42415343; // "BASC"
+    public static final int VERSION = 1;
+
+    public static final int TYPE_COUNTER = 0;
+    public static final int TYPE_GAUGE = 1;
+    /** Epoch millis of the last event; readers show it as an age. */
+    public static final int TYPE_TIMESTAMP = 2;
+    /** Ordinal of a {@code VesselState}. */
+    public static final int TYPE_VESSEL_STATE = 3;
+
+    static final int HEADER_LENGTH = 64;
+    static final int SLOT_LENGTH = 64;
+    static final int MAX_LABEL_LENGTH = SLOT_LENGTH - 8;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+    private static final int PID_OFFSET = 16;
+    private static final int START_TIME_OFFSET = 24;
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private int count;
+
+    private CountersFile(Path path, MappedByteBuffer buffer, int capacity) {
+        this.path = path;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Create the file, replacing any file left by an earlier run.
+     */
+    public static CountersFile create(Path path, int capacity) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.deleteIfExists(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length(capacity));
+            INT.set(buffer, VERSION_OFFSET, VERSION);
+            INT.set(buffer, CAPACITY_OFFSET, capacity);
+            LONG.set(buffer, PID_OFFSET, ProcessHandle.current().pid());
+            LONG.set(buffer, START_TIME_OFFSET, System.currentTimeMillis());
+            INT.setRelease(buffer, MAGIC_OFFSET, MAGIC);
+            return new CountersFile(path, buffer, capacity);
+        }
+    }
+
+    /**
+     * Map an existing file read-only.
+     */
+    public static Reader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_LENGTH || (int) INT.getAcquire(buffer, MAGIC_OFFSET) != MAGIC) {
+                throw new IOException("Not a counters file: " + path);
+            }
+            int version = (int) INT.get(buffer, VERSION_OFFSET);
+            if (version != VERSION) {
+                throw new IOException("Unsupported counters file version " + version + ": " + path);
+            }
+            return new Reader(buffer);
+        }
+    }
+
+    static long length(int capacity) {
+        return HEADER_LENGTH + (long) capacity * SLOT_LENGTH * 2;
+    }
+
+    /**
+     * Add a counter and return its id.
+     *
+     * @throws IllegalStateException when the file is full
+     */
+    public synchronized int allocate(String label, int type) {
+        if (count == capacity) {
+            throw new IllegalStateException("Counters file " + path + " is full (" + capacity + " counters)");
+        }
+        int id = count;
+        byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_LABEL_LENGTH);
+        int offset = metadataOffset(id);
+        buffer.put(offset + 8, bytes, 0, length);
+        INT.set(buffer, offset, type);
+        INT.set(buffer, offset + 4, length);
+        LONG.setRelease(buffer, valueOffset(capacity, id), 0L);
+        count++;
+        INT.setRelease(buffer, COUNT_OFFSET, count);
+        return id;
+    }
+
+    public void setOrdered(int id, long value) {
+        LONG.setRelease(buffer, valueOffset(capacity, id), value);
+    }
+
+    public void incrementOrdered(int id) {
+        int offset = valueOffset(capacity, id);
+        LONG.setRelease(buffer, offset, (long) LONG.get(buffer, offset) + 1);
+    }
+
+    public long get(int id) {
+        return (long) LONG.getAcquire(buffer, valueOffset(capacity, id));
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+    }
+
+    private static int metadataOffset(int id) {
+        return HEADER_LENGTH + id * SLOT_LENGTH;
+    }
+
+    private static int valueOffset(int capacity, int id) {
+        return HEADER_LENGTH + (capacity + id) * SLOT_LENGTH;
+    }
+
+    /**
+     * Read-only view of a counters file written by another process.
+     */
+    public static final class Reader {
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+
+        private Reader(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+            this.capacity = (int) INT.get(buffer, CAPACITY_OFFSET);
+        }
+
+        public int count() {
+            return (int) INT.getAcquire(buffer, COUNT_OFFSET);
+        }
+
+        public long pid() {
+            return (long) LONG.get(buffer, PID_OFFSET);
+        }
+
+        public long startTime() {
+            return (long) LONG.get(buffer, START_TIME_OFFSET);
+        }
+
+        public int type(int id) {
+            return (int) INT.get(buffer, metadataOffset(id));
+        }
+
+        public String label(int id) {
+            int offset = metadataOffset(id);
+            byte[] bytes = new byte[(int) INT.get(buffer, offset + 4)];
+            buffer.get(offset + 8, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public long value(int id) {
+            return (long) LONG.getAcquire(buffer, valueOffset(capacity, id));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.reeco.bas.transport.infrastructure.metrics;
+
+import com.reeco.bas.transport.model.VesselState;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Prints the gateway's counters file from another process. It only maps the file read-only and
+ * never talks to the service.
+ * <pre>
+ *   java -cp transport-service.jar -Dloader.main=com.reeco.bas.transport.infrastructure.metrics.CountersTool \
+ *       org.springframework.boot.loader.launch.PropertiesLauncher [path] [--watch millis]
+ * </pre>
+ */
+public final class CountersTool {
+    private static final String DEFAULT_PATH = "/dev/shm/bas-gateway.counters";
+
+    private CountersTool() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String path = DEFAULT_PATH;
+        long watchMillis = 0;
+        for (int i = 0; i < args.length; i++) {
+            if ("--watch".equals(args[i]) && i + 1 < args.length) {
+                watchMillis = Long.parseLong(args[++i]);
+            } else {
+                path = args[i];
+            }
+        }
+
+        CountersFile.Reader reader = CountersFile.open(Path.of(path));
+        PrintStream out = System.out;
+        do {
+            print(reader, path, out);
+            if (watchMillis > 0) {
+                Thread.sleep(watchMillis);
+                out.println();
+            }
+        } while (watchMillis > 0);
+    }
+
+    private static void print(CountersFile.Reader reader, String path, PrintStream out) {
+        long now = System.currentTimeMillis();
+        boolean alive = ProcessHandle.of(reader.pid()).map(ProcessHandle::isAlive).orElse(false);
+        out.printf("%s  pid %d%s  started %s%n", path, reader.pid(), alive ? "" : " (not running)",
+                Instant.ofEpochMilli(reader.startTime()));
+        int count = reader.count();
+        for (int id = 0; id < count; id++) {
+            out.printf("%3d  %-40s %s%n", id, reader.label(id), format(reader.type(id), reader.value(id), now));
+        }
+    }
+
+    private static String format(int type, long value, long now) {
+        switch (type) {
+            case CountersFile.TYPE_TIMESTAMP:
+                return value == 0 ? "never" : (now - value) + " ms ago";
+            case CountersFile.TYPE_VESSEL_STATE:
+                VesselState[] states = VesselState.values();
+                return value >= 0 && value < states.length ? states[(int) value].name() : "unknown";
+            default:
+                return Long.toString(value);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.reeco.bas.transport.infrastructure.metrics;
+
+import com.reeco.bas.transport.model.SensorsType;
+import com.reeco.bas.transport.model.VesselState;
+import com.reeco.bas.transport.utils.annotators.Infrastructure;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+/**
+ * The gateway's counters file (see {@link CountersFile}), read with {@link CountersTool}.
+ * <p>
+ * Per-sensor samples, parse failures and last-sample times are written by the serial reader
+ * threads as they happen. Queue depths and drop totals are polled from their owners and copied
+ * into the file every {@code metrics.counters-file.refresh-interval}. When the file is disabled
+ * or cannot be created every call is a no-op.
+ */
+@Infrastructure
+@Slf4j
+public class GatewayCounters {
+
+    @Value("${metrics.counters-file.enabled:true}")
+    private boolean enabled;
+
+    @Value("${metrics.counters-file.path:/dev/shm/bas-gateway.counters}")
+    private String path;
+
+    @Value("${metrics.counters-file.capacity:64}")
+    private int capacity;
+
+    private final List<PolledCounter> polled = new CopyOnWriteArrayList<>();
+    private final int[] samples = new int[SensorsType.values().length];
+    private final int[] parseFailures = new int[SensorsType.values().length];
+    private final int[] lastSample = new int[SensorsType.values().length];
+    private int vesselState;
+    private volatile CountersFile file;
+
+    @PostConstruct
+    public void create() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            CountersFile created = CountersFile.create(Path.of(path), capacity);
+            for (SensorsType sensor : SensorsType.values()) {
+                String name = sensor.name().toLowerCase();
+                samples[sensor.ordinal()] = created.allocate("sensor." + name + ".samples", CountersFile.TYPE_COUNTER);
+                parseFailures[sensor.ordinal()] = created.allocate("sensor." + name + ".parse-failures", CountersFile.TYPE_COUNTER);
+                lastSample[sensor.ordinal()] = created.allocate("sensor." + name + ".last-sample", CountersFile.TYPE_TIMESTAMP);
+            }
+            vesselState = created.allocate("vessel.state", CountersFile.TYPE_VESSEL_STATE);
+            created.setOrdered(vesselState, -1);
+            file = created;
+            log.info("Counters file created at {}", created.getPath().toAbsolutePath());
+        } catch (IOException e) {
+            log.error("Failed to create counters file {}: {}", path, e.getMessage());
+        }
+    }
+
+    public void sampleReceived(SensorsType sensor) {
+        CountersFile current = file;
+        if (current != null) {
+            current.incrementOrdered(samples[sensor.ordinal()]);
+            current.setOrdered(lastSample[sensor.ordinal()], System.currentTimeMillis());
+        }
+    }
+
+    public void parseFailed(SensorsType sensor) {
+        CountersFile current = file;
+        if (current != null) {
+            current.incrementOrdered(parseFailures[sensor.ordinal()]);
+        }
+    }
+
+    public void vesselStateChanged(VesselState state) {
+        CountersFile current = file;
+        if (current != null) {
+            current.setOrdered(vesselState, state.ordinal());
+        }
+    }
+
+    /**
+     * Copy {@code source} into a counter on every refresh.
+     */
+    public void register(String label, int type, LongSupplier source) {
+        CountersFile current = file;
+        if (current == null) {
+            return;
+        }
+        try {
+            polled.add(new PolledCounter(current.allocate(label, type), source));
+        } catch (IllegalStateException e) {
+            log.warn("Counter {} not published: {}", label, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${metrics.counters-file.refresh-interval:1000}")
+    public void refresh() {
+        CountersFile current = file;
+        if (current == null) {
+            return;
+        }
+        for (PolledCounter counter : polled) {
+            current.setOrdered(counter.id(), counter.source().getAsLong());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        CountersFile current = file;
+        if (current != null) {
+            refresh();
+            current.close();
+        }
+    }
+
+    private record PolledCounter(int id, LongSupplier source) {
+    }
+}
@@ -0,0 +1,348 @@
+package com.reeco.bas.transport.infrastructure.metrics;
+
+import com.reeco.bas.transport.application.storage.SensorQualityStats;
+import com.reeco.bas.transport.infrastructure.outbound.OutboundLane;
+import com.reeco.bas.transport.model.CaptureStamp;
+import com.reeco.bas.transport.model.SensorsType;
+import com.reeco.bas.transport.model.VesselState;
+import com.reeco.bas.transport.utils.annotators.Infrastructure;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Timers, counters and gauges for the sensor pipeline, served by the actuator metrics
+ * endpoint over JMX ({@code org.springframework.boot:type=Endpoint,name=Metrics}).
+ * <p>
+ * Every meter is registered up front and kept in an array indexed by stage or sensor, so
+ * recording on the sensor threads is a plain array lookup with no tag lookup or allocation.
+ * Stage timers publish percentile histograms.
+ * <p>
+ * Capture latency is measured from the moment a frame is read off the serial port to each later
+ * hop, and checked against {@code gateway.latency.budget}. Meters carry the common {@code berth}
+ * tag, so p50/p99/max can be compared across berths.
+ * <p>
+ * Per sensor, the signal strength of every parsed frame goes into a histogram with fixed
+ * buckets, next to counters of weak, out-of-target and unpaired frames.
+ * <p>
+ * Sample counts, queue depths, drops and the vessel state are mirrored into the
+ * {@link GatewayCounters} file for tools that cannot use JMX.
+ */
+@Infrastructure
+@Slf4j
+public class PipelineMetrics {
+
+    public enum Stage {
+        /** Reading the bytes of one frame from the serial port. */
+        SERIAL_READ("serial_read"),
+        /** Parsing a frame into speed, distance and signal strength. */
+        PARSE("parse"),
+        /** Pairing both sensors and producing a fused record in {@code DataService}. */
+        FUSION("fusion"),
+        /** Building the fused record in {@code DataProcessor}. */
+        COMBINE("combine"),
+        /** One HTTP POST to the data API. */
+        PUBLISH("publish"),
+        /** Buffering a record for the session store. */
+        STORE("store");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * Points of the pipeline at which the age of a sample, counted from its serial capture, is recorded.
+     */
+    public enum Hop {
+        /** The frame has been parsed into a raw record. */
+        PARSE("parse"),
+        /** The fused record has been built. */
+        FUSE("fuse"),
+        /** The fused record has been queued on an outbound lane. */
+        ENQUEUE("enqueue"),
+        /** The lane has dequeued the record and is posting it. */
+        SENT("sent"),
+        /** The data API answered with a 2xx status. */
+        ACKED("acked");
+
+        private final String tag;
+
+        Hop(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final GatewayCounters counters;
+    private final Timer[] stageTimers = new Timer[Stage.values().length];
+    private final Counter[] samples = new Counter[SensorsType.values().length];
+    private final Counter[] parseFailures = new Counter[SensorsType.values().length];
+    private final Counter[] timeouts = new Counter[SensorsType.values().length];
+    private final Counter[] readerRestarts = new Counter[SensorsType.values().length];
+    private final DistributionSummary[] signalStrength = new DistributionSummary[SensorsType.values().length];
+    private final Counter[] weakSignal = new Counter[SensorsType.values().length];
+    private final Counter[] outOfTarget = new Counter[SensorsType.values().length];
+    private final Counter[] lostToPairing = new Counter[SensorsType.values().length];
+    private final Counter httpFailures;
+    private final Counter alarmsRejected;
+    private final Timer[] hopTimers = new Timer[Hop.values().length];
+    private final Counter budgetExceeded;
+    private final Duration latencyBudget;
+    private final AtomicBoolean budgetBreached = new AtomicBoolean();
+    private final AtomicInteger vesselState = new AtomicInteger(-1);
+    private final Map<String, Timer> tracedTimers = new ConcurrentHashMap<>();
+
+    public PipelineMetrics(MeterRegistry meterRegistry, GatewayCounters counters,
+                           @Value("${gateway.latency.budget:1000}") long latencyBudgetMillis) {
+        this.meterRegistry = meterRegistry;
+        this.counters = counters;
+        this.latencyBudget = Duration.ofMillis(latencyBudgetMillis);
+        for (Stage stage : Stage.values()) {
+            stageTimers[stage.ordinal()] = Timer.builder("gateway.stage.latency")
+                    .description("Time spent in one pipeline stage")
+                    .tag("stage", stage.tag)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(1000))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(meterRegistry);
+        }
+        for (SensorsType sensor : SensorsType.values()) {
+            String tag = sensor.name().toLowerCase();
+            samples[sensor.ordinal()] = Counter.builder("gateway.sensor.samples")
+                    .description("Frames received from the sensor")
+                    .tag("sensor", tag)
+                    .register(meterRegistry);
+            parseFailures[sensor.ordinal()] = Counter.builder("gateway.sensor.parse.failures")
+                    .description("Frames that could not be parsed")
+                    .tag("sensor", tag)
+                    .register(meterRegistry);
+            timeouts[sensor.ordinal()] = Counter.builder("gateway.sensor.timeouts")
+                    .description("Fused records sent without the sensor (1031/1032)")
+                    .tag("sensor", tag)
+                    .register(meterRegistry);
+            readerRestarts[sensor.ordinal()] = Counter.builder("gateway.sensor.reader.restarts")
+                    .description("Serial readers restarted by the watchdog")
+                    .tag("sensor", tag)
+                    .register(meterRegistry);
+            signalStrength[sensor.ordinal()] = DistributionSummary.builder("gateway.sensor.signal")
+                    .description("Signal strength of parsed frames")
+                    .tag("sensor", tag)
+                    .serviceLevelObjectives(SensorQualityStats.SIGNAL_BUCKET_BOUNDS)
+                    .register(meterRegistry);
+            weakSignal[sensor.ordinal()] = Counter.builder("gateway.sensor.weak_signal")
+                    .description("Frames below the weak signal threshold (1021/1022)")
+                    .tag("sensor", tag)
+                    .register(meterRegistry);
+            outOfTarget[sensor.ordinal()] = Counter.builder("gateway.sensor.out_of_target")
+                    .description("Frames without a target (1011/1012)")
+                    .tag("sensor", tag)
+                    .register(meterRegistry);
+            Counter lost = Counter.builder("gateway.sensor.lost_to_pairing")
+                    .description("Frames replaced by a newer frame of the same sensor before they were fused")
+                    .tag("sensor", tag)
+                    .register(meterRegistry);
+            lostToPairing[sensor.ordinal()] = lost;
+            counters.register("sensor." + tag + ".lost_to_pairing", CountersFile.TYPE_COUNTER, () -> (long) lost.count());
+        }
+        httpFailures = Counter.builder("gateway.http.failures")
+                .description("Data API calls that failed or returned a non-2xx status")
+                .register(meterRegistry);
+        alarmsRejected = Counter.builder("gateway.alarms.rejected")
+                .description("Alarms dropped because the data API circuit was open")
+                .register(meterRegistry);
+        for (Hop hop : Hop.values()) {
+            hopTimers[hop.ordinal()] = Timer.builder("gateway.latency.capture")
+                    .description("Age of a sample since it was read off the serial port")
+                    .tag("hop", hop.tag)
+                    .publishPercentiles(0.5, 0.99)
+                    .serviceLevelObjectives(latencyBudget)
+                    .minimumExpectedValue(Duration.ofNanos(1000))
+                    .maximumExpectedValue(Duration.ofSeconds(60))
+                    .register(meterRegistry);
+        }
+        budgetExceeded = Counter.builder("gateway.latency.budget.exceeded")
+                .description("Fused records acknowledged later than the latency budget")
+                .register(meterRegistry);
+        Gauge.builder("gateway.latency.budget.breached", budgetBreached, breached -> breached.get() ? 1 : 0)
+                .description("1 while the acknowledged p99 is above the latency budget")
+                .register(meterRegistry);
+        Gauge.builder("gateway.vessel.state", vesselState, AtomicInteger::get)
+                .description("Ordinal of the current VesselState, -1 before the first state")
+                .register(meterRegistry);
+        counters.register("http.failures", CountersFile.TYPE_COUNTER, () -> (long) httpFailures.count());
+        counters.register("alarms.rejected", CountersFile.TYPE_COUNTER, () -> (long) alarmsRejected.count());
+    }
+
+    /**
+     * Record the time since {@code startNanos}, taken from {@link System#nanoTime()}.
+     */
+    public void record(Stage stage, long startNanos) {
+        stageTimers[stage.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record how old a sample is on reaching {@code hop}.
+     */
+    public void recordLatency(Hop hop, CaptureStamp capture) {
+        long age = capture.ageNanos();
+        hopTimers[hop.ordinal()].record(age, TimeUnit.NANOSECONDS);
+        if (hop == Hop.ACKED && age > latencyBudget.toNanos()) {
+            budgetExceeded.increment();
+        }
+    }
+
+    /**
+     * Compare the acknowledged p99 with the budget and log when it is breached or recovers.
+     */
+    @Scheduled(fixedDelayString = "${gateway.latency.check-interval:30000}")
+    public void checkLatencyBudget() {
+        HistogramSnapshot snapshot = hopTimers[Hop.ACKED.ordinal()].takeSnapshot();
+        if (snapshot.count() == 0) {
+            return;
+        }
+        double p99 = Double.NaN;
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            if (value.percentile() == 0.99) {
+                p99 = value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        if (Double.isNaN(p99)) {
+            return;
+        }
+        boolean breached = p99 > latencyBudget.toMillis();
+        if (breached) {
+            log.warn("Capture-to-ack latency over budget: p99 {} ms, max {} ms, budget {} ms",
+                    Math.round(p99), Math.round(snapshot.max(TimeUnit.MILLISECONDS)), latencyBudget.toMillis());
+        } else if (budgetBreached.get()) {
+            log.info("Capture-to-ack latency back within budget: p99 {} ms", Math.round(p99));
+        }
+        budgetBreached.set(breached);
+    }
+
+    public void sampleReceived(SensorsType sensor) {
+        samples[sensor.ordinal()].increment();
+        counters.sampleReceived(sensor);
+    }
+
+
+    public void parseFailed(SensorsType sensor) {
+        parseFailures[sensor.ordinal()].increment();
+        counters.parseFailed(sensor);
+    }
+
+    /**
+     * Record a parsed frame: its signal strength and whether it was weak or out of target.
+     */
+    public void frameQuality(SensorsType sensor, double signal, boolean weak, boolean outOfTargetFrame) {
+        signalStrength[sensor.ordinal()].record(signal);
+        if (weak) {
+            weakSignal[sensor.ordinal()].increment();
+        }
+        if (outOfTargetFrame) {
+            outOfTarget[sensor.ordinal()].increment();
+        }
+    }
+
+    public void lostToPairing(SensorsType sensor) {
+        lostToPairing[sensor.ordinal()].increment();
+    }
+
+    public void vesselStateChanged(VesselState state) {
+        vesselState.set(state.ordinal());
+        counters.vesselStateChanged(state);
+    }
+
+    public void sensorTimedOut(SensorsType sensor) {
+        timeouts[sensor.ordinal()].increment();
+    }
+
+    public void readerRestarted(SensorsType sensor) {
+        readerRestarts[sensor.ordinal()].increment();
+    }
+
+    public void httpFailed() {
+        httpFailures.increment();
+    }
+
+    public void alarmRejected() {
+        alarmsRejected.increment();
+    }
+
+    /**
+     * Record one sampled call of a {@code @Traced} method.
+     */
+    public void recordTraced(String method, boolean failed, long nanos) {
+        String outcome = failed ? "error" : "success";
+        tracedTimers.computeIfAbsent(method + "#" + outcome, key -> Timer.builder("gateway.traced")
+                        .description("Sampled calls of @Traced methods")
+                        .tag("method", method)
+                        .tag("outcome", outcome)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Publish the depth and the dropped and sent totals of an outbound lane.
+     */
+    public void registerLane(OutboundLane<?> lane) {
+        Gauge.builder("gateway.lane.depth", lane, OutboundLane::getDepth)
+                .tag("lane", lane.getName())
+                .register(meterRegistry);
+        FunctionCounter.builder("gateway.lane.dropped", lane, OutboundLane::getDropped)
+                .description("Messages dropped because the lane was full")
+                .tag("lane", lane.getName())
+                .register(meterRegistry);
+        FunctionCounter.builder("gateway.lane.sent", lane, OutboundLane::getSent)
+                .tag("lane", lane.getName())
+                .register(meterRegistry);
+        counters.register("lane." + lane.getName() + ".depth", CountersFile.TYPE_GAUGE, lane::getDepth);
+        counters.register("lane." + lane.getName() + ".dropped", CountersFile.TYPE_COUNTER, lane::getDropped);
+        counters.register("lane." + lane.getName() + ".sent", CountersFile.TYPE_COUNTER, lane::getSent);
+        log.info("Registered metrics for outbound lane {}", lane.getName());
+    }
+
+    /**
+     * Publish a per-sensor value, such as a ratio over the recent frames of that sensor.
+     */
+    public <T> void registerSensorGauge(String name, String description, SensorsType sensor, T source, ToDoubleFunction<T> value) {
+        Gauge.builder(name, source, value)
+                .description(description)
+                .tag("sensor", sensor.name().toLowerCase())
+                .register(meterRegistry);
+    }
+
+    public <T> void registerQueue(String name, T queue, ToDoubleFunction<T> depth) {
+        Gauge.builder("gateway.queue.depth", queue, depth)
+                .tag("queue", name)
+                .register(meterRegistry);
+        counters.register("queue." + name + ".depth", CountersFile.TYPE_GAUGE, () -> (long) depth.applyAsDouble(queue));
+    }
+
+    public <T> void registerDrops(String name, T source, ToDoubleFunction<T> dropped) {
+        FunctionCounter.builder("gateway.dropped", source, dropped)
+                .tag("source", name)
+                .register(meterRegistry);
+        counters.register("dropped." + name, CountersFile.TYPE_COUNTER, () -> (long) dropped.applyAsDouble(source));
+    }
+}
@@ -0,0 +1,109 @@
+package com.reeco.bas.transport.infrastructure.outbound;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Bounded outbound queue drained by its own sender thread. Each lane is independent,
+ * so a backlog in one lane can never delay another.
+ */
+@Slf4j
+public class OutboundLane<T> {
+    private static final long POLL_TIMEOUT_MS = 1000;
+
+    private final String name;
+    private final BlockingQueue<T> queue;
+    private final int maxBatchSize;
+    private final Consumer<List<T>> sender;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+
+    private volatile boolean running = false;
+    private Thread worker;
+
+    public OutboundLane(String name, int capacity, int maxBatchSize, Consumer<List<T>> sender) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.sender = sender;
+    }
+
+    /**
+     * Enqueue without blocking the caller. When the lane is full the oldest item is
+     * dropped so the freshest data always gets through.
+     */
+    public void offer(T item) {
+        while (!queue.offer(item)) {
+            if (queue.poll() != null) {
+                dropped.increment();
+            }
+        }
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::drain, "outbound-" + name);
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Outbound lane '{}' started (batch size {})", name, maxBatchSize);
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    private void drain() {
+        List<T> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                T first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                if (maxBatchSize > 1) {
+                    queue.drainTo(batch, maxBatchSize - 1);
+                }
+                sender.accept(batch);
+                sent.add(batch.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Outbound lane '{}' failed to send {} message(s): {}", name, batch.size(), e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getDepth() {
+        return queue.size();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getSent() {
+        return sent.sum();
+    }
+}
@@ -0,0 +1,225 @@
+package com.reeco.bas.transport.infrastructure.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reeco.bas.transport.application.CacheStorageService;
+import com.reeco.bas.transport.application.DataService;
+import com.reeco.bas.transport.application.VesselStateMachine;
+import com.reeco.bas.transport.application.storage.SessionCatalog;
+import com.reeco.bas.transport.infrastructure.health.HealthRegistry;
+import com.reeco.bas.transport.infrastructure.health.HealthStatus;
+import com.reeco.bas.transport.model.SyncPayload;
+import com.reeco.bas.transport.utils.annotators.Infrastructure;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Optional HTTP endpoint on the JDK's built-in server, for boxes where the servlet stack is
+ * too heavy (the application runs with {@code WebApplicationType.NONE}).
+ * <ul>
+ *   <li>{@code /health} every component of the {@link HealthRegistry}; 503 unless all are up</li>
+ *   <li>{@code /ready} readiness, 503 while a component is down</li>
+ *   <li>{@code /metrics} every meter of the registry in Prometheus text format, see {@link PrometheusWriter}</li>
+ *   <li>{@code /state} the vessel state and the latest fused record</li>
+ *   <li>{@code /stream} fused records and state transitions as Server-Sent Events, see {@link LiveStreamHub}</li>
+ *   <li>{@code /sessions?berth=&from=&to=} catalog entries of the sealed segments with samples in the range</li>
+ *   <li>{@code /samples?berth=&from=&to=} samples of the sealed segments in the range, at most
+ *   {@code storage.query.max-range} long</li>
+ * </ul>
+ * Times are event times ({@code yyyy-MM-dd'T'HH:mm:ss.SSSSS}); invalid parameters answer 400.
+ */
+@Infrastructure
+@Slf4j
+@ConditionalOnProperty(name = "gateway.http.enabled", havingValue = "true")
+public class GatewayHttpServer {
+    private static final String JSON = "application/json";
+    private static final String TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Value("${gateway.http.host:127.0.0.1}")
+    private String host;
+
+    @Value("${gateway.http.port:8081}")
+    private int port;
+
+    @Value("${gateway.http.threads:2}")
+    private int threads;
+
+    @Autowired
+    private DataService dataService;
+
+    @Autowired
+    private VesselStateMachine vesselStateMachine;
+
+    @Autowired
+    private HealthRegistry healthRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LiveStreamHub liveStreamHub;
+
+    @Autowired
+    private CacheStorageService cacheStorageService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext("/health", get(this::handleHealth));
+        server.createContext("/ready", get(this::handleReady));
+        server.createContext("/metrics", get(this::handleMetrics));
+        server.createContext("/state", get(this::handleState));
+        server.createContext("/stream", this::handleStream);
+        server.createContext("/sessions", get(this::handleSessions));
+        server.createContext("/samples", get(this::handleSamples));
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "gateway-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+        log.info("Gateway HTTP endpoint listening on http://{}:{}", host, port);
+    }
+
+    @PreDestroy
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Server instance, for handlers added by other components.
+     */
+    public HttpServer getServer() {
+        return server;
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        HealthStatus status = healthRegistry.getStatus();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", status);
+        body.put("components", healthRegistry.getSnapshot());
+        send(exchange, status == HealthStatus.UP ? 200 : 503, JSON, objectMapper.writeValueAsBytes(body));
+    }
+
+    private void handleReady(HttpExchange exchange) throws IOException {
+        boolean ready = healthRegistry.isReady();
+        Map<String, Object> body = Map.of("ready", ready, "status", healthRegistry.getStatus());
+        send(exchange, ready ? 200 : 503, JSON, objectMapper.writeValueAsBytes(body));
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        PrometheusWriter writer = new PrometheusWriter();
+        meterRegistry.forEachMeter(writer::add);
+        send(exchange, 200, TEXT, writer.write().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void handleState(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("vessel_state", vesselStateMachine.getCurrentState());
+        body.put("combined", dataService.getLastCombinedData());
+        send(exchange, 200, JSON, objectMapper.writeValueAsBytes(body));
+    }
+
+    private void handleSessions(HttpExchange exchange) throws IOException {
+        Map<String, String> query = queryParameters(exchange);
+        try {
+            List<SessionCatalog.Entry> sessions = cacheStorageService.findSessions(berthOf(query), query.get("from"), query.get("to"));
+            send(exchange, 200, JSON, objectMapper.writeValueAsBytes(sessions));
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, JSON, objectMapper.writeValueAsBytes(Map.of("error", e.getMessage())));
+        }
+    }
+
+    private void handleSamples(HttpExchange exchange) throws IOException {
+        Map<String, String> query = queryParameters(exchange);
+        try {
+            List<SyncPayload> samples = cacheStorageService.querySamples(berthOf(query), query.get("from"), query.get("to"));
+            send(exchange, 200, JSON, objectMapper.writeValueAsBytes(samples));
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, JSON, objectMapper.writeValueAsBytes(Map.of("error", e.getMessage())));
+        }
+    }
+
+    private static int berthOf(Map<String, String> query) {
+        String berth = query.get("berth");
+        try {
+            return Integer.parseInt(berth);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("berth must be a number, got " + berth);
+        }
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private void handleStream(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+        // The hub keeps the exchange open and writes to it from its own thread
+        liveStreamHub.subscribe(exchange);
+    }
+
+    private static HttpHandler get(HttpHandler handler) {
+        return exchange -> {
+            try (exchange) {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    exchange.sendResponseHeaders(405, -1);
+                    return;
+                }
+                handler.handle(exchange);
+            } catch (Exception e) {
+                log.warn("Request {} failed: {}", exchange.getRequestURI(), e.getMessage());
+            }
+        };
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
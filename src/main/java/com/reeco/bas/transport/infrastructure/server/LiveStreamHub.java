@@ -0,0 +1,233 @@
+package com.reeco.bas.transport.infrastructure.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.reeco.bas.transport.infrastructure.metrics.PipelineMetrics;
+import com.reeco.bas.transport.model.CombinedData;
+import com.reeco.bas.transport.model.VesselStateTransition;
+import com.reeco.bas.transport.utils.annotators.Infrastructure;
+import com.sun.net.httpserver.HttpExchange;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans fused records and vessel state transitions out to local dashboards as Server-Sent Events.
+ * <p>
+ * Each event is serialized once into an immutable frame that every subscriber shares. A
+ * subscriber owns a bounded queue drained by its own writer thread, so a slow client only
+ * loses its own frames: with {@code DROP} the oldest queued frame makes room, with
+ * {@code CONFLATE} a new fused record replaces the one still waiting, so the display always
+ * jumps to the latest sample. Transitions are never conflated. Publishing costs nothing while
+ * nobody is connected.
+ */
+@Infrastructure
+@Slf4j
+public class LiveStreamHub {
+    private static final byte[] HEARTBEAT = ": ping\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    public enum OverflowPolicy {
+        DROP,
+        CONFLATE
+    }
+
+    @Value("${gateway.stream.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${gateway.stream.overflow:CONFLATE}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${gateway.stream.max-clients:16}")
+    private int maxClients;
+
+    @Value("${gateway.stream.heartbeat-interval:15000}")
+    private long heartbeatMs;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicInteger clientIds = new AtomicInteger();
+    private volatile Frame lastCombined;
+    private ExecutorService writers;
+
+    @PostConstruct
+    public void init() {
+        writers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stream-writer-" + clientIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pipelineMetrics.registerQueue("stream_clients", subscribers, Set::size);
+        pipelineMetrics.registerDrops("stream", dropped, AtomicLong::get);
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.forEach(Subscriber::close);
+        writers.shutdownNow();
+    }
+
+    public void publishCombined(CombinedData record) {
+        if (subscribers.isEmpty()) {
+            lastCombined = null;
+            return;
+        }
+        Frame frame = frame("combined", record, true);
+        if (frame != null) {
+            lastCombined = frame;
+            broadcast(frame);
+        }
+    }
+
+    public void publishTransition(VesselStateTransition transition) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Frame frame = frame("transition", transition, false);
+        if (frame != null) {
+            broadcast(frame);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Take over an exchange for {@code /stream}: send the SSE headers and hand the connection
+     * to a writer thread, so the server's request threads are not held by long-lived clients.
+     */
+    public void subscribe(HttpExchange exchange) throws IOException {
+        if (subscribers.size() >= maxClients) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(200, 0);
+
+        Subscriber subscriber = new Subscriber(exchange);
+        Frame latest = lastCombined;
+        if (latest != null) {
+            subscriber.offer(latest);
+        }
+        subscribers.add(subscriber);
+        writers.execute(subscriber::drain);
+        log.info("Stream client {} connected ({} total)", exchange.getRemoteAddress(), subscribers.size());
+    }
+
+    private void broadcast(Frame frame) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(frame);
+        }
+    }
+
+    private Frame frame(String event, Object payload, boolean conflatable) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(payload);
+            byte[] prefix = ("event: " + event + "\ndata: ").getBytes(StandardCharsets.US_ASCII);
+            byte[] bytes = new byte[prefix.length + json.length + 2];
+            System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+            System.arraycopy(json, 0, bytes, prefix.length, json.length);
+            bytes[bytes.length - 2] = '\n';
+            bytes[bytes.length - 1] = '\n';
+            return new Frame(bytes, conflatable);
+        } catch (IOException e) {
+            log.warn("Failed to serialize {} event: {}", event, e.getMessage());
+            return null;
+        }
+    }
+
+    private record Frame(byte[] bytes, boolean conflatable) {
+    }
+
+    private final class Subscriber {
+        private final HttpExchange exchange;
+        private final ArrayDeque<Frame> queue = new ArrayDeque<>(queueCapacity);
+        private boolean closed;
+
+        Subscriber(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        synchronized void offer(Frame frame) {
+            if (closed) {
+                return;
+            }
+            if (frame.conflatable() && overflowPolicy == OverflowPolicy.CONFLATE
+                    && queue.removeIf(Frame::conflatable)) {
+                dropped.incrementAndGet();
+            }
+            if (queue.size() >= queueCapacity) {
+                queue.pollFirst();
+                dropped.incrementAndGet();
+            }
+            queue.addLast(frame);
+            notifyAll();
+        }
+
+        synchronized Frame take() throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(heartbeatMs);
+            while (queue.isEmpty() && !closed) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return queue.pollFirst();
+        }
+
+        void drain() {
+            try (OutputStream out = exchange.getResponseBody()) {
+                while (!isClosed()) {
+                    Frame frame = take();
+                    if (frame == null && isClosed()) {
+                        break;
+                    }
+                    out.write(frame != null ? frame.bytes() : HEARTBEAT);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                log.debug("Stream client {} went away: {}", exchange.getRemoteAddress(), e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+                subscribers.remove(this);
+                exchange.close();
+                log.info("Stream client {} disconnected ({} remaining)", exchange.getRemoteAddress(), subscribers.size());
+            }
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+
+        synchronized void close() {
+            closed = true;
+            queue.clear();
+            notifyAll();
+        }
+    }
+}
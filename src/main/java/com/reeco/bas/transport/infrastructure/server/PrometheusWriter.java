@@ -0,0 +1,136 @@
+package com.reeco.bas.transport.infrastructure.server;
+
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prometheus text exposition (format 0.0.4) of micrometer meters, following the naming of
+ * micrometer's own Prometheus registry: counters end in {@code _total}, timers are summaries
+ * in seconds with {@code _count} and {@code _sum} plus a {@code _max} gauge, and every metric
+ * family gets one {@code # HELP} and {@code # TYPE} line however many tag sets it has.
+ */
+class PrometheusWriter {
+    private final Map<String, Family> families = new TreeMap<>();
+
+    void add(Meter meter) {
+        meter.use(
+                gauge -> sample(meter, baseName(meter, null), "gauge", "", gauge.value()),
+                counter -> sample(meter, counterName(meter), "counter", "", counter.count()),
+                timer -> {
+                    String name = baseName(meter, "seconds");
+                    sample(meter, name, "summary", "_count", timer.count());
+                    sample(meter, name, "summary", "_sum", timer.totalTime(TimeUnit.SECONDS));
+                    sample(meter, name + "_max", "gauge", "", timer.max(TimeUnit.SECONDS));
+                },
+                summary -> {
+                    String name = baseName(meter, null);
+                    sample(meter, name, "summary", "_count", summary.count());
+                    sample(meter, name, "summary", "_sum", summary.totalAmount());
+                    sample(meter, name + "_max", "gauge", "", summary.max());
+                },
+                longTaskTimer -> {
+                    String name = baseName(meter, "seconds");
+                    sample(meter, name + "_active_count", "gauge", "", longTaskTimer.activeTasks());
+                    sample(meter, name + "_duration_sum", "gauge", "", longTaskTimer.duration(TimeUnit.SECONDS));
+                    sample(meter, name + "_max", "gauge", "", longTaskTimer.max(TimeUnit.SECONDS));
+                },
+                timeGauge -> sample(meter, baseName(meter, "seconds"), "gauge", "", timeGauge.value(TimeUnit.SECONDS)),
+                functionCounter -> sample(meter, counterName(meter), "counter", "", functionCounter.count()),
+                functionTimer -> {
+                    String name = baseName(meter, "seconds");
+                    sample(meter, name, "summary", "_count", functionTimer.count());
+                    sample(meter, name, "summary", "_sum", functionTimer.totalTime(TimeUnit.SECONDS));
+                },
+                other -> {
+                    String name = baseName(meter, null);
+                    for (Measurement measurement : other.measure()) {
+                        String statistic = measurement.getStatistic().getTagValueRepresentation();
+                        sample(meter, name + "_" + sanitize(statistic), "untyped", "", measurement.getValue());
+                    }
+                });
+    }
+
+    String write() {
+        StringBuilder out = new StringBuilder(8192);
+        families.forEach((name, family) -> {
+            out.append("# HELP ").append(name).append(' ').append(escapeHelp(family.help)).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            out.append(family.samples);
+        });
+        return out.toString();
+    }
+
+    private void sample(Meter meter, String name, String type, String suffix, double value) {
+        String description = meter.getId().getDescription();
+        Family family = families.computeIfAbsent(name,
+                key -> new Family(type, description != null ? description : meter.getId().getName()));
+        StringBuilder samples = family.samples;
+        samples.append(name).append(suffix);
+        boolean first = true;
+        for (Tag tag : meter.getId().getTagsAsIterable()) {
+            samples.append(first ? '{' : ',');
+            samples.append(sanitize(tag.getKey())).append("=\"").append(escapeLabel(tag.getValue())).append('"');
+            first = false;
+        }
+        if (!first) {
+            samples.append('}');
+        }
+        samples.append(' ').append(format(value)).append('\n');
+    }
+
+    /**
+     * Sanitized meter name with its base unit, or {@code unit} for time based meters.
+     */
+    private static String baseName(Meter meter, String unit) {
+        String name = sanitize(meter.getId().getName());
+        String baseUnit = unit != null ? unit : meter.getId().getBaseUnit();
+        if (baseUnit != null && !baseUnit.isEmpty() && !name.endsWith("_" + baseUnit)) {
+            name += "_" + sanitize(baseUnit);
+        }
+        return name;
+    }
+
+    private static String counterName(Meter meter) {
+        String name = baseName(meter, null);
+        return name.endsWith("_total") ? name : name + "_total";
+    }
+
+    static String sanitize(String name) {
+        String sanitized = name.replaceAll("[^a-zA-Z0-9_:]", "_");
+        return Character.isDigit(sanitized.charAt(0)) ? "_" + sanitized : sanitized;
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String escapeHelp(String value) {
+        return value.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return Double.toString(value);
+    }
+
+    private static final class Family {
+        private final String type;
+        private final String help;
+        private final StringBuilder samples = new StringBuilder();
+
+        private Family(String type, String help) {
+            this.type = type;
+            this.help = help;
+        }
+    }
+}
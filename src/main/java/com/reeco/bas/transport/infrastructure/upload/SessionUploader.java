@@ -0,0 +1,164 @@
+package com.reeco.bas.transport.infrastructure.upload;
+
+import com.reeco.bas.transport.infrastructure.http.CircuitBreaker;
+import com.reeco.bas.transport.infrastructure.http.CircuitBreakerOpenException;
+import com.reeco.bas.transport.infrastructure.http.CircuitBreakerRegistry;
+import com.reeco.bas.transport.model.SyncPayload;
+import com.reeco.bas.transport.utils.annotators.Infrastructure;
+import com.reeco.bas.transport.utils.annotators.Traced;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Uploads archived session records to the sync API in bounded chunks, several at a time.
+ * All workers share one token bucket, so draining a backlog after an outage cannot take
+ * more than the configured records per second away from live telemetry.
+ */
+@Infrastructure
+@Slf4j
+public class SessionUploader {
+    private static final String SYNC_ENDPOINT = "/api/sync";
+    private static final String CHUNK_HEADER = "X-Sync-Chunk";
+
+    @Value("${sync.api.url:https://smartbas-api.vnemisoft.com/api/sync}")
+    private String apiUrl;
+
+    @Value("${sync.upload.parallelism:4}")
+    private int parallelism;
+
+    @Value("${sync.upload.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${sync.upload.retry-delay:1000}")
+    private long retryDelayMillis;
+
+    @Value("${sync.upload.rate:2000}")
+    private double recordsPerSecond;
+
+    @Value("${sync.upload.connect-timeout:1000}")
+    private int connectTimeout;
+
+    @Value("${sync.upload.read-timeout:10000}")
+    private int readTimeout;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    private CircuitBreaker circuitBreaker;
+    private RestTemplate restTemplate;
+    private ExecutorService executor;
+    private TokenBucket rateLimiter;
+
+    @PostConstruct
+    public void createUploadWorkers() {
+        circuitBreaker = circuitBreakerRegistry.breaker(SYNC_ENDPOINT, readTimeout);
+        restTemplate = circuitBreakerRegistry.restTemplate(circuitBreaker, connectTimeout);
+        rateLimiter = new TokenBucket(recordsPerSecond, Math.max(1, recordsPerSecond));
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "sync-upload-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stopUploadWorkers() {
+        executor.shutdownNow();
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Upload the chunks concurrently.
+     * @param segment     name of the segment the chunks come from
+     * @param firstRecord index of the first record of the first chunk within the segment
+     * @return the number of leading chunks that were acknowledged. Chunks after the first
+     * failure may have been delivered as well; they are sent again on resume with the same
+     * {@value #CHUNK_HEADER} id, so the server can drop the duplicates.
+     */
+    @Traced
+    public int upload(String segment, long firstRecord, List<List<SyncPayload>> chunks) {
+        List<Future<Boolean>> results = new ArrayList<>(chunks.size());
+        long start = firstRecord;
+        for (List<SyncPayload> chunk : chunks) {
+            String chunkId = segment + ":" + start;
+            results.add(executor.submit(() -> uploadChunk(chunkId, chunk)));
+            start += chunk.size();
+        }
+
+        int acknowledged = 0;
+        boolean contiguous = true;
+        for (Future<Boolean> result : results) {
+            boolean success;
+            try {
+                success = result.get();
+            } catch (ExecutionException e) {
+                log.error("Chunk upload failed: {}", e.getCause().getMessage());
+                success = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                success = false;
+            }
+            if (success && contiguous) {
+                acknowledged++;
+            } else {
+                contiguous = false;
+            }
+        }
+        return acknowledged;
+    }
+
+    private boolean uploadChunk(String chunkId, List<SyncPayload> chunk) throws InterruptedException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(CHUNK_HEADER, chunkId);
+        HttpEntity<List<SyncPayload>> entity = new HttpEntity<>(chunk, headers);
+
+        for (int attempt = 1; attempt <= maxRetries; attempt++) {
+            rateLimiter.acquire(chunk.size());
+            try {
+                ResponseEntity<String> response = circuitBreaker.execute(() -> restTemplate.postForEntity(apiUrl, entity, String.class));
+                if (response.getStatusCode().is2xxSuccessful()) {
+                    log.debug("Uploaded chunk {} ({} records)", chunkId, chunk.size());
+                    return true;
+                }
+                log.warn("Chunk {} rejected with status {} (attempt {}/{})", chunkId, response.getStatusCode(), attempt, maxRetries);
+            } catch (CircuitBreakerOpenException e) {
+                log.debug("Chunk {} not uploaded: {}", chunkId, e.getMessage());
+                return false;
+            } catch (HttpClientErrorException e) {
+                // The request itself is wrong, sending it again will not help
+                log.error("Chunk {} rejected with status {}: {}", chunkId, e.getStatusCode(), e.getMessage());
+                return false;
+            } catch (RestClientException e) {
+                log.warn("Error uploading chunk {} (attempt {}/{}): {}", chunkId, attempt, maxRetries, e.getMessage());
+            }
+            if (attempt < maxRetries) {
+                TimeUnit.MILLISECONDS.sleep(retryDelayMillis << (attempt - 1));
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,50 @@
+package com.reeco.bas.transport.infrastructure.upload;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter. Requests larger than the bucket are admitted once it is full
+ * and leave it in debt, so chunk size never has to be tuned to the burst size.
+ */
+public class TokenBucket {
+    private final double ratePerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param ratePerSecond tokens added per second; zero or less disables limiting
+     * @param capacity      maximum burst
+     */
+    public TokenBucket(double ratePerSecond, double capacity) {
+        this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public void acquire(int permits) throws InterruptedException {
+        if (ratePerNano <= 0) {
+            return;
+        }
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                double required = Math.min(permits, capacity);
+                if (tokens >= required) {
+                    tokens -= permits;
+                    return;
+                }
+                waitNanos = (long) Math.ceil((required - tokens) / ratePerNano);
+            }
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * ratePerNano);
+        lastRefillNanos = now;
+    }
+}
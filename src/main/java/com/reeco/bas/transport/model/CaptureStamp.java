@@ -0,0 +1,17 @@
+package com.reeco.bas.transport.model;
+
+/**
+ * When a serial frame was read off the port. {@code nanos} is {@link System#nanoTime()} and is
+ * used to time the hops of the pipeline; {@code epochMillis} is wall-clock time and becomes the
+ * {@code event_time} of the fused record.
+ */
+public record CaptureStamp(long nanos, long epochMillis) {
+
+    public static CaptureStamp now() {
+        return new CaptureStamp(System.nanoTime(), System.currentTimeMillis());
+    }
+
+    public long ageNanos() {
+        return System.nanoTime() - nanos;
+    }
+}
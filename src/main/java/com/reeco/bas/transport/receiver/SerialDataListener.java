@@ -1,5 +1,7 @@
 package com.reeco.bas.transport.receiver;
 
+import com.reeco.bas.transport.model.CaptureStamp;
+
 public interface SerialDataListener {
-    void onDataReceived(String data);
+    void onDataReceived(String data, CaptureStamp capture);
 }
@@ -1,15 +1,31 @@
 package com.reeco.bas.transport.receiver;
 
 import com.fazecast.jSerialComm.SerialPort;
-import lombok.Value;
+import com.reeco.bas.transport.infrastructure.jfr.FrameReadEvent;
+import com.reeco.bas.transport.infrastructure.metrics.PipelineMetrics;
+import com.reeco.bas.transport.model.CaptureStamp;
+import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+
+@Slf4j
 public class SerialPortReader {
     private final SerialPort serialPort;
+    private final PipelineMetrics pipelineMetrics;
     private SerialDataListener dataListener;
+    private volatile Thread readerThread;
+    private volatile boolean running;
+    private volatile long framesRead;
+    private volatile long lastFrameTime;
 
     private static final int BAUDRATE=115200;
 
     public SerialPortReader(String portName) {
+        this(portName, null);
+    }
+
+    public SerialPortReader(String portName, PipelineMetrics pipelineMetrics) {
+        this.pipelineMetrics = pipelineMetrics;
         this.serialPort = SerialPort.getCommPort(portName);
         this.serialPort.setComPortParameters(BAUDRATE, 8, 1, 0); // Baud rate, data bits, stop bits, parity
         // this.serialPort.setComPortTimeouts(SerialPort.TIMEOUT_READ_SEMI_BLOCKING, 0, 0);
@@ -19,33 +35,103 @@ public class SerialPortReader {
         this.dataListener = listener;
     }
 
+    public String getPortName() {
+        return serialPort.getSystemPortName();
+    }
+
+    public boolean isOpen() {
+        return serialPort.isOpen();
+    }
+
+    /**
+     * @return whether the reading thread is running; false before the first start, when the
+     *         port could not be opened, or after the thread died
+     */
+    public boolean isAlive() {
+        Thread thread = readerThread;
+        return thread != null && thread.isAlive();
+    }
+
+    public long getFramesRead() {
+        return framesRead;
+    }
+
+    /**
+     * @return epoch millis of the last frame read, or 0 if none was read yet
+     */
+    public long getLastFrameTime() {
+        return lastFrameTime;
+    }
 
-    public void startListening() {
+    /**
+     * Open the port and start the reading thread. Can be called again after the thread died.
+     *
+     * @return false if the port could not be opened
+     */
+    public synchronized boolean startListening() {
+        if (isAlive()) {
+            return true;
+        }
         if (serialPort.openPort()) {
-            System.out.println("Port " + serialPort.getSystemPortName() + " opened successfully.");
-            new Thread(() -> {
+            log.info("Port {} opened successfully.", serialPort.getSystemPortName());
+            running = true;
+            Thread thread = new Thread(() -> {
                 try {
-                    while (true) {
-                        if (serialPort.bytesAvailable() > 0) {
-                            byte[] readBuffer = new byte[serialPort.bytesAvailable()];
+                    while (running) {
+                        int available = serialPort.bytesAvailable();
+                        if (available < 0) {
+                            // jSerialComm reports -1 once the device is gone
+                            throw new IOException("port disconnected");
+                        }
+                        if (available > 0) {
+                            long readStart = System.nanoTime();
+                            CaptureStamp capture = new CaptureStamp(readStart, System.currentTimeMillis());
+                            FrameReadEvent frameRead = new FrameReadEvent();
+                            frameRead.begin();
+                            byte[] readBuffer = new byte[available];
                             int numRead = serialPort.readBytes(readBuffer, readBuffer.length);
+                            if (numRead < 0) {
+                                throw new IOException("port disconnected");
+                            }
+                            framesRead++;
+                            lastFrameTime = capture.epochMillis();
+                            if (frameRead.shouldCommit()) {
+                                frameRead.port = serialPort.getSystemPortName();
+                                frameRead.bytes = numRead;
+                                frameRead.commit();
+                            }
                             String data = new String(readBuffer,0,numRead);
+                            if (pipelineMetrics != null) {
+                                pipelineMetrics.record(PipelineMetrics.Stage.SERIAL_READ, readStart);
+                            }
                             if (dataListener != null) {
-                                dataListener.onDataReceived(data);
+                                dataListener.onDataReceived(data, capture);
                             }
-                            // System.out.println("Read port: " + serialPort.getSystemPortName() + " " + numRead + " bytes: " + data);
                         }
                         Thread.sleep(1000); 
                     }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 } catch (Exception e) {
-                    e.printStackTrace();
+                    log.error("Reading port {} failed: {}", serialPort.getSystemPortName(), e.getMessage(), e);
                 } finally {
                     serialPort.closePort();
-                    System.out.println("Port " + serialPort.getSystemPortName() + " closed.");
+                    log.info("Port {} closed.", serialPort.getSystemPortName());
                 }
-            }).start();
-        } else {
-            System.out.println("Failed to open port " + serialPort.getSystemPortName());
+            }, "serial-" + serialPort.getSystemPortName());
+            readerThread = thread;
+            thread.start();
+            return true;
+        }
+        log.error("Failed to open port {}", serialPort.getSystemPortName());
+        return false;
+    }
+
+    public synchronized void stopListening() {
+        running = false;
+        Thread thread = readerThread;
+        if (thread != null) {
+            thread.interrupt();
         }
     }
 }
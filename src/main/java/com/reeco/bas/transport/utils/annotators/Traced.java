@@ -0,0 +1,23 @@
+package com.reeco.bas.transport.utils.annotators;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Opt a method into sampled tracing. Sampled calls are timed into the
+ * {@code gateway.traced} timer; nothing is intercepted unless {@code tracing.enabled=true}.
+ * With tracing on the whole bean is proxied, so keep it off beans called for every sample.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Traced {
+
+    /**
+     * Name of the timer tag; defaults to {@code Class.method}.
+     */
+    String value() default "";
+}
@@ -1,32 +1,28 @@
 package com.reeco.bas.transport.utils.logging;
 
-import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.annotation.*;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
 
+/**
+ * Logs entry, exit and exceptions of REST controllers. Services are not intercepted; use
+ * {@link com.reeco.bas.transport.utils.annotators.Traced} to time them.
+ */
 @Aspect
 @Component
 public class LoggingAspect {
 
-    @Pointcut("execution(* com.reeco.bas.transport..*.*(..))")
-    public void applicationPointcut() {
-    }
-
     @Pointcut("within(@org.springframework.web.bind.annotation.RestController *)")
     public void controllerPointcut() {
     }
 
-    @Pointcut("within(@org.springframework.stereotype.Service *) || " +
-            "within(@com.reeco.bas.transport.utils.annotators.Service *)")
-    public void servicePointcut() {
-    }
-
-    @Around("servicePointcut() || controllerPointcut()")
+    @Around("controllerPointcut()")
     public Object logAround(ProceedingJoinPoint joinPoint) throws Throwable {
         Logger log = LoggerFactory.getLogger(joinPoint.getSignature().getDeclaringType());
 
@@ -56,15 +52,4 @@ public class LoggingAspect {
             throw e;
         }
     }
-
-    @AfterThrowing(pointcut = "applicationPointcut()", throwing = "e")
-    public void logAfterThrowing(JoinPoint joinPoint, Throwable e) {
-        Logger log = LoggerFactory.getLogger(joinPoint.getSignature().getDeclaringType());
-        log.error("Exception in {}.{}() with cause = '{}' and message = '{}'",
-                joinPoint.getSignature().getDeclaringTypeName(),
-                joinPoint.getSignature().getName(),
-                e.getCause() != null ? e.getCause() : "NULL",
-                e.getMessage(),
-                e);
-    }
-}
\ No newline at end of file
+}
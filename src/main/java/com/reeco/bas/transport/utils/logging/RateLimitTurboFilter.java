@@ -0,0 +1,90 @@
+package com.reeco.bas.transport.utils.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Samples and rate-limits the loggers under a prefix, per logger. Turbo filters run before
+ * a logging event is created, so a denied line costs neither formatting nor a queue slot.
+ * WARN and above always pass.
+ * <pre>
+ * &lt;turboFilter class="com.reeco.bas.transport.utils.logging.RateLimitTurboFilter"&gt;
+ *     &lt;prefix&gt;telemetry&lt;/prefix&gt;
+ *     &lt;sampleEvery&gt;10&lt;/sampleEvery&gt;
+ *     &lt;maxPerSecond&gt;5&lt;/maxPerSecond&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ */
+public class RateLimitTurboFilter extends TurboFilter {
+    private String prefix = TelemetryLog.CATEGORY;
+    private int sampleEvery = 1;
+    private int maxPerSecond = 10;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (!isStarted() || level == null || level.isGreaterOrEqual(Level.WARN) || !logger.getName().startsWith(prefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        // isInfoEnabled and friends come through here without a message; they must not use up a slot
+        if (format == null) {
+            return FilterReply.NEUTRAL;
+        }
+        // Below the logger's level the event is dropped anyway; leave that to the normal check.
+        // Not isEnabledFor: it runs the turbo filters again and would recurse into this method.
+        if (level.toInt() < logger.getEffectiveLevel().toInt()) {
+            return FilterReply.NEUTRAL;
+        }
+        Window window = windows.computeIfAbsent(logger.getName(), name -> new Window());
+        return window.admit(sampleEvery, maxPerSecond) ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public void setSampleEvery(int sampleEvery) {
+        this.sampleEvery = Math.max(1, sampleEvery);
+    }
+
+    public void setMaxPerSecond(int maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    /**
+     * The current second and the lines written in it share one long (second in the high
+     * 32 bits, count in the low), so the per-second reset and the increment are one CAS.
+     */
+    private static final class Window {
+        private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+        private final AtomicLong seen = new AtomicLong();
+        private final AtomicLong secondAndWritten = new AtomicLong();
+
+        boolean admit(int sampleEvery, int maxPerSecond) {
+            if (seen.getAndIncrement() % sampleEvery != 0) {
+                return false;
+            }
+            long now = System.currentTimeMillis() / 1000;
+            while (true) {
+                long current = secondAndWritten.get();
+                long second = current >>> 32;
+                // A thread that read the clock just before the second turned over counts in the new one
+                long written = now > second ? 0 : current & COUNT_MASK;
+                if (written >= maxPerSecond) {
+                    return false;
+                }
+                if (secondAndWritten.compareAndSet(current, Math.max(now, second) << 32 | (written + 1))) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.reeco.bas.transport.utils.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loggers for per-sample records. They live under the {@code telemetry} category, which
+ * {@code logback-spring.xml} writes through its own bounded async appender and which
+ * {@link RateLimitTurboFilter} thins out, so sample logging never slows down ingestion.
+ * Always log through placeholders: a line the filter drops is then never formatted.
+ */
+public final class TelemetryLog {
+    public static final String CATEGORY = "telemetry";
+
+    /** Frames as read from the serial ports. */
+    public static final Logger SERIAL = LoggerFactory.getLogger(CATEGORY + ".serial");
+    /** Parsed per-sensor records. */
+    public static final Logger RAW = LoggerFactory.getLogger(CATEGORY + ".raw");
+    /** Fused records. */
+    public static final Logger PROCESSED = LoggerFactory.getLogger(CATEGORY + ".processed");
+
+    private TelemetryLog() {
+    }
+}
@@ -0,0 +1,83 @@
+package com.reeco.bas.transport.utils.logging;
+
+import com.reeco.bas.transport.infrastructure.metrics.PipelineMetrics;
+import com.reeco.bas.transport.utils.annotators.Traced;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Times a sample of the calls to {@link Traced} methods. Each method is sampled on its own:
+ * a call is timed with probability {@code tracing.sample-rate}, and at least once every
+ * {@code tracing.min-interval}, so rarely called methods still report. The aspect only exists
+ * when {@code tracing.enabled=true}, so with tracing off no bean is proxied for it at all.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "tracing.enabled", havingValue = "true")
+public class TracingAspect {
+
+    @Value("${tracing.sample-rate:0.01}")
+    private double sampleRate;
+
+    @Value("${tracing.min-interval:60000}")
+    private long minIntervalMs;
+
+    private final PipelineMetrics pipelineMetrics;
+
+    private final Map<Method, TracedMethod> methods = new ConcurrentHashMap<>();
+
+    @Around("@annotation(traced)")
+    public Object trace(ProceedingJoinPoint joinPoint, Traced traced) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        TracedMethod tracedMethod = methods.computeIfAbsent(method, key -> new TracedMethod(traced.value().isEmpty()
+                ? key.getDeclaringClass().getSimpleName() + "." + key.getName()
+                : traced.value()));
+        if (!tracedMethod.sample(sampleRate, TimeUnit.MILLISECONDS.toNanos(minIntervalMs))) {
+            return joinPoint.proceed();
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = joinPoint.proceed();
+            failed = false;
+            return result;
+        } finally {
+            pipelineMetrics.recordTraced(tracedMethod.name, failed, System.nanoTime() - start);
+        }
+    }
+
+    static final class TracedMethod {
+        private final String name;
+        private final AtomicLong lastSampledNanos = new AtomicLong();
+        private volatile boolean sampled;
+
+        TracedMethod(String name) {
+            this.name = name;
+        }
+
+        boolean sample(double sampleRate, long minIntervalNanos) {
+            long now = System.nanoTime();
+            boolean due = !sampled || now - lastSampledNanos.get() >= minIntervalNanos;
+            if (!due && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+                return false;
+            }
+            lastSampledNanos.set(now);
+            sampled = true;
+            return true;
+        }
+    }
+}
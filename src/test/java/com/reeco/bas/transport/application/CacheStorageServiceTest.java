@@ -0,0 +1,93 @@
+package com.reeco.bas.transport.application;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reeco.bas.transport.application.storage.SegmentFormat;
+import com.reeco.bas.transport.infrastructure.metrics.GatewayCounters;
+import com.reeco.bas.transport.infrastructure.metrics.PipelineMetrics;
+import com.reeco.bas.transport.model.SyncPayload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CacheStorageServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private CacheStorageService service;
+
+    @BeforeEach
+    void setUp() {
+        PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry(), new GatewayCounters(), 1000);
+        SensorQualityMonitor quality = new SensorQualityMonitor();
+        ReflectionTestUtils.setField(quality, "windowSize", 16);
+        ReflectionTestUtils.setField(quality, "pipelineMetrics", metrics);
+        quality.init();
+
+        // One byte per segment: every spilled chunk rolls the segment over
+        service = new CacheStorageService(directory, 2, 1, Long.MAX_VALUE, SegmentFormat.ARCHIVE);
+        ReflectionTestUtils.setField(service, "pipelineMetrics", metrics);
+        ReflectionTestUtils.setField(service, "sensorQualityMonitor", quality);
+    }
+
+    @Test
+    void stopRightAfterARolloverStillPublishesTheSummary() throws IOException {
+        service.addItem(sample("2026-10-19T08:15:30.00000", 12.5));
+        service.addItem(sample("2026-10-19T08:15:30.50000", 11.0));
+
+        String sealed = service.exportAndClear(52, 1, 30);
+
+        assertNotNull(sealed);
+        JsonNode summary = readSummary(sealed);
+        assertEquals(30, summary.get("sessionId").asInt());
+        assertEquals(2, summary.get("sampleCount").asLong());
+        assertEquals(0, service.getSessionStatistics().getSampleCount());
+        assertNull(service.exportAndClear(52, 1, 30));
+    }
+
+    @Test
+    void summaryGoesNextToTheLastSegmentOfTheSession() throws IOException {
+        service.addItem(sample("2026-10-19T08:15:30.00000", 12.5));
+        service.addItem(sample("2026-10-19T08:15:30.50000", 11.0));
+        service.addItem(sample("2026-10-19T08:15:31.00000", 10.5));
+
+        String sealed = service.exportAndClear(52, 1, 30);
+
+        assertEquals(3, readSummary(sealed).get("sampleCount").asLong());
+        assertEquals(0, service.getSessionStatistics().getSampleCount());
+    }
+
+    private static JsonNode readSummary(String sealed) throws IOException {
+        String name = Paths.get(sealed).getFileName().toString();
+        Path summary = Paths.get(sealed).resolveSibling(name.substring(0, name.lastIndexOf('.'))
+                + CacheStorageService.SUMMARY_SUFFIX);
+        return new ObjectMapper().readTree(summary.toFile());
+    }
+
+    private static SyncPayload sample(String time, double distance) {
+        SyncPayload sample = new SyncPayload();
+        sample.setOrgId(52);
+        sample.setBerthId(1);
+        sample.setRecordId(30);
+        sample.setTime(time);
+        sample.setLDistanceZone(1);
+        sample.setRDistanceZone(1);
+        sample.setLeftDistance(distance);
+        sample.setRightDistance(distance + 0.5);
+        sample.setCreatedAt(time);
+        sample.setUpdatedAt(time);
+        sample.setDeletedAt("");
+        return sample;
+    }
+}
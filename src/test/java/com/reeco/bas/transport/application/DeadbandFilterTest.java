@@ -0,0 +1,122 @@
+package com.reeco.bas.transport.application;
+
+import com.reeco.bas.transport.model.CombinedData;
+import com.reeco.bas.transport.model.DataModel;
+import com.reeco.bas.transport.model.SensorsType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadbandFilterTest {
+
+    private DeadbandFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new DeadbandFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "maxSilenceMs", 10_000L);
+        ReflectionTestUtils.setField(filter, "rawDistanceDeadband", 0.01);
+        ReflectionTestUtils.setField(filter, "rawSpeedDeadband", 0.005);
+        ReflectionTestUtils.setField(filter, "angleDeadband", 0.1);
+        ReflectionTestUtils.setField(filter, "distanceDeadband", 0.01);
+        ReflectionTestUtils.setField(filter, "speedDeadband", 0.5);
+        filter.init();
+    }
+
+    @Test
+    void rawSignalsUseTheirOwnDeadband() {
+        assertTrue(filter.shouldEmitRaw(raw(SensorsType.LEFT, 12.5, -1.0, 0), 0));
+
+        // 0.008 is inside the distance deadband but outside the speed one
+        assertFalse(filter.shouldEmitRaw(raw(SensorsType.LEFT, 12.508, -1.0, 0), 100));
+        assertTrue(filter.shouldEmitRaw(raw(SensorsType.LEFT, 12.5, -1.008, 0), 200));
+        // Each sensor keeps its own baseline
+        assertTrue(filter.shouldEmitRaw(raw(SensorsType.RIGHT, 12.5, -1.008, 0), 300));
+    }
+
+    @Test
+    void driftIsMeasuredFromTheLastEmittedValue() {
+        assertTrue(filter.shouldEmitRaw(raw(SensorsType.LEFT, 12.5, -1.0, 0), 0));
+
+        assertFalse(filter.shouldEmitRaw(raw(SensorsType.LEFT, 12.506, -1.0, 0), 100));
+        assertTrue(filter.shouldEmitRaw(raw(SensorsType.LEFT, 12.512, -1.0, 0), 200));
+    }
+
+    @Test
+    void processedSignalsUseTheirOwnDeadband() {
+        assertTrue(filter.shouldEmitProcessed(processed(1.0, 12.5, -1.0, 0), 0));
+
+        assertFalse(filter.shouldEmitProcessed(processed(1.05, 12.5, -1.0, 0), 100));
+        assertFalse(filter.shouldEmitProcessed(processed(1.0, 12.5, -1.3, 0), 200));
+        assertTrue(filter.shouldEmitProcessed(processed(1.15, 12.5, -1.0, 0), 300));
+        assertTrue(filter.shouldEmitProcessed(processed(1.15, 12.52, -1.0, 0), 400));
+        assertTrue(filter.shouldEmitProcessed(processed(1.15, 12.52, -1.6, 0), 500));
+    }
+
+    @Test
+    void silenceLongerThanTheMaximumForcesAnEmit() {
+        DataModel steady = raw(SensorsType.LEFT, 12.5, -1.0, 0);
+        assertTrue(filter.shouldEmitRaw(steady, 0));
+        assertTrue(filter.shouldEmitProcessed(processed(1.0, 12.5, -1.0, 0), 0));
+
+        assertFalse(filter.shouldEmitRaw(steady, 9_999));
+        assertFalse(filter.shouldEmitProcessed(processed(1.0, 12.5, -1.0, 0), 9_999));
+        assertTrue(filter.shouldEmitRaw(steady, 10_000));
+        assertTrue(filter.shouldEmitProcessed(processed(1.0, 12.5, -1.0, 0), 10_000));
+        // The forced emit restarts the silence window
+        assertFalse(filter.shouldEmitRaw(steady, 19_999));
+    }
+
+    @Test
+    void errorCodeChangesBypassTheDeadband() {
+        assertTrue(filter.shouldEmitRaw(raw(SensorsType.LEFT, 12.5, -1.0, 0), 0));
+        assertTrue(filter.shouldEmitProcessed(processed(1.0, 12.5, -1.0, 0), 0));
+
+        assertTrue(filter.shouldEmitRaw(raw(SensorsType.LEFT, 12.5, -1.0, 1031), 100));
+        assertTrue(filter.shouldEmitProcessed(processed(1.0, 12.5, -1.0, 1031), 100));
+        assertFalse(filter.shouldEmitRaw(raw(SensorsType.LEFT, 12.5, -1.0, 1031), 200));
+        // Clearing the error is reported too
+        assertTrue(filter.shouldEmitRaw(raw(SensorsType.LEFT, 12.5, -1.0, 0), 300));
+        assertTrue(filter.shouldEmitProcessed(processed(1.0, 12.5, -1.0, 0), 300));
+    }
+
+    @Test
+    void disabledFilterEmitsEverything() {
+        ReflectionTestUtils.setField(filter, "enabled", false);
+
+        assertTrue(filter.shouldEmitRaw(raw(SensorsType.LEFT, 12.5, -1.0, 0), 0));
+        assertTrue(filter.shouldEmitRaw(raw(SensorsType.LEFT, 12.5, -1.0, 0), 100));
+    }
+
+    static DataModel raw(SensorsType sensor, double distance, double speed, int errorCode) {
+        return new DataModel(52, 1, sensor, speed, distance, errorCode, "");
+    }
+
+    static CombinedData processed(double angle, double distance, double speed, int errorCode) {
+        return CombinedData.builder()
+                .orgid(52)
+                .berth_id(1)
+                .session_id(30)
+                .angle(CombinedData.AngleData.builder().value(angle).status_id(1).zone(1).build())
+                .distance(CombinedData.SensorMetrics.builder()
+                        .ss01(sensorData(distance, 1, 1))
+                        .ss02(sensorData(distance + 0.5, 1, 1))
+                        .build())
+                .speed(CombinedData.SensorMetrics.builder()
+                        .ss01(sensorData(speed, 1, 1))
+                        .ss02(sensorData(speed, 1, 1))
+                        .build())
+                .event_time("2026-10-19T08:15:30.00000")
+                .error_code(errorCode)
+                .error_msg("")
+                .build();
+    }
+
+    static CombinedData.SensorData sensorData(double value, int statusId, int zone) {
+        return CombinedData.SensorData.builder().value(value).status_id(statusId).zone(zone).build();
+    }
+}
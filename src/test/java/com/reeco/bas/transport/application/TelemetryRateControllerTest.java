@@ -0,0 +1,243 @@
+package com.reeco.bas.transport.application;
+
+import com.reeco.bas.transport.model.CombinedData;
+import com.reeco.bas.transport.model.SensorsType;
+import com.reeco.bas.transport.model.VesselState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+
+import static com.reeco.bas.transport.application.DeadbandFilterTest.raw;
+import static com.reeco.bas.transport.application.DeadbandFilterTest.sensorData;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TelemetryRateControllerTest {
+    private static final long T0 = 1_760_860_000_000L;
+
+    private VesselStateMachine vesselStateMachine;
+    private TelemetryRateController controller;
+
+    @BeforeEach
+    void setUp() {
+        vesselStateMachine = new VesselStateMachine();
+        controller = new TelemetryRateController();
+        ReflectionTestUtils.setField(controller, "aggregateIntervalMs", 10_000L);
+        ReflectionTestUtils.setField(controller, "heartbeatIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(controller, "vesselStateMachine", vesselStateMachine);
+    }
+
+    @Test
+    void fullRatePassesEverySample() {
+        enterState(VesselState.BERTHING);
+
+        for (int i = 0; i < 3; i++) {
+            long now = T0 + i * 100;
+            assertTrue(controller.admitRaw(raw(SensorsType.LEFT, 12.5, -1.0, 0), now));
+            controller.rawEmitted(raw(SensorsType.LEFT, 12.5, -1.0, 0), now);
+            CombinedData record = processed(12.5, 1, 1, now);
+            assertSame(record, controller.admitProcessed(record, now));
+        }
+        assertEquals(EmissionPolicy.FULL_RATE, controller.getCurrentPolicy());
+    }
+
+    @Test
+    void downsampledSendsOneAggregatePerInterval() {
+        enterState(VesselState.MOORING);
+        assertTrue(controller.admitRaw(raw(SensorsType.LEFT, 12.5, -1.0, 0), T0));
+        controller.rawEmitted(raw(SensorsType.LEFT, 12.5, -1.0, 0), T0);
+        // The first sample under the policy goes out straight away
+        assertEquals(12.5, controller.admitProcessed(processed(12.5, 1, 2, T0), T0).getDistance().getSs01().getValue());
+
+        assertFalse(controller.admitRaw(raw(SensorsType.LEFT, 12.0, -1.0, 0), T0 + 9_999));
+        assertTrue(controller.admitRaw(raw(SensorsType.RIGHT, 12.0, -1.0, 0), T0 + 9_999));
+        assertNull(controller.admitProcessed(processed(12.0, 1, 2, T0 + 4_000), T0 + 4_000));
+        assertNull(controller.admitProcessed(processed(11.0, 1, 2, T0 + 8_000), T0 + 8_000));
+        assertTrue(controller.admitRaw(raw(SensorsType.LEFT, 12.0, -1.0, 0), T0 + 10_000));
+        CombinedData summary = controller.admitProcessed(processed(10.0, 1, 2, T0 + 10_000), T0 + 10_000);
+
+        assertEquals(11.0, summary.getDistance().getSs01().getValue(), 1e-9);
+        assertEquals(stamp(T0 + 10_000), summary.getEvent_time());
+        assertEquals(EmissionPolicy.DOWNSAMPLED, controller.getCurrentPolicy());
+    }
+
+    @Test
+    void heartbeatSendsTheLatestSampleOncePerInterval() {
+        enterState(VesselState.AVAILABLE);
+        CombinedData first = processed(12.5, 1, 1, T0);
+        assertSame(first, controller.admitProcessed(first, T0));
+        assertTrue(controller.admitRaw(raw(SensorsType.LEFT, 12.5, -1.0, 0), T0));
+        controller.rawEmitted(raw(SensorsType.LEFT, 12.5, -1.0, 0), T0);
+
+        assertNull(controller.admitProcessed(processed(12.0, 1, 1, T0 + 59_999), T0 + 59_999));
+        assertFalse(controller.admitRaw(raw(SensorsType.LEFT, 12.0, -1.0, 0), T0 + 59_999));
+        CombinedData latest = processed(11.0, 1, 1, T0 + 60_000);
+        assertSame(latest, controller.admitProcessed(latest, T0 + 60_000));
+        assertTrue(controller.admitRaw(raw(SensorsType.LEFT, 11.0, -1.0, 0), T0 + 60_000));
+        assertEquals(EmissionPolicy.HEARTBEAT, controller.getCurrentPolicy());
+    }
+
+    @Test
+    void escalatedAlarmBypassesAggregationWhileMooring() {
+        enterState(VesselState.MOORING);
+        controller.admitProcessed(processed(12.5, 1, 1, T0), T0);
+        assertNull(controller.admitProcessed(processed(12.0, 1, 1, T0 + 1_000), T0 + 1_000));
+
+        CombinedData alarm = processed(11.5, 2, 1, T0 + 2_000);
+        assertSame(alarm, controller.admitProcessed(alarm, T0 + 2_000));
+
+        // The alarm restarts the window and drops what was aggregated before it
+        assertNull(controller.admitProcessed(processed(11.0, 1, 1, T0 + 5_000), T0 + 5_000));
+        assertNull(controller.admitProcessed(processed(10.0, 1, 1, T0 + 11_999), T0 + 11_999));
+        CombinedData summary = controller.admitProcessed(processed(9.0, 1, 1, T0 + 12_000), T0 + 12_000);
+        assertEquals(10.0, summary.getDistance().getSs01().getValue(), 1e-9);
+    }
+
+    @Test
+    void escalatedAlarmBypassesTheHeartbeatWhileAvailable() {
+        enterState(VesselState.AVAILABLE);
+        controller.admitProcessed(processed(12.5, 1, 1, T0), T0);
+        assertNull(controller.admitProcessed(processed(12.0, 1, 1, T0 + 1_000), T0 + 1_000));
+
+        CombinedData alarm = processed(12.0, 1, 1, T0 + 2_000);
+        alarm.getAngle().setStatus_id(3);
+        assertSame(alarm, controller.admitProcessed(alarm, T0 + 2_000));
+        CombinedData stillAlarming = processed(12.0, 2, 1, T0 + 2_500);
+        assertSame(stillAlarming, controller.admitProcessed(stillAlarming, T0 + 2_500));
+        assertNull(controller.admitProcessed(processed(12.0, 1, 1, T0 + 3_000), T0 + 3_000));
+    }
+
+    @Test
+    void policySwitchTakesEffectOnTheNextSample() {
+        enterState(VesselState.MOORING);
+        controller.admitProcessed(processed(12.5, 1, 1, T0), T0);
+        controller.rawEmitted(raw(SensorsType.LEFT, 12.5, -1.0, 0), T0);
+        assertNull(controller.admitProcessed(processed(12.0, 1, 1, T0 + 1_000), T0 + 1_000));
+
+        enterState(VesselState.DEPARTING);
+        CombinedData departing = processed(12.2, 1, 1, T0 + 2_000);
+        assertSame(departing, controller.admitProcessed(departing, T0 + 2_000));
+        assertEquals(EmissionPolicy.FULL_RATE, controller.getCurrentPolicy());
+
+        // Back to a throttled policy: the first sample is sent at once, without the earlier backlog
+        enterState(VesselState.MOORING);
+        assertTrue(controller.admitRaw(raw(SensorsType.LEFT, 12.4, -1.0, 0), T0 + 3_000));
+        CombinedData summary = controller.admitProcessed(processed(12.4, 1, 1, T0 + 3_000), T0 + 3_000);
+        assertEquals(12.4, summary.getDistance().getSs01().getValue(), 1e-9);
+        assertNull(controller.admitProcessed(processed(12.3, 1, 1, T0 + 4_000), T0 + 4_000));
+
+        enterState(VesselState.AVAILABLE);
+        CombinedData available = processed(12.3, 1, 1, T0 + 5_000);
+        assertSame(available, controller.admitProcessed(available, T0 + 5_000));
+    }
+
+    @Test
+    void rawRecordDroppedDownstreamDoesNotHoldBackTheNextOne() {
+        enterState(VesselState.MOORING);
+        // Admitted, but the deadband suppresses it, so it is never reported as emitted
+        assertTrue(controller.admitRaw(raw(SensorsType.LEFT, 12.5, -1.0, 0), T0));
+
+        assertTrue(controller.admitRaw(raw(SensorsType.LEFT, 12.8, -1.0, 0), T0 + 1_000));
+        controller.rawEmitted(raw(SensorsType.LEFT, 12.8, -1.0, 0), T0 + 1_000);
+        assertFalse(controller.admitRaw(raw(SensorsType.LEFT, 12.9, -1.0, 0), T0 + 2_000));
+    }
+
+    @Test
+    void rawErrorCodeDroppedDownstreamIsStillReportedAsAChange() {
+        enterState(VesselState.MOORING);
+        assertTrue(controller.admitRaw(raw(SensorsType.LEFT, 12.5, -1.0, 0), T0));
+        controller.rawEmitted(raw(SensorsType.LEFT, 12.5, -1.0, 0), T0);
+
+        assertTrue(controller.admitRaw(raw(SensorsType.LEFT, 12.5, -1.0, 1031), T0 + 1_000));
+        assertTrue(controller.admitRaw(raw(SensorsType.LEFT, 12.5, -1.0, 1031), T0 + 2_000));
+    }
+
+    @Test
+    void rawErrorCodeChangesBypassTheInterval() {
+        enterState(VesselState.AVAILABLE);
+        controller.rawEmitted(raw(SensorsType.LEFT, 12.5, -1.0, 0), T0);
+        controller.rawEmitted(raw(SensorsType.RIGHT, 12.5, -1.0, 0), T0);
+
+        assertTrue(controller.admitRaw(raw(SensorsType.LEFT, 12.5, -1.0, 1021), T0 + 1_000));
+        controller.rawEmitted(raw(SensorsType.LEFT, 12.5, -1.0, 1021), T0 + 1_000);
+        assertFalse(controller.admitRaw(raw(SensorsType.LEFT, 12.5, -1.0, 1021), T0 + 2_000));
+        assertFalse(controller.admitRaw(raw(SensorsType.RIGHT, 12.5, -1.0, 0), T0 + 2_000));
+        assertTrue(controller.admitRaw(raw(SensorsType.LEFT, 12.5, -1.0, 0), T0 + 3_000));
+    }
+
+    @Test
+    void aggregateFoldsMeanWorstStatusAndClosestZone() {
+        TelemetryRateController.CombinedDataAggregate aggregate = new TelemetryRateController.CombinedDataAggregate();
+        assertNull(aggregate.toCombinedData());
+
+        CombinedData first = processed(12.0, 1, 3, T0);
+        first.getDistance().setSs02(null);
+        first.setAngle(null);
+        CombinedData second = processed(11.0, 3, 2, T0 + 1_000);
+        CombinedData third = processed(10.0, 2, 1, T0 + 2_000);
+        third.setSession_id(31);
+        third.setError_code(1031);
+        third.setError_msg("left sensor timeout");
+        aggregate.add(first);
+        aggregate.add(second);
+        aggregate.add(third);
+        CombinedData summary = aggregate.toCombinedData();
+
+        CombinedData.SensorData distance = summary.getDistance().getSs01();
+        assertEquals(11.0, distance.getValue(), 1e-9);
+        assertEquals(3, distance.getStatus_id());
+        assertEquals(1, distance.getZone());
+        // Absent readings do not count towards the mean
+        assertEquals(11.0, summary.getDistance().getSs02().getValue(), 1e-9);
+        assertEquals(0.5, summary.getAngle().getValue(), 1e-9);
+        assertEquals(3, summary.getAngle().getStatus_id());
+        assertEquals(1, summary.getAngle().getZone());
+        assertEquals(-1.0, summary.getSpeed().getSs02().getValue(), 1e-9);
+        // Identity and error come from the latest sample
+        assertEquals(31, summary.getSession_id());
+        assertEquals(stamp(T0 + 2_000), summary.getEvent_time());
+        assertEquals(1031, summary.getError_code());
+        assertEquals("left sensor timeout", summary.getError_msg());
+
+        aggregate.reset();
+        assertNull(aggregate.toCombinedData());
+    }
+
+    private void enterState(VesselState state) {
+        ReflectionTestUtils.setField(vesselStateMachine, "currentState", state);
+        controller.getCurrentPolicy();
+    }
+
+    /**
+     * A fused sample whose second distance reads half a metre further, with the angle
+     * tracking the distance status and zone.
+     */
+    private static CombinedData processed(double distance, int statusId, int zone, long eventMs) {
+        return CombinedData.builder()
+                .orgid(52)
+                .berth_id(1)
+                .session_id(30)
+                .angle(CombinedData.AngleData.builder().value(distance - 10.0).status_id(statusId).zone(zone).build())
+                .distance(CombinedData.SensorMetrics.builder()
+                        .ss01(sensorData(distance, statusId, zone))
+                        .ss02(sensorData(distance + 0.5, statusId, zone))
+                        .build())
+                .speed(CombinedData.SensorMetrics.builder()
+                        .ss01(sensorData(-1.0, 1, 1))
+                        .ss02(sensorData(-1.0, 1, 1))
+                        .build())
+                .event_time(stamp(eventMs))
+                .error_code(0)
+                .error_msg("")
+                .build();
+    }
+
+    private static String stamp(long eventMs) {
+        return Instant.ofEpochMilli(eventMs).toString();
+    }
+}
@@ -0,0 +1,178 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.reeco.bas.transport.model.SyncPayload;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+import static com.reeco.bas.transport.application.storage.SegmentWriterTest.sample;
+import static com.reeco.bas.transport.application.storage.SessionArchiveTest.assertRows;
+import static com.reeco.bas.transport.application.storage.SessionArchiveTest.quoted;
+import static com.reeco.bas.transport.application.storage.SessionArchiveTest.records;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportCsvReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void parsesQuotedExportRows() throws IOException {
+        List<SyncPayload> records = records();
+        Path csv = write(records, "\n");
+
+        try (ExportCsvReader reader = new ExportCsvReader(csv)) {
+            List<SyncPayload> rows = readAll(reader, reader.dataStart(), reader.size());
+
+            assertRows(records, rows);
+            assertSame(rows.get(0).getTime(), rows.get(0).getCreatedAt());
+            assertEquals(0, reader.getMalformedRows());
+        }
+    }
+
+    @Test
+    void fastDoubleParsingMatchesTheJdk() throws IOException {
+        String[] values = {"0.0", "-0.0", "0.1", "12.5", "-1.25", "3.1234", "99999.9999", "1.0E-5", "1.2345678901234E10",
+                "4.9E-324", "1.7976931348623157E308", "1e22", "1e23", "123456789012345678", "0.30000000000000004",
+                "9007199254740993", "+2.5", "NaN", "Infinity", "-Infinity"};
+        List<SyncPayload> records = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            records.add(sample(30, "2026-10-19T08:15:30.00000"));
+        }
+        StringBuilder text = new StringBuilder(quoted(SessionSegmentWriter.HEADER)).append('\n');
+        for (int i = 0; i < values.length; i++) {
+            String[] row = SessionSegmentWriter.toRow(records.get(i));
+            row[10] = values[i];
+            text.append(quoted(row)).append('\n');
+        }
+        Path csv = directory.resolve("values.csv");
+        Files.writeString(csv, text, StandardCharsets.UTF_8);
+
+        try (ExportCsvReader reader = new ExportCsvReader(csv)) {
+            List<SyncPayload> rows = readAll(reader, reader.dataStart(), reader.size());
+
+            assertEquals(values.length, rows.size());
+            for (int i = 0; i < values.length; i++) {
+                assertEquals(Double.doubleToRawLongBits(Double.parseDouble(values[i])),
+                        Double.doubleToRawLongBits(rows.get(i).getLeftDistance()), values[i]);
+            }
+        }
+    }
+
+    @Test
+    void splitRangesStartOnRowsAndCoverTheFileOnce() throws IOException {
+        List<SyncPayload> records = records();
+        Path csv = write(records, "\r\n");
+        // The last row has no line end
+        byte[] bytes = Files.readAllBytes(csv);
+        Files.write(csv, Arrays.copyOf(bytes, bytes.length - 2));
+
+        try (ExportCsvReader reader = new ExportCsvReader(csv)) {
+            byte[] content = Files.readAllBytes(csv);
+            for (int parts = 1; parts <= 12; parts++) {
+                List<ExportCsvReader.Range> ranges = reader.split(parts);
+                List<SyncPayload> rows = new ArrayList<>();
+                long expectedStart = reader.dataStart();
+                for (ExportCsvReader.Range range : ranges) {
+                    assertEquals(expectedStart, range.start(), parts + " parts");
+                    assertEquals('\n', content[(int) range.start() - 1], parts + " parts");
+                    rows.addAll(readAll(reader, range.start(), range.end()));
+                    expectedStart = range.end();
+                }
+                assertTrue(ranges.size() <= parts);
+                assertEquals(reader.size(), expectedStart);
+                assertRows(records, rows);
+            }
+            assertEquals(0, reader.getMalformedRows());
+        }
+    }
+
+    @Test
+    void readingResumesWhereTheVisitorStopped() throws IOException {
+        List<SyncPayload> records = records();
+        Path csv = write(records, "\n");
+
+        try (ExportCsvReader reader = new ExportCsvReader(csv)) {
+            List<SyncPayload> first = new ArrayList<>();
+            long next = reader.read(reader.dataStart(), reader.size(), SyncPayload::new, (row, offset) -> {
+                first.add(row);
+                return first.size() < 3;
+            });
+            List<SyncPayload> rest = readAll(reader, next, reader.size());
+
+            assertRows(records.subList(0, 3), first);
+            assertRows(records.subList(3, records.size()), rest);
+        }
+    }
+
+    @Test
+    void malformedRowsAreCountedAndSkipped() throws IOException {
+        List<SyncPayload> records = records().subList(0, 2);
+        String[] badNumber = SessionSegmentWriter.toRow(records.get(0));
+        badNumber[0] = "3x";
+        String[] escapedQuote = SessionSegmentWriter.toRow(records.get(0));
+        escapedQuote[23] = "a\"\"b";
+        String text = quoted(SessionSegmentWriter.HEADER) + '\n'
+                + quoted(SessionSegmentWriter.toRow(records.get(0))) + '\n'
+                + quoted(badNumber) + '\n'
+                + "\"30\",\"1\"\n"
+                + quoted(escapedQuote) + '\n'
+                + '\n'
+                + quoted(SessionSegmentWriter.toRow(records.get(1))) + '\n';
+        Path csv = directory.resolve("malformed.csv");
+        Files.writeString(csv, text, StandardCharsets.UTF_8);
+
+        try (ExportCsvReader reader = new ExportCsvReader(csv)) {
+            assertRows(records, readAll(reader, reader.dataStart(), reader.size()));
+            assertEquals(3, reader.getMalformedRows());
+        }
+    }
+
+    @Test
+    void parallelReadVisitsEveryRow() throws IOException {
+        List<SyncPayload> records = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            SyncPayload record = sample(30, "2026-10-19T08:15:30.00000");
+            record.setLeftStatus(i);
+            records.add(record);
+        }
+        Path csv = write(records, "\n");
+
+        Queue<Integer> seen = new ConcurrentLinkedQueue<>();
+        try (ExportCsvReader reader = new ExportCsvReader(csv)) {
+            reader.readParallel(4, row -> seen.add(row.getLeftStatus()));
+        }
+
+        assertEquals(records.size(), seen.size());
+        assertEquals(records.stream().map(SyncPayload::getLeftStatus).collect(Collectors.toSet()), Set.copyOf(seen));
+    }
+
+    private Path write(List<SyncPayload> records, String lineEnd) throws IOException {
+        StringBuilder text = new StringBuilder(quoted(SessionSegmentWriter.HEADER)).append(lineEnd);
+        for (SyncPayload record : records) {
+            text.append(quoted(SessionSegmentWriter.toRow(record))).append(lineEnd);
+        }
+        Path csv = directory.resolve("52_1_30-20261019_081530.csv");
+        Files.writeString(csv, text, StandardCharsets.UTF_8);
+        return csv;
+    }
+
+    private static List<SyncPayload> readAll(ExportCsvReader reader, long from, long to) {
+        List<SyncPayload> rows = new ArrayList<>();
+        reader.read(from, to, SyncPayload::new, (row, next) -> rows.add(row));
+        return rows;
+    }
+}
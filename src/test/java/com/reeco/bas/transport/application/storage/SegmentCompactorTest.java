@@ -0,0 +1,124 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.reeco.bas.transport.model.SyncPayload;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static com.reeco.bas.transport.application.storage.SegmentWriterTest.sample;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SegmentCompactorTest {
+    private static final long TEN_SECONDS = 10_000_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void timedOutSidesDoNotHideTheClosestDistance() throws IOException {
+        SyncPayload timedOut = reading("2026-10-19T08:15:31.00000", 11.0);
+        timeOutLeft(timedOut);
+        timedOut.setLeftStatus(1031);
+        SyncPayload closer = reading("2026-10-19T08:15:32.00000", 12.5);
+        closer.setLeftDistance(12.0);
+        closer.setAngleAlarm(2);
+
+        List<SyncPayload> rollup = rollup(reading("2026-10-19T08:15:30.00000", 13.0), timedOut, closer);
+
+        assertEquals(1, rollup.size());
+        SyncPayload interval = rollup.get(0);
+        assertEquals(12.0, interval.getLeftDistance());
+        assertEquals(2, interval.getLDistanceZone());
+        assertEquals(11.0, interval.getRightDistance());
+        assertEquals(-1.5, interval.getLeftSpeed());
+        assertEquals(1, interval.getLSpeedZone());
+        // Alarms and statuses still keep the worst of the interval
+        assertEquals(1031, interval.getLeftStatus());
+        assertEquals(2, interval.getAngleAlarm());
+    }
+
+    @Test
+    void intervalStartingWithATimeoutTakesTheNextReading() throws IOException {
+        SyncPayload timedOut = reading("2026-10-19T08:15:40.00000", 14.0);
+        timeOutLeft(timedOut);
+        timedOut.setAngleZone(0);
+        timedOut.setAngle(0);
+        SyncPayload next = reading("2026-10-19T08:15:41.00000", 14.0);
+        next.setLeftDistance(9.0);
+        next.setLDistanceZone(1);
+
+        SyncPayload interval = rollup(timedOut, next).get(0);
+
+        assertEquals(9.0, interval.getLeftDistance());
+        assertEquals(1, interval.getLDistanceZone());
+        assertEquals(-1.5, interval.getLeftSpeed());
+        assertEquals(0.5, interval.getAngle());
+        assertEquals(1, interval.getAngleZone());
+    }
+
+    @Test
+    void sideThatTimedOutForTheWholeIntervalStaysEmpty() throws IOException {
+        SyncPayload first = reading("2026-10-19T08:15:50.00000", 13.0);
+        timeOutLeft(first);
+        SyncPayload second = reading("2026-10-19T08:15:55.00000", 12.0);
+        timeOutLeft(second);
+
+        List<SyncPayload> rollup = rollup(reading("2026-10-19T08:15:45.00000", 13.0), first, second);
+
+        assertEquals(2, rollup.size());
+        assertEquals(0.0, rollup.get(1).getLeftDistance());
+        assertEquals(0, rollup.get(1).getLDistanceZone());
+        assertEquals(12.0, rollup.get(1).getRightDistance());
+    }
+
+    @Test
+    void gzipKeepsTheRawBytes() throws IOException {
+        Path segment = directory.resolve("52_1_30-20261019_081530.bsa");
+        SessionArchiveWriter.writeArchive(segment, SessionArchiveTest.records(), 3);
+        Path compressed = directory.resolve("52_1_30-20261019_081530.bsa.gz");
+
+        SegmentCompactor.gzip(segment, compressed);
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(compressed))) {
+            assertArrayEquals(Files.readAllBytes(segment), in.readAllBytes());
+        }
+    }
+
+    private List<SyncPayload> rollup(SyncPayload... records) throws IOException {
+        Path segment = directory.resolve("52_1_30-20261019_081530.bsa");
+        Path target = directory.resolve("52_1_30-20261019_081530.rollup.bsa");
+        SessionArchiveWriter.writeArchive(segment, List.of(records), 8);
+
+        int count = SegmentCompactor.rollup(segment, target, TEN_SECONDS);
+
+        try (SessionArchiveReader reader = new SessionArchiveReader(target)) {
+            List<SyncPayload> rollup = reader.readAll();
+            assertEquals(count, rollup.size());
+            return rollup;
+        }
+    }
+
+    private static SyncPayload reading(String time, double rightDistance) {
+        SyncPayload reading = sample(30, time);
+        reading.setLDistanceZone(2);
+        reading.setRightDistance(rightDistance);
+        reading.setLeftSpeed(-1.5);
+        reading.setLSpeedZone(1);
+        reading.setAngle(0.5);
+        return reading;
+    }
+
+    private static void timeOutLeft(SyncPayload reading) {
+        reading.setLeftDistance(0);
+        reading.setLDistanceZone(0);
+        reading.setLeftSpeed(0);
+        reading.setLSpeedZone(0);
+    }
+}
@@ -0,0 +1,75 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.reeco.bas.transport.model.SyncPayload;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void blankSamplesDoNotSplitTheSession() throws IOException {
+        List<SessionCatalog.Entry> sealed = new ArrayList<>();
+        SessionArchiveWriter writer = new SessionArchiveWriter(directory, Long.MAX_VALUE, Long.MAX_VALUE);
+        writer.onSeal(sealed::add);
+
+        writer.spill(SessionColumns.of(List.of(sample(30, "2026-10-19T08:15:30.00000"),
+                sample(30, "2026-10-19T08:15:30.50000"), new SyncPayload())));
+        writer.spill(SessionColumns.of(List.of(new SyncPayload(), sample(30, "2026-10-19T08:15:31.00000"))));
+        Path segment = writer.seal();
+
+        assertEquals(List.of(segment), segments());
+        assertTrue(segment.getFileName().toString().startsWith("52_1_30-"));
+        assertEquals(1, sealed.size());
+        assertEquals(3, sealed.get(0).getRowCount());
+        try (SessionArchiveReader reader = new SessionArchiveReader(segment)) {
+            assertEquals(3, reader.readAll().size());
+        }
+    }
+
+    @Test
+    void anotherSessionSealsTheSegment() throws IOException {
+        SessionArchiveWriter writer = new SessionArchiveWriter(directory, Long.MAX_VALUE, Long.MAX_VALUE);
+
+        writer.spill(SessionColumns.of(List.of(sample(30, "2026-10-19T08:15:30.00000"),
+                sample(31, "2026-10-19T08:15:30.50000"))));
+        writer.seal();
+
+        assertEquals(2, segments().size());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(SessionArchive.SUFFIX)).sorted().toList();
+        }
+    }
+
+    static SyncPayload sample(int sessionId, String time) {
+        SyncPayload sample = new SyncPayload();
+        sample.setOrgId(52);
+        sample.setBerthId(1);
+        sample.setRecordId(sessionId);
+        sample.setTime(time);
+        sample.setAngleZone(1);
+        sample.setLDistanceZone(1);
+        sample.setRDistanceZone(1);
+        sample.setLeftDistance(12.5);
+        sample.setRightDistance(13.0);
+        sample.setCreatedAt(time);
+        sample.setUpdatedAt(time);
+        sample.setDeletedAt("");
+        return sample;
+    }
+}
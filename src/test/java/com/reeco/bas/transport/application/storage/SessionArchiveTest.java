@@ -0,0 +1,139 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.reeco.bas.transport.infrastructure.codec.CombinedDataCodec;
+import com.reeco.bas.transport.model.SyncPayload;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.reeco.bas.transport.application.storage.SegmentWriterTest.sample;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsEveryFieldAcrossBlocks() throws IOException {
+        List<SyncPayload> records = records();
+        Path archive = directory.resolve("52_1_30-20261019_081530.bsa");
+        SessionArchiveWriter.writeArchive(archive, records, 3);
+
+        try (SessionArchiveReader reader = new SessionArchiveReader(archive)) {
+            assertEquals(3, reader.getBlocks().size());
+            assertEquals(records.size(), reader.getRecordCount());
+            assertRows(records, reader.readAll());
+        }
+    }
+
+    @Test
+    void scanSkipsBlocksOutsideTheRange() throws IOException {
+        List<SyncPayload> records = records();
+        Path archive = directory.resolve("52_1_30-20261019_081530.bsa");
+        SessionArchiveWriter.writeArchive(archive, records, 3);
+
+        List<SyncPayload> scanned = new ArrayList<>();
+        try (SessionArchiveReader reader = new SessionArchiveReader(archive)) {
+            reader.scan(CombinedDataCodec.toEpochMicros("2026-10-19T08:15:31.50000"),
+                    CombinedDataCodec.toEpochMicros("2026-10-19T08:15:31.60000"), scanned::add);
+        }
+
+        // Only the second block overlaps; the caller filters its rows
+        assertRows(records.subList(3, 6), scanned);
+    }
+
+    @Test
+    void openSegmentIsRepairedFromItsCompleteBlocks() throws IOException {
+        List<SyncPayload> records = records();
+        SessionArchiveWriter writer = new SessionArchiveWriter(directory, Long.MAX_VALUE, Long.MAX_VALUE);
+        writer.spill(SessionColumns.of(records.subList(0, 3)));
+        writer.spill(SessionColumns.of(records.subList(3, 6)));
+        Path open;
+        try (Stream<Path> files = Files.list(directory)) {
+            open = files.filter(file -> file.toString().endsWith(SegmentWriter.OPEN_SUFFIX)).findFirst().orElseThrow();
+        }
+        // A block cut short by the crash
+        Files.write(open, new byte[]{0, 0, 1, 0, 7, 7}, StandardOpenOption.APPEND);
+
+        new SessionArchiveWriter(directory, Long.MAX_VALUE, Long.MAX_VALUE);
+
+        Path repaired = open.resolveSibling(open.getFileName().toString().replace(SegmentWriter.OPEN_SUFFIX, ""));
+        try (SessionArchiveReader reader = new SessionArchiveReader(repaired)) {
+            assertRows(records.subList(0, 6), reader.readAll());
+        }
+    }
+
+    @Test
+    void exportsTheLegacyCsvLayout() throws IOException {
+        List<SyncPayload> records = records();
+        Path archive = directory.resolve("52_1_30-20261019_081530.bsa");
+        SessionArchiveWriter.writeArchive(archive, records, 4);
+
+        Path csv = SessionArchiveCsvExporter.export(archive);
+
+        assertEquals(directory.resolve("52_1_30-20261019_081530.csv"), csv);
+        List<String> lines = Files.readAllLines(csv);
+        assertEquals(records.size() + 1, lines.size());
+        assertEquals(quoted(SessionSegmentWriter.HEADER), lines.get(0));
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(quoted(SessionSegmentWriter.toRow(records.get(i))), lines.get(i + 1));
+        }
+    }
+
+    @Test
+    void textTimesAreKeptVerbatim() throws IOException {
+        List<SyncPayload> records = List.of(sample(30, "2026-10-19 08:15:30"), sample(30, "not a time"));
+        Path archive = directory.resolve("52_1_30-20261019_081530.bsa");
+        SessionArchiveWriter.writeArchive(archive, records, 8);
+
+        try (SessionArchiveReader reader = new SessionArchiveReader(archive)) {
+            assertRows(records, reader.readAll());
+            assertTrue(reader.getBlocks().get(0).overlaps(0, 1));
+        }
+    }
+
+    /**
+     * Eight samples of one session: drifting distances, zone changes, one row whose
+     * timestamps differ from its time, and one deleted row.
+     */
+    static List<SyncPayload> records() {
+        List<SyncPayload> records = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            SyncPayload record = sample(30, String.format("2026-10-19T08:15:%02d.%05d", 30 + i / 2, i % 2 * 50000));
+            record.setLeftDistance(12.5 - i * 0.25);
+            record.setRightDistance(13.0 - i * 0.1);
+            record.setLeftSpeed(i % 3 == 0 ? 0 : -1.25);
+            record.setRightSpeed(-0.75);
+            record.setAngle(0.123 * i);
+            record.setLDistanceZone(i < 5 ? 1 : 2);
+            record.setLeftStatus(i == 6 ? 1021 : 0);
+            record.setAngleAlarm(i == 7 ? 2 : 1);
+            records.add(record);
+        }
+        records.get(2).setUpdatedAt("2026-10-19T08:16:00.00000");
+        records.get(5).setDeletedAt("2026-10-19T09:00:00.00000");
+        return records;
+    }
+
+    static void assertRows(List<SyncPayload> expected, List<SyncPayload> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(SessionSegmentWriter.toRow(expected.get(i)), SessionSegmentWriter.toRow(actual.get(i)), "row " + i);
+        }
+    }
+
+    static String quoted(String[] row) {
+        return Stream.of(row).map(field -> '"' + field + '"').collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,76 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.reeco.bas.transport.infrastructure.codec.CombinedDataCodec;
+import com.reeco.bas.transport.model.SyncPayload;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.reeco.bas.transport.application.storage.SegmentWriterTest.sample;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionCatalogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void minimumDistanceIgnoresTimedOutSides() throws IOException {
+        SessionCatalog.Entry entry = SessionCatalog.index(writeSegment());
+
+        assertEquals(52, entry.getOrgId());
+        assertEquals(30, entry.getSessionId());
+        assertEquals(3, entry.getRowCount());
+        assertEquals(11.0, entry.getMinDistance());
+    }
+
+    @Test
+    void blankRowsAreCountedButNotSummarised() throws IOException {
+        SyncPayload blank = new SyncPayload();
+        blank.setTime("2026-10-19T08:15:30.70000");
+        Path segment = directory.resolve("0_0_0-20261019_081530.bsa");
+        SessionArchiveWriter.writeArchive(segment, List.of(blank, blank), 2);
+
+        SessionCatalog.Entry entry = SessionCatalog.index(segment);
+
+        assertEquals(2, entry.getRowCount());
+        assertEquals(0, entry.getOrgId());
+        assertEquals(Double.MAX_VALUE, entry.getMinDistance());
+    }
+
+    @Test
+    void queriesReturnOnlySessionSamplesInTheRange() throws IOException {
+        SessionCatalog catalog = new SessionCatalog(directory, directory.resolve("catalog.json"));
+        catalog.register(SessionCatalog.index(writeSegment()));
+        long from = CombinedDataCodec.toEpochMicros("2026-10-19T08:15:30.40000");
+        long to = CombinedDataCodec.toEpochMicros("2026-10-19T08:15:31.00000");
+
+        List<SyncPayload> samples = new ArrayList<>();
+        catalog.query(1, from, to, samples::add);
+
+        assertEquals(List.of("2026-10-19T08:15:30.50000", "2026-10-19T08:15:31.00000"),
+                samples.stream().map(SyncPayload::getTime).toList());
+        assertEquals(1, catalog.find(1, from, to).size());
+        assertTrue(catalog.find(2, from, to).isEmpty());
+    }
+
+    /**
+     * A segment with a sample whose left sensor timed out.
+     */
+    private Path writeSegment() throws IOException {
+        SyncPayload timedOut = sample(30, "2026-10-19T08:15:30.50000");
+        timedOut.setLDistanceZone(0);
+        timedOut.setLeftDistance(0);
+        timedOut.setRightDistance(11.0);
+
+        Path segment = directory.resolve("52_1_30-20261019_081530.bsa");
+        SessionArchiveWriter.writeArchive(segment, List.of(sample(30, "2026-10-19T08:15:30.00000"), timedOut,
+                sample(30, "2026-10-19T08:15:31.00000")), 2);
+        return segment;
+    }
+}
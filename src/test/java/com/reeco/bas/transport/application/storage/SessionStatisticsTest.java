@@ -0,0 +1,85 @@
+package com.reeco.bas.transport.application.storage;
+
+import com.reeco.bas.transport.application.DataProcessor;
+import com.reeco.bas.transport.model.CombinedData;
+import com.reeco.bas.transport.model.SyncPayload;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionStatisticsTest {
+
+    private final DataProcessor dataProcessor = new DataProcessor();
+
+    @Test
+    void sensorTimeoutInsideASessionKeepsTheSummary() {
+        SessionStatistics statistics = new SessionStatistics();
+        statistics.accept(map(record("2026-10-19T08:15:30.00000", 12.0, 14.0)));
+        statistics.accept(map(record("2026-10-19T08:15:30.50000", 11.0, 13.0)));
+
+        // Left sensor timed out: its sides and the angle are gone, as DataService leaves them
+        CombinedData timeout = record("2026-10-19T08:15:31.00000", 10.0, 12.0);
+        timeout.getDistance().setSs01(null);
+        timeout.getSpeed().setSs01(null);
+        timeout.setAngle(null);
+        timeout.setError_code(1031);
+        SyncPayload sample = map(timeout);
+
+        assertTrue(SessionStatistics.isSessionSample(sample));
+        assertFalse(statistics.isOtherSession(sample));
+        statistics.accept(sample);
+        statistics.accept(map(record("2026-10-19T08:15:31.50000", 10.5, 12.5)));
+
+        assertEquals(4, statistics.getSampleCount());
+        assertEquals(30, statistics.getSessionId());
+        assertEquals("2026-10-19T08:15:30.00000", statistics.getStartTime());
+        assertEquals(10.5, statistics.getMinLeftDistance());
+        assertEquals(12.0, statistics.getMinRightDistance());
+    }
+
+    @Test
+    void blankSamplesAreNotSessionSamples() {
+        assertFalse(SessionStatistics.isSessionSample(new SyncPayload()));
+        assertFalse(SessionStatistics.isSessionSample(null));
+        assertFalse(SessionStatistics.isSessionSample(dataProcessor.mappingCombinedDataToSyncPayload(null)));
+    }
+
+    @Test
+    void anotherSessionIsDetected() {
+        SessionStatistics statistics = new SessionStatistics();
+        statistics.accept(map(record("2026-10-19T08:15:30.00000", 12.0, 14.0)));
+
+        CombinedData next = record("2026-10-19T08:15:30.50000", 12.0, 14.0);
+        next.setSession_id(31);
+
+        assertTrue(statistics.isOtherSession(map(next)));
+    }
+
+    private SyncPayload map(CombinedData record) {
+        return dataProcessor.mappingCombinedDataToSyncPayload(record);
+    }
+
+    private static CombinedData record(String eventTime, double leftDistance, double rightDistance) {
+        return CombinedData.builder()
+                .orgid(52)
+                .berth_id(1)
+                .session_id(30)
+                .angle(CombinedData.AngleData.builder().value(1.5).status_id(0).zone(1).build())
+                .distance(CombinedData.SensorMetrics.builder()
+                        .ss01(sensor(leftDistance))
+                        .ss02(sensor(rightDistance))
+                        .build())
+                .speed(CombinedData.SensorMetrics.builder()
+                        .ss01(sensor(2.0))
+                        .ss02(sensor(2.5))
+                        .build())
+                .event_time(eventTime)
+                .build();
+    }
+
+    private static CombinedData.SensorData sensor(double value) {
+        return CombinedData.SensorData.builder().value(value).status_id(0).zone(1).build();
+    }
+}
@@ -0,0 +1,111 @@
+package com.reeco.bas.transport.infrastructure.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnCodecsTest {
+
+    @Test
+    void deltaOfDeltaRoundTripsIrregularTimes() {
+        long[] times = {1_792_397_730_000_000L, 1_792_397_730_500_000L, 1_792_397_731_000_000L,
+                1_792_397_731_000_000L, 1_792_397_730_900_000L, 0, Long.MAX_VALUE / 2, -5};
+        GrowableBuffer out = new GrowableBuffer(16);
+        ColumnCodecs.writeDeltaOfDelta(out, times, times.length);
+
+        long[] decoded = new long[times.length];
+        ByteBuffer in = ByteBuffer.wrap(out.toByteArray());
+        ColumnCodecs.readDeltaOfDelta(in, decoded, times.length);
+
+        assertArrayEquals(times, decoded);
+        assertEquals(0, in.remaining());
+    }
+
+    @Test
+    void regularTimesCostAboutAByteEach() {
+        long[] times = new long[1000];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = 1_792_397_730_000_000L + i * 500_000L;
+        }
+        GrowableBuffer out = new GrowableBuffer(16);
+        ColumnCodecs.writeDeltaOfDelta(out, times, times.length);
+
+        assertTrue(out.size() <= times.length + 16, "encoded size " + out.size());
+    }
+
+    @Test
+    void runLengthRoundTripsZones() {
+        int[] zones = {1, 1, 1, 2, 2, 0, -1, -1, 3, 3, 3, 3, 1};
+        GrowableBuffer out = new GrowableBuffer(16);
+        ColumnCodecs.writeRunLength(out, zones, zones.length);
+
+        int[] decoded = new int[zones.length];
+        ColumnCodecs.readRunLength(ByteBuffer.wrap(out.toByteArray()), decoded, zones.length);
+
+        assertArrayEquals(zones, decoded);
+    }
+
+    @Test
+    void runLengthRejectsRunsPastTheColumn() {
+        int[] zones = {1, 1, 1, 1};
+        GrowableBuffer out = new GrowableBuffer(16);
+        ColumnCodecs.writeRunLength(out, zones, zones.length);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ColumnCodecs.readRunLength(ByteBuffer.wrap(out.toByteArray()), new int[2], 2));
+    }
+
+    @Test
+    void xorDoublesRoundTripBitForBit() {
+        Random random = new Random(42);
+        double[] values = new double[200];
+        double distance = 25.0;
+        for (int i = 0; i < 150; i++) {
+            // Slowly drifting readings with repeats, as the sensors produce
+            distance += random.nextInt(3) == 0 ? 0 : Math.round(random.nextGaussian() * 10) / 100.0;
+            values[i] = distance;
+        }
+        double[] specials = {0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.MIN_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, 1e-300, 3.1234};
+        for (int i = 150; i < values.length; i++) {
+            values[i] = i % 5 == 0 ? random.nextDouble() * 1e6 : specials[i % specials.length];
+        }
+        GrowableBuffer out = new GrowableBuffer(16);
+        ColumnCodecs.writeXorDoubles(out, values, values.length);
+
+        double[] decoded = new double[values.length];
+        ColumnCodecs.readXorDoubles(ByteBuffer.wrap(out.toByteArray()), decoded, values.length);
+
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(Double.doubleToRawLongBits(values[i]), Double.doubleToRawLongBits(decoded[i]), "value " + i);
+        }
+    }
+
+    @Test
+    void columnsCanBeReadBackToBack() {
+        double[] first = {1.5, 1.5, 1.75};
+        double[] second = {};
+        int[] zones = {2, 2};
+        GrowableBuffer out = new GrowableBuffer(16);
+        ColumnCodecs.writeXorDoubles(out, first, first.length);
+        ColumnCodecs.writeXorDoubles(out, second, second.length);
+        ColumnCodecs.writeRunLength(out, zones, zones.length);
+
+        ByteBuffer in = ByteBuffer.wrap(out.toByteArray());
+        double[] decoded = new double[first.length];
+        int[] decodedZones = new int[zones.length];
+        ColumnCodecs.readXorDoubles(in, decoded, first.length);
+        ColumnCodecs.readXorDoubles(in, new double[0], 0);
+        ColumnCodecs.readRunLength(in, decodedZones, zones.length);
+
+        assertArrayEquals(first, decoded);
+        assertArrayEquals(zones, decodedZones);
+        assertEquals(0, in.remaining());
+    }
+}
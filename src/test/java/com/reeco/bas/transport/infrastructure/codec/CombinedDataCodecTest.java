@@ -0,0 +1,121 @@
+package com.reeco.bas.transport.infrastructure.codec;
+
+import com.reeco.bas.transport.model.CombinedData;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CombinedDataCodecTest {
+
+    @Test
+    void roundTripsEveryField() {
+        List<CombinedData> records = List.of(
+                record(1, 2, 30, "2026-10-19T08:15:30.12340", 12.5, 3.1234, -0.5, 0, ""),
+                record(1, 2, 30, "2026-10-19T08:15:30.62340", 12.4, 3.1, -0.4, 1021, "Left sensor weak signal"),
+                // Identity change inside a batch
+                record(4, 5, 31, "2026-10-19T08:15:31.00000", -7.25, 0, 99999.9999, 0, ""));
+
+        assertEquals(records, CombinedDataCodec.decode(CombinedDataCodec.encode(records)));
+    }
+
+    @Test
+    void preservesNullSidesMessagesAndTimes() {
+        CombinedData missingSides = record(1, 2, 30, "2026-10-19T08:15:30.12340", 1, 2, 3, 1031, null);
+        missingSides.setAngle(null);
+        missingSides.setDistance(null);
+        missingSides.getSpeed().setSs01(null);
+        CombinedData noTime = record(1, 2, 30, null, 1, 2, 3, 0, "");
+        noTime.setSpeed(null);
+        List<CombinedData> records = List.of(missingSides, noTime);
+
+        List<CombinedData> decoded = CombinedDataCodec.decode(CombinedDataCodec.encode(records));
+
+        assertEquals(records, decoded);
+        assertNull(decoded.get(0).getDistance());
+        assertNull(decoded.get(0).getError_msg());
+        assertNull(decoded.get(1).getEvent_time());
+        assertEquals("", decoded.get(1).getError_msg());
+    }
+
+    @Test
+    void roundsValuesToFixedPoint() {
+        CombinedData precise = record(1, 2, 30, "2026-10-19T08:15:30.12340", 1.23456789, -2.00004999, 0.00016, 0, "");
+
+        CombinedData decoded = CombinedDataCodec.decode(CombinedDataCodec.encode(List.of(precise))).get(0);
+
+        assertEquals(1.2346, decoded.getAngle().getValue());
+        assertEquals(-2.0, decoded.getDistance().getSs01().getValue());
+        assertEquals(0.0002, decoded.getSpeed().getSs01().getValue());
+    }
+
+    @Test
+    void roundTripsNegativeStatusAndErrorCodes() {
+        CombinedData record = record(1, 2, 30, "2026-10-19T08:15:30.12340", 1, 2, 3, -1, "");
+        record.getDistance().getSs02().setStatus_id(-1);
+        record.getAngle().setZone(-3);
+
+        assertEquals(List.of(record), CombinedDataCodec.decode(CombinedDataCodec.encode(List.of(record))));
+    }
+
+    @Test
+    void stationaryRecordsCostAFewBytesEach() {
+        List<CombinedData> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            records.add(record(1, 2, 30, CombinedDataCodec.fromEpochMicros(1_792_000_000_000_000L + i * 500_000L),
+                    12.5, 3.25, 0.5, 0, ""));
+        }
+
+        byte[] encoded = CombinedDataCodec.encode(records);
+
+        // flags, a three byte time delta, error code and three bytes for each of the five metrics
+        assertTrue(encoded.length <= 100 * 20 + 32, "encoded size " + encoded.length);
+        assertEquals(records, CombinedDataCodec.decode(encoded));
+    }
+
+    @Test
+    void encodesAnEmptyBatch() {
+        assertEquals(List.of(), CombinedDataCodec.decode(CombinedDataCodec.encode(List.of())));
+    }
+
+    @Test
+    void rejectsForeignPayloads() {
+        assertThrows(IllegalArgumentException.class, () -> CombinedDataCodec.decode(new byte[]{'{', '}', 0, 0}));
+    }
+
+    @Test
+    void convertsEventTimesAtUtcPlusSeven() {
+        assertEquals(0L, CombinedDataCodec.toEpochMicros("1970-01-01T07:00:00.00000"));
+        assertEquals("1970-01-01T07:00:01.00001", CombinedDataCodec.fromEpochMicros(1_000_010L));
+    }
+
+    private static CombinedData record(int orgId, int berthId, int sessionId, String eventTime,
+                                       double angle, double distance, double speed, int errorCode, String errorMsg) {
+        return CombinedData.builder()
+                .orgid(orgId)
+                .berth_id(berthId)
+                .session_id(sessionId)
+                .angle(CombinedData.AngleData.builder().value(angle).status_id(1).zone(2).build())
+                .distance(CombinedData.SensorMetrics.builder()
+                        .ss01(sensor(distance, 1, 1))
+                        .ss02(sensor(distance + 0.5, 2, 3))
+                        .build())
+                .speed(CombinedData.SensorMetrics.builder()
+                        .ss01(sensor(speed, 0, 1))
+                        .ss02(sensor(-speed, 7, 2))
+                        .build())
+                .event_time(eventTime)
+                .error_code(errorCode)
+                .error_msg(errorMsg)
+                .build();
+    }
+
+    private static CombinedData.SensorData sensor(double value, int statusId, int zone) {
+        return CombinedData.SensorData.builder().value(value).status_id(statusId).zone(zone).build();
+    }
+}
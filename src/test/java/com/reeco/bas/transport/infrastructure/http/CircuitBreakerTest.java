@@ -0,0 +1,59 @@
+package com.reeco.bas.transport.infrastructure.http;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, 60_000, 100, 1000, 2.0);
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(1, breaker.getRejectedCalls());
+    }
+
+    @Test
+    void slowCallStartedBeforeOpeningDoesNotCloseTheCircuit() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, 60_000, 100, 1000, 2.0);
+        long slowCallStart = System.nanoTime();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        breaker.onSuccess(slowCallStart);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void onlyTheHalfOpenProbeClosesTheCircuit() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, 0, 100, 1000, 2.0);
+        long staleCallStart = System.nanoTime();
+        breaker.onFailure();
+
+        assertTrue(breaker.tryAcquire());
+        long probeStart = System.nanoTime();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onSuccess(staleCallStart);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onSuccess(probeStart);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void failedProbeReopensTheCircuit() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, 0, 100, 1000, 2.0);
+        breaker.onFailure();
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
@@ -0,0 +1,71 @@
+package com.reeco.bas.transport.infrastructure.server;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrometheusWriterTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    // Gauges only hold weak references to their state
+    private final AtomicInteger cacheSize = new AtomicInteger(42);
+    private final AtomicInteger portOpen = new AtomicInteger(1);
+
+    @Test
+    void countersEndInTotalWithOneHeaderPerFamily() {
+        Counter.builder("sync.records").description("Records sent to the sync API").tag("result", "ok")
+                .register(registry).increment(3);
+        Counter.builder("sync.records").description("Records sent to the sync API").tag("result", "failed")
+                .register(registry).increment();
+
+        List<String> lines = lines();
+
+        assertEquals(List.of(
+                "# HELP sync_records_total Records sent to the sync API",
+                "# TYPE sync_records_total counter"), lines.subList(0, 2));
+        assertEquals(Set.of(
+                "sync_records_total{result=\"ok\"} 3.0",
+                "sync_records_total{result=\"failed\"} 1.0"), Set.copyOf(lines.subList(2, lines.size())));
+    }
+
+    @Test
+    void timersAreSummariesInSeconds() {
+        registry.timer("upload.duration", "berth", "1").record(Duration.ofMillis(1500));
+
+        assertEquals(List.of(
+                "# HELP upload_duration_seconds upload.duration",
+                "# TYPE upload_duration_seconds summary",
+                "upload_duration_seconds_count{berth=\"1\"} 1.0",
+                "upload_duration_seconds_sum{berth=\"1\"} 1.5",
+                "# HELP upload_duration_seconds_max upload.duration",
+                "# TYPE upload_duration_seconds_max gauge",
+                "upload_duration_seconds_max{berth=\"1\"} 1.5"), lines());
+    }
+
+    @Test
+    void gaugesKeepTheirNameAndEscapeLabels() {
+        registry.gauge("cache.size", cacheSize);
+        registry.gauge("sensor.port", Tags.of("port", "C:\\COM\"3\""), portOpen);
+
+        List<String> lines = lines();
+
+        assertTrue(lines.containsAll(List.of("# TYPE cache_size gauge", "cache_size 42.0")));
+        assertTrue(lines.contains("sensor_port{port=\"C:\\\\COM\\\"3\\\"\"} 1.0"));
+    }
+
+    private List<String> lines() {
+        PrometheusWriter writer = new PrometheusWriter();
+        registry.forEachMeter(writer::add);
+        return writer.write().lines().toList();
+    }
+}
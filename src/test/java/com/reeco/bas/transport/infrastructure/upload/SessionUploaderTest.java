@@ -0,0 +1,101 @@
+package com.reeco.bas.transport.infrastructure.upload;
+
+import com.reeco.bas.transport.infrastructure.http.CircuitBreakerRegistry;
+import com.reeco.bas.transport.model.SyncPayload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SessionUploaderTest {
+
+    private SyncStandInServer server;
+    private SessionUploader uploader;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new SyncStandInServer();
+
+        CircuitBreakerRegistry registry = new CircuitBreakerRegistry(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(registry, "failureThreshold", 5);
+        ReflectionTestUtils.setField(registry, "openDurationMs", 10_000L);
+        ReflectionTestUtils.setField(registry, "minReadTimeoutMs", 1000);
+        ReflectionTestUtils.setField(registry, "timeoutMultiplier", 2.0);
+
+        uploader = new SessionUploader();
+        ReflectionTestUtils.setField(uploader, "apiUrl", server.url());
+        ReflectionTestUtils.setField(uploader, "parallelism", 2);
+        ReflectionTestUtils.setField(uploader, "maxRetries", 3);
+        ReflectionTestUtils.setField(uploader, "retryDelayMillis", 10L);
+        ReflectionTestUtils.setField(uploader, "recordsPerSecond", 0.0);
+        ReflectionTestUtils.setField(uploader, "connectTimeout", 1000);
+        ReflectionTestUtils.setField(uploader, "readTimeout", 5000);
+        ReflectionTestUtils.setField(uploader, "circuitBreakerRegistry", registry);
+        uploader.createUploadWorkers();
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploader.stopUploadWorkers();
+        server.close();
+    }
+
+    @Test
+    void uploadsEveryChunk() {
+        assertEquals(4, uploader.upload("52_1_30-a.bsa", 0, chunks(4, 25)));
+        assertEquals(100, server.acceptedRecords());
+    }
+
+    @Test
+    void retriesServerErrors() {
+        server.failNext(2, 503);
+
+        assertEquals(3, uploader.upload("52_1_30-a.bsa", 0, chunks(3, 10)));
+        assertEquals(30, server.acceptedRecords());
+        assertEquals(5, server.requests());
+    }
+
+    @Test
+    void doesNotRetryRejectedChunks() {
+        server.failNext(1, 400);
+
+        assertEquals(0, uploader.upload("52_1_30-a.bsa", 0, chunks(1, 10)));
+        assertEquals(1, server.requests());
+        assertEquals(0, server.acceptedRecords());
+    }
+
+    @Test
+    void resentChunksKeepTheirIdsSoTheServerDropsThem() {
+        List<List<SyncPayload>> chunks = chunks(2, 10);
+        uploader.upload("52_1_30-a.bsa", 100, chunks);
+
+        assertEquals(2, uploader.upload("52_1_30-a.bsa", 100, chunks));
+        assertEquals(20, server.acceptedRecords());
+        assertEquals(2, server.duplicateChunks());
+    }
+
+    private static List<List<SyncPayload>> chunks(int count, int size) {
+        List<List<SyncPayload>> chunks = new ArrayList<>();
+        for (int c = 0; c < count; c++) {
+            List<SyncPayload> chunk = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                SyncPayload sample = new SyncPayload();
+                sample.setOrgId(52);
+                sample.setBerthId(1);
+                sample.setRecordId(30);
+                sample.setTime("2026-10-19T08:15:30.00000");
+                sample.setLeftDistance(c * size + i);
+                chunk.add(sample);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
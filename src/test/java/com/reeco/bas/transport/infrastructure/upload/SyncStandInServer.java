@@ -0,0 +1,93 @@
+package com.reeco.bas.transport.infrastructure.upload;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the sync API. It answers the first requests with a configurable
+ * status to exercise the uploader's retries, and drops chunks it has already accepted,
+ * as the real API should.
+ */
+class SyncStandInServer implements AutoCloseable {
+    static final String PATH = "/api/sync";
+    private static final String CHUNK_HEADER = "X-Sync-Chunk";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Set<String> acceptedChunks = ConcurrentHashMap.newKeySet();
+    private final AtomicLong acceptedRecords = new AtomicLong();
+    private final AtomicLong duplicateChunks = new AtomicLong();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private volatile int failureStatus = 503;
+    private final HttpServer server;
+
+    SyncStandInServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(PATH, this::handleSync);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+    }
+
+    String url() {
+        return "http://localhost:" + server.getAddress().getPort() + PATH;
+    }
+
+    /**
+     * Answer the next {@code count} requests with {@code status} instead of accepting them.
+     */
+    void failNext(int count, int status) {
+        failureStatus = status;
+        failuresLeft.set(count);
+    }
+
+    long acceptedRecords() {
+        return acceptedRecords.get();
+    }
+
+    long duplicateChunks() {
+        return duplicateChunks.get();
+    }
+
+    int requests() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handleSync(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            requests.incrementAndGet();
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            JsonNode records = objectMapper.readTree(body);
+            if (failuresLeft.getAndDecrement() > 0) {
+                exchange.sendResponseHeaders(failureStatus, -1);
+                return;
+            }
+
+            String chunkId = exchange.getRequestHeaders().getFirst(CHUNK_HEADER);
+            if (chunkId != null && !acceptedChunks.add(chunkId)) {
+                duplicateChunks.incrementAndGet();
+            } else {
+                acceptedRecords.addAndGet(records.size());
+            }
+            exchange.sendResponseHeaders(200, -1);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.reeco.bas.transport.utils.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitTurboFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        RateLimitTurboFilter filter = new RateLimitTurboFilter();
+        filter.setContext(context);
+        filter.setPrefix(TelemetryLog.CATEGORY);
+        filter.setSampleEvery(3);
+        filter.setMaxPerSecond(1000);
+        filter.start();
+        context.addTurboFilter(filter);
+
+        appender.setContext(context);
+        appender.start();
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(appender);
+    }
+
+    @Test
+    void samplesTelemetryLoggers() {
+        Logger logger = context.getLogger(TelemetryLog.CATEGORY + ".raw");
+        for (int i = 0; i < 9; i++) {
+            logger.info("frame {}", i);
+        }
+
+        assertEquals(3, appender.list.size());
+        assertEquals("frame 0", appender.list.get(0).getFormattedMessage());
+        assertEquals("frame 3", appender.list.get(1).getFormattedMessage());
+    }
+
+    @Test
+    void levelChecksDoNotUseUpSamplingSlots() {
+        Logger logger = context.getLogger(TelemetryLog.CATEGORY + ".raw");
+        for (int i = 0; i < 9; i++) {
+            assertTrue(logger.isInfoEnabled());
+            assertTrue(logger.isEnabledFor(Level.INFO));
+            if (logger.isInfoEnabled()) {
+                logger.info("frame {}", i);
+            }
+        }
+
+        assertEquals(3, appender.list.size());
+        assertEquals("frame 0", appender.list.get(0).getFormattedMessage());
+        assertEquals("frame 3", appender.list.get(1).getFormattedMessage());
+        assertEquals("frame 6", appender.list.get(2).getFormattedMessage());
+    }
+
+    @Test
+    void levelChecksDoNotRecurseIntoTheFilter() {
+        Logger logger = context.getLogger(TelemetryLog.CATEGORY + ".processed");
+
+        assertFalse(logger.isDebugEnabled());
+        logger.debug("below the level");
+        assertTrue(logger.isEnabledFor(Level.INFO));
+        assertTrue(appender.list.isEmpty());
+    }
+
+    @Test
+    void warningsAndOtherLoggersAlwaysPass() {
+        Logger telemetry = context.getLogger(TelemetryLog.CATEGORY + ".serial");
+        Logger other = context.getLogger("com.reeco.bas.transport.application.DataService");
+        for (int i = 0; i < 3; i++) {
+            telemetry.warn("warning {}", i);
+            other.info("info {}", i);
+        }
+
+        assertEquals(6, appender.list.size());
+    }
+}
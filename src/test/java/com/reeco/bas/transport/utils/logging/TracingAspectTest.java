@@ -0,0 +1,36 @@
+package com.reeco.bas.transport.utils.logging;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TracingAspectTest {
+
+    private static final long MINUTE_NANOS = 60_000_000_000L;
+
+    @Test
+    void firstCallOfAMethodIsAlwaysSampled() {
+        TracingAspect.TracedMethod method = new TracingAspect.TracedMethod("Job.run");
+
+        assertTrue(method.sample(0, MINUTE_NANOS));
+        assertFalse(method.sample(0, MINUTE_NANOS));
+    }
+
+    @Test
+    void rareCallsAreSampledOncePerInterval() {
+        TracingAspect.TracedMethod method = new TracingAspect.TracedMethod("Job.run");
+
+        assertTrue(method.sample(0, 0));
+        assertTrue(method.sample(0, 0));
+    }
+
+    @Test
+    void frequentCallsFollowTheSampleRate() {
+        TracingAspect.TracedMethod method = new TracingAspect.TracedMethod("Job.run");
+        method.sample(0, MINUTE_NANOS);
+
+        assertTrue(method.sample(1, MINUTE_NANOS));
+        assertFalse(method.sample(0, MINUTE_NANOS));
+    }
+}